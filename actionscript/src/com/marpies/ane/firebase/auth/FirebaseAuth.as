@@ -23,6 +23,7 @@ package com.marpies.ane.firebase.auth {
     }
 
     import flash.system.Capabilities;
+    import flash.utils.ByteArray;
     import flash.utils.Dictionary;
 
     /**
@@ -40,23 +41,50 @@ package com.marpies.ane.firebase.auth {
         }
 
         /* Event codes */
+        private static const READY:String = "ready";
+        private static const INIT_ERROR:String = "initError";
         private static const SIGN_IN_ERROR:String = "signInError";
         private static const SIGN_IN_SUCCESS:String = "signInSuccess";
         private static const AUTH_STATE_SIGN_IN:String = "authStateSignIn";
         private static const AUTH_STATE_SIGN_OFF:String = "authStateSignOff";
         private static const FBA_PROFILE_CHANGE_SUCCESS:String = "profileChangeSuccess";
         private static const FBA_PROFILE_CHANGE_ERROR:String = "profileChangeError";
-
+        private static const SIGN_IN_SUCCESS_BINARY:String = "signInSuccessBinary";
+        private static const AUTH_STATE_SIGN_IN_BINARY:String = "authStateSignInBinary";
+        private static const EVENT_BATCH:String = "eventBatch";
+        private static const USER_BATCH_UPDATE:String = "userBatchUpdate";
+        private static const PROFILE_CHANGE_QUEUED:String = "profileChangeQueued";
+        private static const PROFILE_JOURNAL_ENTRY:String = "profileJournalEntry";
+        private static const ID_TOKEN_SUCCESS:String = "idTokenSuccess";
+        private static const ID_TOKEN_ERROR:String = "idTokenError";
+        private static const OPERATION_TIMEOUT:String = "operationTimeout";
+        private static const INVALID_ARGUMENTS:String = "invalidArguments";
+        private static const LOAD_TEST_COMPLETE:String = "loadTestComplete";
+        private static const APP_EVENT:String = "appEvent";
+
+
+        /* Callback kinds, tell the shape of the callback's parameters */
+        private static const CALLBACK_RESULT:int = 0;           // function( result:*, errorMessage:String )
+        private static const CALLBACK_PROFILE_CHANGE:int = 1;   // function( errorMessage:String, ... )
 
         /* Callbacks */
         private static var mCallbackMap:Dictionary;
+        private static var mCallbackKindMap:Dictionary;
         private static var mCallbackIdCounter:int;
         private static var mAuthStateCallback:Function;
+        private static var mAppAuthStateCallbacks:Object;
+        private static var mProfileJournalCallback:Function;
 
         /* Misc */
         private static var mFirebaseUser:FirebaseUser;
         private static var mInitialized:Boolean;
+        private static var mReady:Boolean;
         private static var mLogEnabled:Boolean;
+        private static var mUseBinaryPayloads:Boolean;
+
+        /* Named apps (Android only) */
+        private static var mAppUsers:Object;
+        private static var mSelectedApp:String;
 
         /**
          * @private
@@ -90,10 +118,12 @@ package com.marpies.ane.firebase.auth {
          * };
          * </listing>
          * @param showLogs Set to <code>true</code> to show extension log messages.
+         * @param useBinaryPayloads Set to <code>true</code> to receive user data from the native side
+         * in a compact binary form instead of JSON. Currently used on Android only.
          *
          * @return <code>true</code> if the extension context was created, <code>false</code> otherwise
          */
-        public static function init( authStateCallback:Function = null, showLogs:Boolean = false ):Boolean {
+        public static function init( authStateCallback:Function = null, showLogs:Boolean = false, useBinaryPayloads:Boolean = false ):Boolean {
             if( !isSupported ) {
                 if( authStateCallback !== null ) {
                     authStateCallback( null );
@@ -103,6 +133,9 @@ package com.marpies.ane.firebase.auth {
             if( mInitialized ) return true;
 
             mLogEnabled = showLogs;
+            mUseBinaryPayloads = useBinaryPayloads;
+            mAppUsers = {};
+            mAppAuthStateCallbacks = {};
 
             /* Initialize context */
             if( !initExtensionContext() ) {
@@ -115,17 +148,69 @@ package com.marpies.ane.firebase.auth {
             }
 
             mCallbackMap = new Dictionary();
+            mCallbackKindMap = new Dictionary();
 
             /* Call init */
             CONFIG::ane {
                 mAuthStateCallback = authStateCallback;
-                mContext.call( "init", showLogs );
+                /* User persisted during the last session (Android only), updated once the auth state is known */
+                var lastUserJSON:String = mContext.call( "init", showLogs, useBinaryPayloads ) as String;
+                if( lastUserJSON !== null ) {
+                    mFirebaseUser = FirebaseUser.fromJSON( lastUserJSON );
+                }
             }
 
             mInitialized = true;
             return true;
         }
 
+        /**
+         * Initializes auth of a named <code>FirebaseApp</code>, e.g. a secondary project. Each app has its own
+         * signed in user and auth state. Use <code>selectedApp</code> to make calls for the app.
+         * <code>init()</code> must be called first. Android only.
+         *
+         * @param appName Name of the <code>FirebaseApp</code> that has been configured natively.
+         *                <code>ArgumentError</code> is thrown if there is no such app.
+         * @param authStateCallback Function called with the app's user once its auth state is known:
+         * <listing version="3.0">
+         * function callback( user:FirebaseUser ):void {
+         * };
+         * </listing>
+         *
+         * @see #selectedApp
+         */
+        public static function initApp( appName:String, authStateCallback:Function = null ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            if( appName === null ) throw new ArgumentError( "Parameter appName cannot be null." );
+            if( appName in mAppUsers ) return;
+
+            mAppUsers[appName] = null;
+            CONFIG::ane {
+                mAppAuthStateCallbacks[appName] = authStateCallback;
+                var result:Object = mContext.call( "init", mLogEnabled, mUseBinaryPayloads, appName );
+                if( result === false ) {
+                    delete mAppUsers[appName];
+                    delete mAppAuthStateCallbacks[appName];
+                    throw new ArgumentError( "FirebaseApp " + appName + " has not been configured." );
+                }
+                if( result is String ) {
+                    mAppUsers[appName] = FirebaseUser.fromJSON( result as String );
+                }
+            }
+        }
+
+        /**
+         * Returns user currently signed in to the given app, or <code>null</code> if no user is signed in.
+         *
+         * @param appName Name of the app, or <code>null</code> for the default app.
+         */
+        public static function getAppUser( appName:String ):FirebaseUser {
+            if( appName === null ) return mFirebaseUser;
+            return (mAppUsers !== null) ? mAppUsers[appName] as FirebaseUser : null;
+        }
+
         /**
          * Attempts to create a new user account with the given email address and password.
          * If successful, it also signs the user in into the app.
@@ -152,7 +237,7 @@ package com.marpies.ane.firebase.auth {
             if( callback === null ) throw new ArgumentError( "Parameter callback cannot be null." );
 
             CONFIG::ane {
-                mContext.call( "createUser", email, password, registerCallback( callback ) );
+                mContext.call( "createUser", email, password, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -178,7 +263,7 @@ package com.marpies.ane.firebase.auth {
             if( callback === null ) throw new ArgumentError( "Parameter callback cannot be null." );
 
             CONFIG::ane {
-                mContext.call( "signInAnonymously", registerCallback( callback ) );
+                mContext.call( "signInAnonymously", registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -273,11 +358,326 @@ package com.marpies.ane.firebase.auth {
 
             var result:Boolean;
             CONFIG::ane {
-                result = mContext.call( "signOut" ) as Boolean;
+                result = mContext.call( "signOut", mSelectedApp ) as Boolean;
+            }
+            return result;
+        }
+
+        /**
+         * Sets time window (in milliseconds) in which consecutive auth state changes are collapsed
+         * into a single event carrying the final state. Changes that do not alter the signed in user
+         * are never dispatched twice. Default value is <code>0</code>, i.e. changes are not collapsed.
+         * Android only.
+         *
+         * @param window Time window in milliseconds.
+         */
+        public static function setAuthStateCoalescingWindow( window:int ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            if( window < 0 ) throw new ArgumentError( "Parameter window cannot be negative." );
+
+            CONFIG::ane {
+                mContext.call( "setAuthStateCoalescingWindow", window );
+            }
+        }
+
+        /**
+         * Returns object with the number of auth state changes that were forwarded (<code>forwarded</code>)
+         * and suppressed (<code>suppressed</code>) by the native side. Android only.
+         */
+        public static function getAuthStateStats():Object {
+            if( !ANDROID ) return null;
+            validateExtensionContext();
+
+            var result:Object = null;
+            CONFIG::ane {
+                result = JSON.parse( mContext.call( "getAuthStateStats" ) as String );
+            }
+            return result;
+        }
+
+        /**
+         * Native results are processed on a background thread by default. Set to <code>true</code>
+         * to process them on the main thread instead. Android only.
+         *
+         * @param value <code>true</code> to process results on the main thread.
+         */
+        public static function setCompletionOnMainThread( value:Boolean ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            CONFIG::ane {
+                mContext.call( "setCompletionOnMainThread", value );
+            }
+        }
+
+        /**
+         * Returns object with the native function statistics: number of created extension contexts
+         * (<code>contextCount</code>), time it took to set up the first and the last context in nanoseconds
+         * (<code>firstContextNanos</code>, <code>lastContextNanos</code>), time spent handling results on the main
+         * and background threads (<code>mainThreadCompletionNanos</code>, <code>backgroundCompletionNanos</code>),
+         * number of retried network requests (<code>retries</code>) and requests failed fast while the backend
+         * was unreachable (<code>rejectedByCircuitBreaker</code>), number of operations that are in progress,
+         * have timed out, have been cancelled or had their result dropped (<code>pendingOperations</code>),
+         * running and queued operations of each priority class with their wait times (<code>scheduler</code>), the limit
+         * and the number of rejected and delayed calls of each rate limited operation (<code>rateLimiter</code>) and, for each called function,
+         * the number of calls and total time spent in the function (<code>functions</code>). Android only.
+         */
+        public static function getFunctionStats():Object {
+            if( !ANDROID ) return null;
+            validateExtensionContext();
+
+            var result:Object = null;
+            CONFIG::ane {
+                result = JSON.parse( mContext.call( "getFunctionStats" ) as String );
+            }
+            return result;
+        }
+
+        /**
+         * Returns object with latency histograms of the native operations, keyed by the function name.
+         * For each operation there are <code>total</code>, <code>task</code>, <code>serialization</code>
+         * and <code>dispatch</code> histograms, each with <code>count</code>, <code>p50</code>, <code>p90</code>,
+         * <code>p99</code> and <code>max</code> values in microseconds. Android only.
+         */
+        public static function getMetrics():Object {
+            if( !ANDROID ) return null;
+            validateExtensionContext();
+
+            var result:Object = null;
+            CONFIG::ane {
+                result = JSON.parse( mContext.call( "getMetrics" ) as String );
+            }
+            return result;
+        }
+
+        /**
+         * Runs a mix of simulated operations (reauthentication, profile changes, linking, unlinking
+         * and token requests) in the background against an in-memory backend. Once the test finishes,
+         * the callback receives a report with <code>throughput</code> (operations per second), <code>latency</code>
+         * histogram in microseconds, number of <code>errors</code>, dispatched <code>events</code> per event code
+         * and approximate <code>heapDeltaBytes</code>. The real backend and the current user are restored when
+         * the test finishes, results of other calls made while it runs are not delivered.
+         * Available in debuggable builds only. Android only.
+         *
+         * @param operations Number of operations to run.
+         * @param concurrency Maximum number of operations in progress at the same time.
+         * @param callback Function with signature <code>callback( report:Object, errorMessage:String ):void</code>.
+         * @param latency Simulated latency of the backend in milliseconds.
+         * @param failurePercent Percentage of operations that fail with a simulated network error.
+         */
+        public static function runLoadTest( operations:int, concurrency:int, callback:Function, latency:int = 0, failurePercent:int = 0 ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            if( operations < 0 ) throw new ArgumentError( "Parameter operations cannot be negative." );
+            if( concurrency <= 0 ) throw new ArgumentError( "Parameter concurrency must be greater than zero." );
+            if( callback === null ) throw new ArgumentError( "Parameter callback cannot be null." );
+            if( failurePercent < 0 || failurePercent > 100 ) throw new ArgumentError( "Parameter failurePercent must be between 0 and 100." );
+
+            CONFIG::ane {
+                mContext.call( "runLoadTest", operations, concurrency, latency, failurePercent, registerCallback( callback ) );
+            }
+        }
+
+        /**
+         * Returns recent native log messages, from the oldest to the newest. Once enabled with <code>setLogBufferEnabled()</code>,
+         * messages are recorded in a fixed-size in-memory buffer even when logs are not shown, so they are available in release builds.
+         * Each entry has <code>seq</code>, <code>time</code> (milliseconds since epoch), <code>thread</code>,
+         * <code>message</code> and, if the message relates to an operation, <code>callbackId</code>. Android only.
+         */
+        public static function dumpLogs():Array {
+            if( !ANDROID ) return null;
+            validateExtensionContext();
+
+            var result:Array = null;
+            CONFIG::ane {
+                result = JSON.parse( mContext.call( "dumpLogs" ) as String ) as Array;
+            }
+            return result;
+        }
+
+        /**
+         * Enables or disables recording of native log messages into the in-memory buffer
+         * returned by <code>dumpLogs()</code>. Recording is disabled by default. Android only.
+         *
+         * @see #dumpLogs()
+         */
+        public static function setLogBufferEnabled( enabled:Boolean ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            CONFIG::ane {
+                mContext.call( "setLogBufferEnabled", enabled );
+            }
+        }
+
+        /**
+         * Sets the maximum number of native operations in progress at the same time. Operations over the limit
+         * wait in a queue where sign in goes first, followed by linking, unlinking, reauthentication and token
+         * requests, with profile, email and password updates last. Default limit is 4. Android only.
+         *
+         * @param value Maximum number of operations, at least 1.
+         */
+        public static function setMaxConcurrentOperations( value:int ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            if( value < 1 ) throw new ArgumentError( "Parameter value must be at least 1." );
+
+            CONFIG::ane {
+                mContext.call( "setMaxConcurrentOperations", value );
+            }
+        }
+
+        /**
+         * Limits how often the given operation can be started, so that bugs or aggressive retries
+         * do not exhaust the Firebase quotas and lock out the device. Calls over the limit either fail
+         * right away with the <code>too-many-requests</code> error or are started once the limit allows it
+         * (calls that would wait more than 10 seconds still fail). By default, <code>createUser</code>
+         * and <code>signInAnonymously</code> allow a burst of 5 calls and 10 calls per minute, and
+         * <code>signInWithEmailAndPassword</code> and <code>signInWithCredential</code> allow a burst
+         * of 10 calls and 30 calls per minute (delayed when over the limit). Android only.
+         *
+         * @param operation Name of the operation, e.g. <code>createUser</code>, <code>signInWithCredential</code>
+         *                  (all sign in providers), <code>linkWithCredential</code> or <code>updateUserProfile</code>.
+         * @param burst Maximum number of calls that can be made at once, or <code>0</code> to remove the limit.
+         * @param callsPerMinute Number of calls allowed per minute once the burst is used up.
+         * @param delay <code>true</code> to delay calls over the limit, <code>false</code> to fail them right away.
+         */
+        public static function setRateLimit( operation:String, burst:int, callsPerMinute:int, delay:Boolean = false ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            if( operation === null ) throw new ArgumentError( "Parameter operation cannot be null." );
+            if( burst < 0 ) throw new ArgumentError( "Parameter burst cannot be negative." );
+            if( callsPerMinute < 0 ) throw new ArgumentError( "Parameter callsPerMinute cannot be negative." );
+
+            CONFIG::ane {
+                mContext.call( "setRateLimit", operation, burst, callsPerMinute, delay );
+            }
+        }
+
+        /**
+         * Enables or disables the offline journal of profile changes of the selected app. When enabled,
+         * display name and photo URL changes made while the device is offline (or that fail due to a network error)
+         * are saved to the app's private storage and applied in order once the device is online again, even after
+         * the app is restarted. A change that sets the same field as a pending one supersedes it. Email and
+         * password changes are never journaled. The journal requires the <code>android.permission.ACCESS_NETWORK_STATE</code>
+         * permission to find out when the device goes online. Android only.
+         *
+         * <p>The callback of a journaled change is called right away with no error message, and with the ID of the
+         * journal entry if it accepts a second parameter:</p>
+         * <listing version="3.0">
+         * function callback( errorMessage:String, journalEntryId:int = 0 ):void {
+         *      if( journalEntryId > 0 ) {
+         *          // change has been journaled and will be applied later
+         *      }
+         * };
+         * </listing>
+         *
+         * @param enabled <code>true</code> to journal the changes. Disabling the journal keeps the pending changes,
+         *                they are applied once it is enabled again.
+         * @param callback Function called when a journaled change completes, with the following signature:
+         * <listing version="3.0">
+         * function callback( journalEntryId:int, status:String, errorMessage:String ):void {
+         *      // status is "applied", "failed" (errorMessage is set) or "superseded" by a newer change
+         * };
+         * </listing>
+         */
+        public static function setProfileJournalEnabled( enabled:Boolean, callback:Function = null ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            mProfileJournalCallback = callback;
+
+            CONFIG::ane {
+                mContext.call( "setProfileJournalEnabled", enabled, mSelectedApp );
+            }
+        }
+
+        /**
+         * Cancels operations started with the given callback. The callback is not called
+         * and results of the operations are dropped when they arrive. Android only.
+         *
+         * @param callback Function that was passed to the operation, e.g. to <code>signInWithCredential()</code>.
+         * @return <code>true</code> if at least one operation was in progress.
+         */
+        public static function cancelOperation( callback:Function ):Boolean {
+            if( !ANDROID || callback === null ) return false;
+            validateExtensionContext();
+
+            var result:Boolean = false;
+            for( var key:Object in mCallbackMap ) {
+                if( mCallbackMap[key] !== callback ) continue;
+                var callbackId:int = int( key );
+                unregisterCallback( callbackId );
+                CONFIG::ane {
+                    if( mContext.call( "cancelOperation", callbackId ) as Boolean ) {
+                        result = true;
+                    }
+                }
             }
             return result;
         }
 
+        /**
+         * Sets the time after which an operation that has not completed fails with a timeout error.
+         * Applies to operations started after this call. Default timeout is 60 seconds. Android only.
+         *
+         * @param timeout Timeout in milliseconds, or <code>0</code> to wait for the result indefinitely.
+         * @param functionName Name of the native function the timeout applies to, e.g. <code>signInWithGoogleAccount</code>,
+         *                     or <code>null</code> to set the timeout of all functions without a specific timeout.
+         */
+        public static function setOperationTimeout( timeout:int, functionName:String = null ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            if( timeout < 0 ) throw new ArgumentError( "Parameter timeout cannot be negative." );
+
+            CONFIG::ane {
+                mContext.call( "setOperationTimeout", timeout, functionName );
+            }
+        }
+
+        /**
+         * Enables or disables batching of native events. When enabled, results of the native calls
+         * are queued and delivered together, either after the given interval or when <code>flushEvents()</code>
+         * is called. Android only.
+         *
+         * @param enabled <code>true</code> to enable batching, <code>false</code> to deliver every result immediately.
+         * @param interval Time in milliseconds after which queued results are delivered, or <code>0</code>
+         *                 to deliver them only when <code>flushEvents()</code> is called.
+         *
+         * @see #flushEvents()
+         */
+        public static function setEventBatching( enabled:Boolean, interval:int = 0 ):void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            if( interval < 0 ) throw new ArgumentError( "Parameter interval cannot be negative." );
+
+            CONFIG::ane {
+                mContext.call( "setEventBatching", enabled, interval );
+            }
+        }
+
+        /**
+         * Delivers results queued by the native side when event batching is enabled,
+         * e.g. once per frame. Android only.
+         *
+         * @see #setEventBatching()
+         */
+        public static function flushEvents():void {
+            if( !ANDROID ) return;
+            validateExtensionContext();
+
+            CONFIG::ane {
+                dispatchEventBatch( mContext.call( "flushEvents" ) as String );
+            }
+        }
+
         /**
          * Disposes native extension context.
          */
@@ -286,15 +686,20 @@ package com.marpies.ane.firebase.auth {
             validateExtensionContext();
 
             mFirebaseUser = null;
+            mAppUsers = null;
+            mSelectedApp = null;
 
             CONFIG::ane {
                 mAuthStateCallback = null;
+                mAppAuthStateCallbacks = null;
+                mProfileJournalCallback = null;
                 mContext.removeEventListener( StatusEvent.STATUS, onStatus );
                 mContext.dispose();
                 mContext = null;
             }
 
             mInitialized = false;
+            mReady = false;
         }
 
         /**
@@ -307,9 +712,41 @@ package com.marpies.ane.firebase.auth {
 
         /**
          * Returns currently logged in user, or <code>null</code> if user is not logged in.
+         * On Android, the user who was signed in during the last session is available right after
+         * <code>init()</code> and is replaced once the SDK reports the current auth state.
          */
         public static function get currentUser():FirebaseUser {
-            return mFirebaseUser;
+            return getAppUser( mSelectedApp );
+        }
+
+        /**
+         * Name of the app that subsequent calls (including calls on <code>FirebaseUser</code>) are made for,
+         * or <code>null</code> for the default app. The app must be initialized using <code>initApp()</code> first.
+         * Android only, setting the app has no effect on iOS.
+         *
+         * @see #initApp()
+         */
+        public static function get selectedApp():String {
+            return mSelectedApp;
+        }
+
+        /**
+         * @private
+         */
+        public static function set selectedApp( value:String ):void {
+            if( value !== null && ANDROID && (mAppUsers === null || !(value in mAppUsers)) ) {
+                throw new ArgumentError( "App " + value + " has not been initialized, call initApp() first." );
+            }
+            mSelectedApp = value;
+        }
+
+        /**
+         * Returns <code>true</code> once the native SDK has been initialized. On Android, the SDK is set up
+         * in the background after <code>init()</code> returns. Calls made before then are queued natively
+         * and run as soon as the SDK is ready.
+         */
+        public static function get isReady():Boolean {
+            return mInitialized && (mReady || !ANDROID);
         }
 
         /**
@@ -347,7 +784,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid email credential provided." );
 
             CONFIG::ane {
-                mContext.call( "linkWithEmailAndPassword", credential.email, credential.password, registerCallback( callback ) );
+                mContext.call( "linkWithEmailAndPassword", credential.email, credential.password, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -358,7 +795,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Facebook credential provided." );
 
             CONFIG::ane {
-                mContext.call( "linkWithFacebookAccount", credential.accessToken, registerCallback( callback ) );
+                mContext.call( "linkWithFacebookAccount", credential.accessToken, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -369,7 +806,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Google credential provided." );
 
             CONFIG::ane {
-                mContext.call( "linkWithGoogleAccount", credential.idToken, credential.accessToken, registerCallback( callback ) );
+                mContext.call( "linkWithGoogleAccount", credential.idToken, credential.accessToken, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -380,7 +817,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Twitter credential provided." );
 
             CONFIG::ane {
-                mContext.call( "linkWithTwitterAccount", credential.token, credential.secret, registerCallback( callback ) );
+                mContext.call( "linkWithTwitterAccount", credential.token, credential.secret, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -391,7 +828,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Github credential provided." );
 
             CONFIG::ane {
-                mContext.call( "linkWithGithubAccount", credential.accessToken, registerCallback( callback ) );
+                mContext.call( "linkWithGithubAccount", credential.accessToken, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -400,7 +837,7 @@ package com.marpies.ane.firebase.auth {
          */
         internal static function unlinkFromProvider( providerId:String, callback:Function ):void {
             CONFIG::ane {
-                mContext.call( "unlinkFromProvider", providerId, registerCallback( callback ) );
+                mContext.call( "unlinkFromProvider", providerId, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -434,7 +871,7 @@ package com.marpies.ane.firebase.auth {
          */
         internal static function updateEmail( email:String, callback:Function ):void {
             CONFIG::ane {
-                mContext.call( "updateEmail", email, registerCallback( callback ) );
+                mContext.call( "updateEmail", email, registerCallback( callback, CALLBACK_PROFILE_CHANGE ), mSelectedApp );
             }
         }
 
@@ -443,7 +880,33 @@ package com.marpies.ane.firebase.auth {
          */
         internal static function updatePassword( password:String, callback:Function ):void {
             CONFIG::ane {
-                mContext.call( "updatePassword", password, registerCallback( callback ) );
+                mContext.call( "updatePassword", password, registerCallback( callback, CALLBACK_PROFILE_CHANGE ), mSelectedApp );
+            }
+        }
+
+        /**
+         * @private
+         */
+        internal static function updateUserBatch( email:String, password:String, displayName:String, photoURL:String, callback:Function ):void {
+            if( !ANDROID ) {
+                callback( null, "Batch user update is supported on Android only." );
+                return;
+            }
+            CONFIG::ane {
+                mContext.call( "updateUserBatch", email, password, displayName, photoURL, registerCallback( callback ), mSelectedApp );
+            }
+        }
+
+        /**
+         * @private
+         */
+        internal static function getIdToken( forceRefresh:Boolean, callback:Function ):void {
+            if( !ANDROID ) {
+                callback( null, "ID token retrieval is supported on Android only." );
+                return;
+            }
+            CONFIG::ane {
+                mContext.call( "getIdToken", forceRefresh, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -452,7 +915,7 @@ package com.marpies.ane.firebase.auth {
          */
         internal static function changeUserProfile( displayName:String, photoURL:String, callback:Function ):void {
             CONFIG::ane {
-                mContext.call( "changeUserProfile", displayName, photoURL, registerCallback( callback ) );
+                mContext.call( "changeUserProfile", displayName, photoURL, registerCallback( callback, CALLBACK_PROFILE_CHANGE ), mSelectedApp );
             }
         }
 
@@ -461,7 +924,7 @@ package com.marpies.ane.firebase.auth {
          */
         internal static function deleteUser( callback:Function ):void {
             CONFIG::ane {
-                mContext.call( "deleteUser", registerCallback( callback ) );
+                mContext.call( "deleteUser", registerCallback( callback, CALLBACK_PROFILE_CHANGE ), mSelectedApp );
             }
         }
 
@@ -492,7 +955,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid email credential provided." );
 
             CONFIG::ane {
-                mContext.call( "signInWithEmailAndPassword", credential.email, credential.password, registerCallback( callback ) );
+                mContext.call( "signInWithEmailAndPassword", credential.email, credential.password, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -500,7 +963,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Facebook credential provided." );
 
             CONFIG::ane {
-                mContext.call( "signInWithFacebookAccount", credential.accessToken, registerCallback( callback ) );
+                mContext.call( "signInWithFacebookAccount", credential.accessToken, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -508,7 +971,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Google credential provided." );
 
             CONFIG::ane {
-                mContext.call( "signInWithGoogleAccount", credential.idToken, credential.accessToken, registerCallback( callback ) );
+                mContext.call( "signInWithGoogleAccount", credential.idToken, credential.accessToken, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -516,7 +979,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Twitter credential provided." );
 
             CONFIG::ane {
-                mContext.call( "signInWithTwitterAccount", credential.token, credential.secret, registerCallback( callback ) );
+                mContext.call( "signInWithTwitterAccount", credential.token, credential.secret, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -524,7 +987,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Github credential provided." );
 
             CONFIG::ane {
-                mContext.call( "signInWithGithubAccount", credential.accessToken, registerCallback( callback ) );
+                mContext.call( "signInWithGithubAccount", credential.accessToken, registerCallback( callback ), mSelectedApp );
             }
         }
 
@@ -538,7 +1001,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid email credential provided." );
 
             CONFIG::ane {
-                mContext.call( "reauthWithEmailAndPassword", credential.email, credential.password, registerCallback( callback ) );
+                mContext.call( "reauthWithEmailAndPassword", credential.email, credential.password, registerCallback( callback, CALLBACK_PROFILE_CHANGE ), mSelectedApp );
             }
         }
 
@@ -546,7 +1009,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Facebook credential provided." );
 
             CONFIG::ane {
-                mContext.call( "reauthWithFacebookAccount", credential.accessToken, registerCallback( callback ) );
+                mContext.call( "reauthWithFacebookAccount", credential.accessToken, registerCallback( callback, CALLBACK_PROFILE_CHANGE ), mSelectedApp );
             }
         }
 
@@ -554,7 +1017,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Google credential provided." );
 
             CONFIG::ane {
-                mContext.call( "reauthWithGoogleAccount", credential.idToken, credential.accessToken, registerCallback( callback ) );
+                mContext.call( "reauthWithGoogleAccount", credential.idToken, credential.accessToken, registerCallback( callback, CALLBACK_PROFILE_CHANGE ), mSelectedApp );
             }
         }
 
@@ -562,7 +1025,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Twitter credential provided." );
 
             CONFIG::ane {
-                mContext.call( "reauthWithTwitterAccount", credential.token, credential.secret, registerCallback( callback ) );
+                mContext.call( "reauthWithTwitterAccount", credential.token, credential.secret, registerCallback( callback, CALLBACK_PROFILE_CHANGE ), mSelectedApp );
             }
         }
 
@@ -570,7 +1033,7 @@ package com.marpies.ane.firebase.auth {
             if( credential === null ) throw new ArgumentError( "Invalid Github credential provided." );
 
             CONFIG::ane {
-                mContext.call( "reauthWithGithubAccount", credential.accessToken, registerCallback( callback ) );
+                mContext.call( "reauthWithGithubAccount", credential.accessToken, registerCallback( callback, CALLBACK_PROFILE_CHANGE ), mSelectedApp );
             }
         }
 
@@ -592,12 +1055,14 @@ package com.marpies.ane.firebase.auth {
         /**
          * Registers given callback and generates ID which is used to look the callback up when it is time to call it.
          * @param callback Function to register.
+         * @param kind Shape of the callback's parameters, used to report errors that are common to all operations.
          * @return ID of the callback.
          */
-        private static function registerCallback( callback:Function ):int {
+        private static function registerCallback( callback:Function, kind:int = CALLBACK_RESULT ):int {
             if( callback == null ) return -1;
 
             mCallbackMap[mCallbackIdCounter] = callback;
+            mCallbackKindMap[mCallbackIdCounter] = kind;
             return mCallbackIdCounter++;
         }
 
@@ -618,24 +1083,69 @@ package com.marpies.ane.firebase.auth {
         private static function unregisterCallback( callbackID:int ):void {
             if( callbackID in mCallbackMap ) {
                 delete mCallbackMap[callbackID];
+                delete mCallbackKindMap[callbackID];
             }
         }
 
         private static function onStatus( event:StatusEvent ):void {
+            handleStatus( event.code, event.level );
+        }
+
+        /**
+         * Handles native event.
+         * @param appName Name of the app the event belongs to, or <code>null</code> for the default app.
+         */
+        private static function handleStatus( code:String, level:String, appName:String = null ):void {
             var json:Object = null;
+            var bytes:ByteArray = null;
+            var callbackId:int = -1;
             var callback:Function = null;
-            switch( event.code ) {
+            switch( code ) {
+                case EVENT_BATCH:
+                    dispatchEventBatch( level );
+                    return;
+
+                case APP_EVENT:
+                    json = JSON.parse( level );
+                    handleStatus( json.code, json.level, json.app );
+                    return;
+
+                case READY:
+                    log( "Native SDK is ready" + ((appName !== null) ? " for app " + appName : "") );
+                    if( appName === null ) {
+                        mReady = true;
+                    }
+                    return;
+
+                case INIT_ERROR:
+                    json = JSON.parse( level );
+                    log( "Native SDK failed to initialize" + ((appName !== null) ? " for app " + appName : "") + ": " + json.errorMessage );
+                    return;
+
                 case SIGN_IN_SUCCESS:
-                    json = JSON.parse( event.level );
-                    mFirebaseUser = FirebaseUser.fromJSON( json.user );
+                    json = JSON.parse( level );
+                    setAppUser( appName, FirebaseUser.fromJSON( json.user ) );
                     callback = getCallbackFromJSON( json );
                     if( callback !== null ) {
-                        callback( mFirebaseUser, null );
+                        callback( getAppUser( appName ), null );
+                    }
+                    return;
+
+                case SIGN_IN_SUCCESS_BINARY:
+                    bytes = getEventPayload( level );
+                    if( bytes !== null ) {
+                        callbackId = bytes.readInt();
+                        callback = getCallback( callbackId );
+                        unregisterCallback( callbackId );
+                        setAppUser( appName, bytes.readBoolean() ? FirebaseUser.fromByteArray( bytes ) : null );
+                        if( callback !== null ) {
+                            callback( getAppUser( appName ), null );
+                        }
                     }
                     return;
 
                 case SIGN_IN_ERROR:
-                    json = JSON.parse( event.level );
+                    json = JSON.parse( level );
                     callback = getCallbackFromJSON( json );
                     if( callback !== null ) {
                         callback( null, json.errorMessage );
@@ -643,45 +1153,161 @@ package com.marpies.ane.firebase.auth {
                     return;
 
                 case AUTH_STATE_SIGN_IN:
-                    /* We may receive this event on app startup when user has signed in before */
-                    if( mFirebaseUser === null ) {
-                        json = (event.level != "") ? JSON.parse( event.level ) : null;
-                        if( json !== null ) {
-                            mFirebaseUser = FirebaseUser.fromJSON( json );
+                    /* We may receive this event on app startup when user has signed in before,
+                     * it replaces the user restored from the last session with the current data */
+                    json = (level != "") ? JSON.parse( level ) : null;
+                    if( json !== null ) {
+                        setAppUser( appName, FirebaseUser.fromJSON( json ) );
+                    }
+                    triggerAuthStateCallback( appName );
+                    return;
+
+                case AUTH_STATE_SIGN_IN_BINARY:
+                    /* Always retrieve the payload so that it does not stay in the native slot */
+                    bytes = getEventPayload( level );
+                    if( bytes !== null ) {
+                        bytes.readInt(); // callback ID is not used
+                        if( bytes.readBoolean() ) {
+                            setAppUser( appName, FirebaseUser.fromByteArray( bytes ) );
                         }
                     }
-                    triggerAuthStateCallback();
+                    triggerAuthStateCallback( appName );
                     return;
 
                 case AUTH_STATE_SIGN_OFF:
-                    mFirebaseUser = null;
-                    triggerAuthStateCallback();
+                    setAppUser( appName, null );
+                    triggerAuthStateCallback( appName );
                     return;
 
                 case FBA_PROFILE_CHANGE_SUCCESS:
-                    callback = getCallback( int( event.level ) );
+                    callbackId = int( level );
+                    callback = getCallback( callbackId );
+                    unregisterCallback( callbackId );
                     if( callback !== null ) {
                         callback( null );
                     }
                     return;
 
                 case FBA_PROFILE_CHANGE_ERROR:
-                    json = JSON.parse( event.level );
+                    json = JSON.parse( level );
                     callback = getCallbackFromJSON( json );
                     if( callback !== null ) {
                         callback( json.errorMessage );
                     }
                     return;
+
+                case PROFILE_CHANGE_QUEUED:
+                    json = JSON.parse( level );
+                    callback = getCallbackFromJSON( json );
+                    if( callback !== null ) {
+                        if( callback.length > 1 ) {
+                            callback( null, json.entryId );
+                        } else {
+                            callback( null );
+                        }
+                    }
+                    return;
+
+                case PROFILE_JOURNAL_ENTRY:
+                    json = JSON.parse( level );
+                    if( mProfileJournalCallback !== null ) {
+                        mProfileJournalCallback( json.entryId, json.status, ("errorMessage" in json) ? json.errorMessage : null );
+                    }
+                    return;
+
+                case USER_BATCH_UPDATE:
+                    json = JSON.parse( level );
+                    setAppUser( appName, FirebaseUser.fromJSON( json.user ) );
+                    callback = getCallbackFromJSON( json );
+                    if( callback !== null ) {
+                        callback( json.results, ("errorMessage" in json) ? json.errorMessage : null );
+                    }
+                    return;
+
+                case ID_TOKEN_SUCCESS:
+                    json = JSON.parse( level );
+                    callback = getCallbackFromJSON( json );
+                    if( callback !== null ) {
+                        callback( json.token, null );
+                    }
+                    return;
+
+                case ID_TOKEN_ERROR:
+                    json = JSON.parse( level );
+                    callback = getCallbackFromJSON( json );
+                    if( callback !== null ) {
+                        callback( null, json.errorMessage );
+                    }
+                    return;
+
+                case LOAD_TEST_COMPLETE:
+                    json = JSON.parse( level );
+                    callback = getCallbackFromJSON( json );
+                    if( callback !== null ) {
+                        if( "error" in json.report ) {
+                            callback( null, json.report.error );
+                        } else {
+                            callback( json.report, null );
+                        }
+                    }
+                    return;
+
+                case OPERATION_TIMEOUT:
+                case INVALID_ARGUMENTS:
+                    json = JSON.parse( level );
+                    callbackId = getCallbackIdFromJSON( json );
+                    var kind:int = (callbackId in mCallbackKindMap) ? mCallbackKindMap[callbackId] : CALLBACK_RESULT;
+                    callback = getCallbackFromJSON( json );
+                    if( callback !== null ) {
+                        /* Profile change callbacks take the error message first */
+                        if( kind == CALLBACK_PROFILE_CHANGE ) {
+                            callback( json.errorMessage );
+                        } else {
+                            callback( null, json.errorMessage );
+                        }
+                    }
+                    return;
             }
         }
 
-        private static function triggerAuthStateCallback():void {
+        /**
+         * Handles events from a batch dispatched (or returned) by the native side.
+         * @param batch JSON array of objects with <code>code</code> and <code>level</code> properties.
+         */
+        private static function dispatchEventBatch( batch:String ):void {
+            if( batch === null || batch == "" ) return;
+
+            var events:Array = JSON.parse( batch ) as Array;
+            var length:int = events.length;
+            for( var i:int = 0; i < length; ++i ) {
+                var event:Object = events[i];
+                handleStatus( event.code, event.level );
+            }
+        }
+
+        private static function triggerAuthStateCallback( appName:String = null ):void {
+            if( appName !== null ) {
+                var appCallback:Function = (mAppAuthStateCallbacks !== null) ? mAppAuthStateCallbacks[appName] as Function : null;
+                if( appCallback !== null ) {
+                    delete mAppAuthStateCallbacks[appName];
+                    appCallback( getAppUser( appName ) );
+                }
+                return;
+            }
             if( mAuthStateCallback !== null ) {
                 mAuthStateCallback( mFirebaseUser );
                 mAuthStateCallback = null; // we only want the callback to be called once
             }
         }
 
+        private static function setAppUser( appName:String, user:FirebaseUser ):void {
+            if( appName === null ) {
+                mFirebaseUser = user;
+            } else if( mAppUsers !== null ) {
+                mAppUsers[appName] = user;
+            }
+        }
+
         /**
          * Retrieves callback ID from JSON response and gets callback registered with that ID.
          * If callback is found, it is removed from the callback map.
@@ -690,17 +1316,42 @@ package com.marpies.ane.firebase.auth {
          * @return Callback registered for the ID found in the JSON, or <code>null</code> if no callback exists.
          */
         private static function getCallbackFromJSON( json:Object ):Function {
-            var callbackId:int = -1;
-            if( "callbackId" in json ) {
-                callbackId = json.callbackId;
-            } else if( "listenerID" in json ) {
-                callbackId = json.listenerID;
-            }
+            var callbackId:int = getCallbackIdFromJSON( json );
             var callback:Function = getCallback( callbackId );
             unregisterCallback( callbackId );
             return callback;
         }
 
+        /**
+         * Retrieves callback ID from JSON response.
+         *
+         * @param json JSON response that is expected to contain callback ID.
+         * @return Callback ID found in the JSON, or <code>-1</code> if there is none.
+         */
+        private static function getCallbackIdFromJSON( json:Object ):int {
+            if( "callbackId" in json ) {
+                return json.callbackId;
+            }
+            if( "listenerID" in json ) {
+                return json.listenerID;
+            }
+            return -1;
+        }
+
+        /**
+         * Retrieves binary event payload stored in the native slot with given ID.
+         *
+         * @param slot ID of the slot, as received in the status event.
+         * @return <code>ByteArray</code> with the payload, or <code>null</code> if there is no such payload.
+         */
+        private static function getEventPayload( slot:String ):ByteArray {
+            var result:ByteArray = null;
+            CONFIG::ane {
+                result = mContext.call( "getEventPayload", int( slot ) ) as ByteArray;
+            }
+            return result;
+        }
+
         private static function log( message:String ):void {
             if( mLogEnabled ) {
                 trace( TAG, message );
@@ -1,5 +1,7 @@
 package com.marpies.ane.firebase.auth {
 
+    import flash.utils.ByteArray;
+
     /**
      * Represents a collection of standard profile information for a user.
      * Can be used to expose profile information returned by an identity provider,
@@ -7,6 +9,13 @@ package com.marpies.ane.firebase.auth {
      */
     public class FirebaseAuthProviderData {
 
+        /* Binary payload flags */
+        private static const PROVIDER_ID:int = 1;
+        private static const PROVIDER_UID:int = 1 << 1;
+        private static const PROVIDER_DISPLAY_NAME:int = 1 << 2;
+        private static const PROVIDER_EMAIL:int = 1 << 3;
+        private static const PROVIDER_PHOTO_URL:int = 1 << 4;
+
         private var mProviderId:String;
         private var mUserId:String;
         private var mUserDisplayName:String;
@@ -36,6 +45,20 @@ package com.marpies.ane.firebase.auth {
             return data;
         }
 
+        /**
+         * @private
+         */
+        internal static function fromByteArray( bytes:ByteArray ):FirebaseAuthProviderData {
+            var data:FirebaseAuthProviderData = new FirebaseAuthProviderData();
+            var flags:int = bytes.readUnsignedByte();
+            data.mProviderId = ((flags & PROVIDER_ID) != 0) ? FirebaseUser.readString( bytes ) : null;
+            data.mUserId = ((flags & PROVIDER_UID) != 0) ? FirebaseUser.readString( bytes ) : null;
+            data.mUserDisplayName = ((flags & PROVIDER_DISPLAY_NAME) != 0) ? FirebaseUser.readString( bytes ) : null;
+            data.mUserEmail = ((flags & PROVIDER_EMAIL) != 0) ? FirebaseUser.readString( bytes ) : null;
+            data.mUserPhotoURL = ((flags & PROVIDER_PHOTO_URL) != 0) ? FirebaseUser.readString( bytes ) : null;
+            return data;
+        }
+
         /**
          *
          *
@@ -16,11 +16,19 @@
 
 package com.marpies.ane.firebase.auth {
 
+    import flash.utils.ByteArray;
+
     /**
      * Represents a user's profile information in your Firebase project's user database.
      */
     public class FirebaseUser {
 
+        /* Binary payload flags */
+        private static const USER_ANONYMOUS:int = 1;
+        private static const USER_DISPLAY_NAME:int = 1 << 1;
+        private static const USER_EMAIL:int = 1 << 2;
+        private static const USER_PHOTO_URL:int = 1 << 3;
+
         private var mId:String;
         private var mIsAnonymous:Boolean;
         private var mDisplayName:String;
@@ -70,6 +78,37 @@ package com.marpies.ane.firebase.auth {
             return user;
         }
 
+        /**
+         * @private
+         */
+        internal static function fromByteArray( bytes:ByteArray ):FirebaseUser {
+            var user:FirebaseUser = new FirebaseUser();
+            var flags:int = bytes.readUnsignedByte();
+            user.mId = readString( bytes );
+            user.mIsAnonymous = (flags & USER_ANONYMOUS) != 0;
+            user.mDisplayName = ((flags & USER_DISPLAY_NAME) != 0) ? readString( bytes ) : null;
+            user.mEmail = ((flags & USER_EMAIL) != 0) ? readString( bytes ) : null;
+            user.mPhotoURL = ((flags & USER_PHOTO_URL) != 0) ? readString( bytes ) : null;
+            var length:int = bytes.readInt();
+            if( length > 0 ) {
+                var providerDataResult:Vector.<FirebaseAuthProviderData> = new <FirebaseAuthProviderData>[];
+                for( var i:int = 0; i < length; ++i ) {
+                    providerDataResult[i] = FirebaseAuthProviderData.fromByteArray( bytes );
+                }
+                user.mProviderData = providerDataResult;
+            }
+            return user;
+        }
+
+        /**
+         * @private
+         * Reads string written as unsigned int length followed by UTF-8 bytes.
+         */
+        internal static function readString( bytes:ByteArray ):String {
+            var length:uint = bytes.readUnsignedInt();
+            return bytes.readUTFBytes( length );
+        }
+
         /**
          *
          *
@@ -283,6 +322,69 @@ package com.marpies.ane.firebase.auth {
             FirebaseAuth.deleteUser( callback );
         }
 
+        /**
+         * Updates several user properties with a single call. The changes are applied in the order email,
+         * password, profile (display name and photo URL), and the first failure stops the remaining ones.
+         * Parameters set to <code>null</code> are not changed. Android only.
+         *
+         * <p>The same requirements as with <code>updateEmail()</code> and <code>updatePassword()</code> apply.</p>
+         *
+         * @param email The new user email address, or <code>null</code>.
+         * @param password The new user password, or <code>null</code>.
+         * @param displayName The new user display name, or <code>null</code>.
+         * @param photoURL The new user photo URL, or <code>null</code>.
+         * @param callback Function with the following signature:
+         * <listing version="3.0">
+         * function callback( results:Object, errorMessage:String ):void {
+         *      // results.email, results.password and results.profile (if requested) have
+         *      // a status property with value "success", "failed" or "skipped"
+         *      if( errorMessage == null ) {
+         *          // all changes have been applied
+         *      } else {
+         *          // there was an error applying one of the changes
+         *      }
+         * };
+         * </listing>
+         *
+         * @see #reauthenticate()
+         */
+        public function updateUserBatch( email:String, password:String, displayName:String, photoURL:String, callback:Function ):void {
+            if( !FirebaseAuth.isSupported ) return;
+            FirebaseAuth.validateExtensionContext();
+
+            if( callback === null ) throw new ArgumentError( "Parameter callback cannot be null." );
+            if( email === null && password === null && displayName === null && photoURL === null )
+                throw new ArgumentError( "At least one of the properties must be set." );
+
+            FirebaseAuth.updateUserBatch( email, password, displayName, photoURL, callback );
+        }
+
+        /**
+         * Retrieves the Firebase ID token of the user, which can be used to authenticate the user with
+         * your own backend. The token is cached natively and refreshed in the background shortly before
+         * it expires, so repeated calls usually do not require a network request. Android only.
+         *
+         * @param forceRefresh <code>true</code> to fetch a new token regardless of the cached one's expiry.
+         * @param callback Function with the following signature:
+         * <listing version="3.0">
+         * function callback( token:String, errorMessage:String ):void {
+         *      if( errorMessage == null ) {
+         *          // token has been retrieved
+         *      } else {
+         *          // there was an error retrieving the token
+         *      }
+         * };
+         * </listing>
+         */
+        public function getIdToken( forceRefresh:Boolean, callback:Function ):void {
+            if( !FirebaseAuth.isSupported ) return;
+            FirebaseAuth.validateExtensionContext();
+
+            if( callback === null ) throw new ArgumentError( "Parameter callback cannot be null." );
+
+            FirebaseAuth.getIdToken( forceRefresh, callback );
+        }
+
         /**
          *
          *
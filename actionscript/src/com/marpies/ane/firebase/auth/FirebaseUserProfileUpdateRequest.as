@@ -46,6 +46,8 @@ package com.marpies.ane.firebase.auth {
          *      }
          * };
          * </listing>
+         *
+         * @see com.marpies.ane.firebase.auth.FirebaseAuth#setProfileJournalEnabled()
          */
         public function send( callback:Function ):void {
             if( !FirebaseAuth.isSupported ) return;
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.marpies.ane.firebase.auth.benchmark;
+
+import com.adobe.fre.FREFunction;
+import com.adobe.fre.FREObject;
+import com.adobe.fre.FREWrongThreadException;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.AuthCredential;
+import com.marpies.ane.firebase.auth.FirebaseAuthExtensionContext;
+import com.marpies.ane.firebase.auth.backend.AuthUser;
+import com.marpies.ane.firebase.auth.backend.AuthUserInfo;
+import com.marpies.ane.firebase.auth.backend.FakeAuthBackend;
+import com.marpies.ane.firebase.auth.data.FirebaseAuthEvent;
+import com.marpies.ane.firebase.auth.functions.*;
+import com.marpies.ane.firebase.auth.utils.AIR;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
+import com.marpies.ane.firebase.auth.utils.AuthExecutors;
+import com.marpies.ane.firebase.auth.utils.CredentialProviders;
+import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
+import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.LatencyHistogram;
+import com.marpies.ane.firebase.auth.utils.LogBuffer;
+import com.marpies.ane.firebase.auth.utils.OperationScheduler;
+import com.marpies.ane.firebase.auth.utils.PendingOperations;
+import com.marpies.ane.firebase.auth.utils.RetryEngine;
+import com.marpies.ane.firebase.auth.utils.RetryPolicy;
+import com.marpies.ane.firebase.auth.utils.TokenBucket;
+import com.marpies.ane.firebase.auth.utils.UserBinaryWriter;
+import com.marpies.ane.firebase.auth.utils.UserJSONWriter;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Microbenchmarks of the extension runnable on a desktop JVM. Android, AIR, Play services, Firebase
+ * and <code>org.json</code> classes are replaced by the test stubs in <code>benchmark/stubs</code>:
+ * tasks, handlers and loopers work on plain executors, FRE objects hold plain values and Firebase
+ * itself is not available, so operations run against <code>FakeAuthBackend</code>.
+ *
+ * <pre>
+ * cd android
+ * javac -sourcepath src:benchmark/stubs -d build/benchmark benchmark/src/com/marpies/ane/firebase/auth/benchmark/Microbenchmarks.java
+ * java -cp build/benchmark com.marpies.ane.firebase.auth.benchmark.Microbenchmarks
+ * </pre>
+ *
+ * Every case is warmed up, then timed over several rounds. The fastest round is reported in nanoseconds
+ * per operation along with bytes allocated per operation by all threads, if the JVM can measure allocations.
+ * Desktop numbers do not translate to ART directly, they are meant for comparing changes.
+ */
+public class Microbenchmarks {
+
+	private static final int WARM_UP_ROUNDS = 5;
+	private static final int ROUNDS = 10;
+	private static final int ITERATIONS = 100000;
+
+	private static abstract class Case {
+		final String mName;
+		final int mIterations;
+
+		Case( String name ) {
+			this( name, ITERATIONS );
+		}
+
+		Case( String name, int iterations ) {
+			mName = name;
+			mIterations = iterations;
+		}
+
+		/**
+		 * Runs the measured operation the given number of times, returns a value depending on the results.
+		 */
+		abstract long run( int iterations );
+	}
+
+	/**
+	 * Context that receives events dispatched to AS and releases a permit for each operation response.
+	 */
+	private static class BenchmarkContext extends FirebaseAuthExtensionContext {
+		@Override
+		public void dispatchStatusEventAsync( String code, String level ) {
+			if( FirebaseAuthEvent.SIGN_IN_SUCCESS.equals( code ) || FirebaseAuthEvent.SIGN_IN_ERROR.equals( code ) ) {
+				mEvents.release();
+			}
+		}
+	}
+
+	/* Consumes results so that the measured code is not optimized away */
+	private static volatile long mSink;
+
+	private static final Semaphore mEvents = new Semaphore( 0 );
+	private static int mNextCallbackId;
+
+	public static void main( String[] args ) {
+		List<Case> cases = new ArrayList<Case>();
+		for( final int providers : new int[] { 1, 3, 10 } ) {
+			final AuthUser user = createUser( providers );
+			cases.add( new Case( "JSONObject baseline, " + providers + " provider(s)" ) {
+				@Override
+				long run( int iterations ) {
+					long result = 0;
+					for( int i = 0; i < iterations; i++ ) {
+						result += getBaselineUserJSON( user ).length();
+					}
+					return result;
+				}
+			} );
+			cases.add( new Case( "UserJSONWriter.getUserJSON, " + providers + " provider(s)" ) {
+				@Override
+				long run( int iterations ) {
+					long result = 0;
+					for( int i = 0; i < iterations; i++ ) {
+						result += UserJSONWriter.getUserJSON( user ).length();
+					}
+					return result;
+				}
+			} );
+			cases.add( new Case( "UserBinaryWriter.getUserBytes, " + providers + " provider(s)" ) {
+				@Override
+				long run( int iterations ) {
+					long result = 0;
+					for( int i = 0; i < iterations; i++ ) {
+						result += UserBinaryWriter.getUserBytes( user ).length;
+					}
+					return result;
+				}
+			} );
+		}
+		/* Arguments of createUser, rotated so that the reads cannot be hoisted out of the loop.
+		 * The stub FRE objects cost nothing to read, so only the decoding itself is measured. */
+		final FREObject[][] validArgs = new FREObject[16][];
+		final FREObject[][] invalidArgs = new FREObject[16][];
+		for( int i = 0; i < validArgs.length; i++ ) {
+			validArgs[i] = createArguments( "user" + i + "@example.com", "password" + i, i );
+			invalidArgs[i] = createArguments( "user" + i + "@example.com", i, i );
+		}
+		final ArgumentSchema schema = new ArgumentSchema( ArgumentSchema.STRING, ArgumentSchema.STRING, ArgumentSchema.CALLBACK_ID );
+		for( final boolean valid : new boolean[] { true, false } ) {
+			final FREObject[][] argsSet = valid ? validArgs : invalidArgs;
+			final String suffix = valid ? "createUser arguments" : "invalid argument";
+			cases.add( new Case( "FREObjectUtils baseline, " + suffix ) {
+				@Override
+				long run( int iterations ) {
+					long result = 0;
+					for( int i = 0; i < iterations; i++ ) {
+						FREObject[] args = argsSet[i & 15];
+						String email = FREObjectUtils.getString( args[0] );
+						String password = FREObjectUtils.getString( args[1] );
+						int callbackId = FREObjectUtils.getInt( args[2], -1 );
+						result += email.length() + ((password != null) ? password.length() : 0) + callbackId;
+					}
+					return result;
+				}
+			} );
+			cases.add( new Case( "ArgumentSchema.decode, " + suffix ) {
+				@Override
+				long run( int iterations ) {
+					long result = 0;
+					for( int i = 0; i < iterations; i++ ) {
+						Arguments args = schema.decode( argsSet[i & 15] );
+						if( args != null ) {
+							result += args.getString( 0 ).length() + args.getString( 1 ).length() + args.getCallbackId();
+						}
+					}
+					return result;
+				}
+			} );
+		}
+		cases.add( new Case( "Function table per context baseline" ) {
+			@Override
+			long run( int iterations ) {
+				long result = 0;
+				for( int i = 0; i < iterations; i++ ) {
+					result += createPerContextFunctions().size();
+				}
+				return result;
+			}
+		} );
+		cases.add( new Case( "FirebaseAuthExtensionContext.getFunctions" ) {
+			@Override
+			long run( int iterations ) {
+				long result = 0;
+				for( int i = 0; i < iterations; i++ ) {
+					result += new FirebaseAuthExtensionContext().getFunctions().size();
+				}
+				return result;
+			}
+		} );
+		final LogBuffer logBuffer = new LogBuffer( 256 );
+		final String operation = "signInWithCredential";
+		final Long delay = 250L;
+		cases.add( new Case( "LogBuffer.add, two arguments" ) {
+			@Override
+			long run( int iterations ) {
+				for( int i = 0; i < iterations; i++ ) {
+					logBuffer.add( i, "Retrying {} in {} ms", operation, delay, null );
+				}
+				return logBuffer.hashCode();
+			}
+		} );
+		/* Dumping is far slower than adding, keep the round short */
+		cases.add( new Case( "LogBuffer.getJSON, 256 entries", ITERATIONS / 100 ) {
+			@Override
+			long run( int iterations ) {
+				long result = 0;
+				for( int i = 0; i < iterations; i++ ) {
+					result += logBuffer.getJSON().length();
+				}
+				return result;
+			}
+		} );
+		final LatencyHistogram histogram = new LatencyHistogram();
+		cases.add( new Case( "LatencyHistogram.record" ) {
+			@Override
+			long run( int iterations ) {
+				for( int i = 0; i < iterations; i++ ) {
+					histogram.record( (i * 7919L) & 0xFFFFF );
+				}
+				return histogram.getCount();
+			}
+		} );
+		cases.add( new Case( "LatencyHistogram.getPercentile" ) {
+			@Override
+			long run( int iterations ) {
+				long result = 0;
+				for( int i = 0; i < iterations; i++ ) {
+					result += histogram.getPercentile( 0.99 );
+				}
+				return result;
+			}
+		} );
+		final TokenBucket openBucket = new TokenBucket( Integer.MAX_VALUE, Integer.MAX_VALUE, false, 0 );
+		cases.add( new Case( "TokenBucket.acquire, token available" ) {
+			@Override
+			long run( int iterations ) {
+				long result = 0;
+				for( int i = 0; i < iterations; i++ ) {
+					result += openBucket.acquire();
+				}
+				return result;
+			}
+		} );
+		final TokenBucket emptyBucket = new TokenBucket( 1, 0, false, 0 );
+		cases.add( new Case( "TokenBucket.acquire, rejected" ) {
+			@Override
+			long run( int iterations ) {
+				long result = 0;
+				for( int i = 0; i < iterations; i++ ) {
+					result += emptyBucket.acquire();
+				}
+				return result;
+			}
+		} );
+		/* Completion path of an operation whose Task has already completed, run on the calling thread.
+		 * Part of the allocations come from the stub Task, Play services allocate per listener as well. */
+		final RetryEngine engine = new RetryEngine( null );
+		final Task<AuthUser> completedTask = Tasks.forResult( createUser( 1 ) );
+		final RetryEngine.TaskFactory<AuthUser> factory = new RetryEngine.TaskFactory<AuthUser>() {
+			@Override
+			public Task<AuthUser> create() {
+				return completedTask;
+			}
+		};
+		final RetryEngine.CallbackListener<AuthUser> listener = new RetryEngine.CallbackListener<AuthUser>() {
+			@Override
+			public void onComplete( Task<AuthUser> task, int callbackId ) {
+				if( PendingOperations.complete( callbackId ) ) {
+					mSink += task.getResult().getUid().length();
+				}
+			}
+		};
+		PendingOperations.setTimeout( "benchmarkOperation", 0 );
+		cases.add( new Case( "RetryEngine.execute, completed Task" ) {
+			@Override
+			long run( int iterations ) {
+				AuthExecutors.setCompletionExecutor( new Executor() {
+					@Override
+					public void execute( Runnable command ) {
+						command.run();
+					}
+				} );
+				for( int i = 0; i < iterations; i++ ) {
+					int callbackId = mNextCallbackId++;
+					PendingOperations.begin( callbackId, "benchmarkOperation" );
+					engine.execute( "benchmarkOperation", RetryPolicy.NONE, OperationScheduler.INTERACTIVE, factory, listener, callbackId );
+				}
+				AuthExecutors.setCompletionExecutor( null );
+				return mNextCallbackId;
+			}
+		} );
+		final FirebaseAuthHelper helper = startHelper();
+		final AuthCredential credential = CredentialProviders.get( CredentialProviders.GITHUB ).getCredential( "benchmark-token", null );
+		/* Each operation hops between the caller, scheduler, backend and completion threads */
+		cases.add( new Case( "signInWithCredential, FakeAuthBackend round trip", ITERATIONS / 100 ) {
+			@Override
+			long run( int iterations ) {
+				for( int i = 0; i < iterations; i++ ) {
+					int callbackId = mNextCallbackId++;
+					PendingOperations.begin( callbackId, "signInWithCredential" );
+					helper.signInWithCredential( credential, callbackId );
+					mEvents.acquireUninterruptibly();
+				}
+				return mNextCallbackId;
+			}
+		} );
+
+		System.out.println( String.format( "%-50s %12s %12s", "case", "ns/op", "bytes/op" ) );
+		for( Case benchmark : cases ) {
+			measure( benchmark );
+		}
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static void measure( Case benchmark ) {
+		for( int i = 0; i < WARM_UP_ROUNDS; i++ ) {
+			mSink += benchmark.run( benchmark.mIterations );
+		}
+		long bestNanos = Long.MAX_VALUE;
+		long bestBytes = Long.MAX_VALUE;
+		for( int i = 0; i < ROUNDS; i++ ) {
+			long bytesBefore = getAllocatedBytes();
+			long start = System.nanoTime();
+			mSink += benchmark.run( benchmark.mIterations );
+			long nanos = System.nanoTime() - start;
+			long bytes = getAllocatedBytes() - bytesBefore;
+			bestNanos = Math.min( bestNanos, nanos );
+			bestBytes = Math.min( bestBytes, bytes );
+		}
+		String allocated = (bestBytes >= 0) ? String.valueOf( bestBytes / benchmark.mIterations ) : "n/a";
+		System.out.println( String.format( "%-50s %12.1f %12s", benchmark.mName, bestNanos / (double) benchmark.mIterations, allocated ) );
+	}
+
+	/**
+	 * Returns number of bytes allocated by all live threads, or a negative value if it cannot be measured.
+	 * Operations of the helper complete on the extension's worker threads, which live as long as the JVM.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		try {
+			/* HotSpot extension, looked up reflectively so that the harness compiles on any JDK */
+			Method method = Class.forName( "com.sun.management.ThreadMXBean" ).getMethod( "getThreadAllocatedBytes", long[].class );
+			long result = 0;
+			for( long bytes : (long[]) method.invoke( bean, (Object) bean.getAllThreadIds() ) ) {
+				result += Math.max( 0, bytes );
+			}
+			return result;
+		} catch( Exception e ) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns helper of the default app initialized with <code>FakeAuthBackend</code>, its events go to <code>BenchmarkContext</code>.
+	 */
+	private static FirebaseAuthHelper startHelper() {
+		FirebaseAuthHelper helper = FirebaseAuthHelper.getInstance();
+		helper.setPersistenceEnabled( false );
+		/* The fake backend has no quotas and the harness measures the extension, not the rate limits */
+		helper.setRetryEngine( new RetryEngine( null ) );
+		helper.setBackend( new FakeAuthBackend( 0 ) );
+		AIR.setContextOverride( new BenchmarkContext() );
+		helper.getInitializer().start();
+		while( !helper.getInitializer().isReady() ) {
+			Thread.yield();
+		}
+		return helper;
+	}
+
+	/**
+	 * Serializes the user with <code>JSONObject</code> the way the helper did before <code>UserJSONWriter</code>,
+	 * including the provider data nested as strings. On a desktop JVM this runs on the stub <code>org.json</code>,
+	 * which like the Android one builds a <code>LinkedHashMap</code> and writes it with a <code>StringBuilder</code>.
+	 */
+	private static String getBaselineUserJSON( AuthUser user ) {
+		JSONObject json = new JSONObject();
+		try {
+			json.put( "uid", user.getUid() );
+			json.put( "isAnonymous", user.isAnonymous() );
+			if( user.getDisplayName() != null ) {
+				json.put( "displayName", user.getDisplayName() );
+			}
+			if( user.getEmail() != null ) {
+				json.put( "email", user.getEmail() );
+			}
+			if( user.getPhotoURL() != null ) {
+				json.put( "photoURL", user.getPhotoURL() );
+			}
+			JSONArray providerData = new JSONArray();
+			for( AuthUserInfo userInfo : user.getProviderData() ) {
+				String userInfoJSON = getBaselineUserInfoJSON( userInfo );
+				if( userInfoJSON != null ) {
+					providerData.put( userInfoJSON );
+				}
+			}
+			if( providerData.length() > 0 ) {
+				json.put( "providerData", providerData );
+			}
+		} catch( JSONException e ) {
+			e.printStackTrace();
+		}
+		return json.toString();
+	}
+
+	private static String getBaselineUserInfoJSON( AuthUserInfo userInfo ) {
+		JSONObject json = new JSONObject();
+		try {
+			if( userInfo.getProviderId() != null ) {
+				json.put( "providerId", userInfo.getProviderId() );
+			}
+			if( userInfo.getUid() != null ) {
+				json.put( "uid", userInfo.getUid() );
+			}
+			if( userInfo.getDisplayName() != null ) {
+				json.put( "displayName", userInfo.getDisplayName() );
+			}
+			if( userInfo.getEmail() != null ) {
+				json.put( "email", userInfo.getEmail() );
+			}
+			if( userInfo.getPhotoURL() != null ) {
+				json.put( "photoURL", userInfo.getPhotoURL() );
+			}
+			return json.toString();
+		} catch( JSONException e ) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Builds table of new function instances the way each extension context did before <code>FunctionRegistry</code>.
+	 */
+	private static Map<String, FREFunction> createPerContextFunctions() {
+		Map<String, FREFunction> functions = new HashMap<String, FREFunction>();
+
+		functions.put( "init", new InitFunction() );
+		functions.put( "createUser", new CreateUserFunction() );
+		functions.put( "signInWithFacebookAccount", new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.FACEBOOK ) );
+		functions.put( "signInWithGoogleAccount", new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.GOOGLE ) );
+		functions.put( "signInWithEmailAndPassword", new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.EMAIL ) );
+		functions.put( "signInWithTwitterAccount", new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.TWITTER ) );
+		functions.put( "signInWithGithubAccount", new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.GITHUB ) );
+		functions.put( "signInAnonymously", new SignInAnonymouslyFunction() );
+		functions.put( "linkWithFacebookAccount", new CredentialFunction( CredentialFunction.LINK, CredentialProviders.FACEBOOK ) );
+		functions.put( "linkWithGoogleAccount", new CredentialFunction( CredentialFunction.LINK, CredentialProviders.GOOGLE ) );
+		functions.put( "linkWithEmailAccount", new CredentialFunction( CredentialFunction.LINK, CredentialProviders.EMAIL ) );
+		functions.put( "linkWithTwitterAccount", new CredentialFunction( CredentialFunction.LINK, CredentialProviders.TWITTER ) );
+		functions.put( "linkWithGithubAccount", new CredentialFunction( CredentialFunction.LINK, CredentialProviders.GITHUB ) );
+		functions.put( "reauthWithFacebookAccount", new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.FACEBOOK ) );
+		functions.put( "reauthWithGoogleAccount", new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.GOOGLE ) );
+		functions.put( "reauthWithEmailAccount", new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.EMAIL ) );
+		functions.put( "reauthWithTwitterAccount", new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.TWITTER ) );
+		functions.put( "reauthWithGithubAccount", new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.GITHUB ) );
+		functions.put( "unlinkFromProvider", new UnlinkFromProviderFunction() );
+		functions.put( "updateEmail", new UpdateEmailFunction() );
+		functions.put( "updatePassword", new UpdatePasswordFunction() );
+		functions.put( "deleteUser", new DeleteUserFunction() );
+		functions.put( "changeUserProfile", new UpdateUserProfileFunction() );
+		functions.put( "signOut", new SignOutFunction() );
+		functions.put( "getEventPayload", new GetEventPayloadFunction() );
+		functions.put( "setAuthStateCoalescingWindow", new SetAuthStateCoalescingWindowFunction() );
+		functions.put( "getAuthStateStats", new GetAuthStateStatsFunction() );
+		functions.put( "setEventBatching", new SetEventBatchingFunction() );
+		functions.put( "flushEvents", new FlushEventsFunction() );
+		functions.put( "getFunctionStats", new GetFunctionStatsFunction() );
+		functions.put( "setCompletionOnMainThread", new SetCompletionOnMainThreadFunction() );
+		functions.put( "getMetrics", new GetMetricsFunction() );
+		functions.put( "getIdToken", new GetIdTokenFunction() );
+		functions.put( "updateUserBatch", new UpdateUserBatchFunction() );
+		functions.put( "cancelOperation", new CancelOperationFunction() );
+		functions.put( "setOperationTimeout", new SetOperationTimeoutFunction() );
+		functions.put( "dumpLogs", new DumpLogsFunction() );
+		functions.put( "setLogBufferEnabled", new SetLogBufferEnabledFunction() );
+		functions.put( "signInWithProvider", new CredentialFunction( CredentialFunction.SIGN_IN ) );
+		functions.put( "linkWithProvider", new CredentialFunction( CredentialFunction.LINK ) );
+		functions.put( "reauthWithProvider", new CredentialFunction( CredentialFunction.REAUTHENTICATE ) );
+		functions.put( "linkWithEmailAndPassword", new CredentialFunction( CredentialFunction.LINK, CredentialProviders.EMAIL ) );
+		functions.put( "reauthWithEmailAndPassword", new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.EMAIL ) );
+		functions.put( "setMaxConcurrentOperations", new SetMaxConcurrentOperationsFunction() );
+		functions.put( "setRateLimit", new SetRateLimitFunction() );
+		functions.put( "setProfileJournalEnabled", new SetProfileJournalEnabledFunction() );
+
+		return functions;
+	}
+
+	/**
+	 * Wraps the given strings and integers in FRE objects.
+	 */
+	private static FREObject[] createArguments( Object... values ) {
+		FREObject[] result = new FREObject[values.length];
+		try {
+			for( int i = 0; i < values.length; i++ ) {
+				result[i] = (values[i] instanceof String) ? FREObject.newObject( (String) values[i] ) : FREObject.newObject( (Integer) values[i] );
+			}
+		} catch( FREWrongThreadException e ) {
+			e.printStackTrace();
+		}
+		return result;
+	}
+
+	private static AuthUser createUser( int providerCount ) {
+		List<AuthUserInfo> providers = new ArrayList<AuthUserInfo>( providerCount );
+		for( int i = 0; i < providerCount; i++ ) {
+			providers.add( new AuthUserInfo( "provider" + i + ".com", "uid-" + i + "-6f1c2e9a", "Jane \"JD\" Doe", "jane.doe+" + i + "@example.com", "https://example.com/photos/" + i + ".jpg" ) );
+		}
+		return new AuthUser( "firebase", "Qx8aN2mZk4PbR7tY1wE3uI5oL9", false, "Jane \"JD\" Doe", "jane.doe@example.com", "https://example.com/photo.jpg", providers );
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+import android.content.pm.ApplicationInfo;
+import android.net.ConnectivityManager;
+
+import java.io.File;
+
+/**
+ * Desktop stand-in for the Android <code>Context</code>. Files go to the temporary directory
+ * and broadcasts are never delivered.
+ */
+public class Context {
+
+	public static final String CONNECTIVITY_SERVICE = "connectivity";
+
+	public Context getApplicationContext() {
+		return this;
+	}
+
+	public File getFilesDir() {
+		return new File( System.getProperty( "java.io.tmpdir" ) );
+	}
+
+	public Object getSystemService( String name ) {
+		return CONNECTIVITY_SERVICE.equals( name ) ? new ConnectivityManager() : null;
+	}
+
+	public Intent registerReceiver( BroadcastReceiver receiver, IntentFilter filter ) {
+		return null;
+	}
+
+	public void unregisterReceiver( BroadcastReceiver receiver ) {
+	}
+
+	public ApplicationInfo getApplicationInfo() {
+		return new ApplicationInfo();
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Desktop stand-in for the Android <code>Handler</code>. Callbacks posted to the same
+ * looper run in the order of their due time, <code>removeCallbacks()</code> cancels all
+ * pending posts of the given callback made through this handler.
+ */
+public class Handler {
+
+	private class Message implements Runnable {
+		final Runnable mCallback;
+		Future<?> mFuture;
+
+		Message( Runnable callback ) {
+			mCallback = callback;
+		}
+
+		@Override
+		public void run() {
+			synchronized( mMessages ) {
+				List<Message> messages = mMessages.get( mCallback );
+				if( messages == null || !messages.remove( this ) ) return;
+				if( messages.isEmpty() ) {
+					mMessages.remove( mCallback );
+				}
+			}
+			mCallback.run();
+		}
+	}
+
+	private final Looper mLooper;
+	private final Map<Runnable, List<Message>> mMessages = new IdentityHashMap<Runnable, List<Message>>();
+
+	public Handler( Looper looper ) {
+		mLooper = looper;
+	}
+
+	public boolean post( Runnable runnable ) {
+		return postDelayed( runnable, 0 );
+	}
+
+	public boolean postDelayed( Runnable runnable, long delayMillis ) {
+		Message message = new Message( runnable );
+		synchronized( mMessages ) {
+			List<Message> messages = mMessages.get( runnable );
+			if( messages == null ) {
+				messages = new ArrayList<Message>( 1 );
+				mMessages.put( runnable, messages );
+			}
+			messages.add( message );
+			try {
+				message.mFuture = mLooper.getExecutor().schedule( message, Math.max( 0, delayMillis ), TimeUnit.MILLISECONDS );
+			} catch( RejectedExecutionException e ) {
+				messages.remove( message );
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void removeCallbacks( Runnable runnable ) {
+		List<Message> messages;
+		synchronized( mMessages ) {
+			messages = mMessages.remove( runnable );
+		}
+		if( messages == null ) return;
+		for( Message message : messages ) {
+			message.mFuture.cancel( false );
+		}
+	}
+
+	public Looper getLooper() {
+		return mLooper;
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Desktop stand-in for the Android <code>Looper</code>, messages run on a single daemon thread of an executor.
+ */
+public class Looper {
+
+	private static final ThreadLocal<Looper> mLoopers = new ThreadLocal<Looper>();
+	private static final Looper mMainLooper = new Looper( "main" );
+
+	private final ScheduledThreadPoolExecutor mExecutor;
+	private volatile Thread mThread;
+
+	Looper( final String name ) {
+		mExecutor = new ScheduledThreadPoolExecutor( 1, new ThreadFactory() {
+			@Override
+			public Thread newThread( final Runnable runnable ) {
+				Thread thread = new Thread( new Runnable() {
+					@Override
+					public void run() {
+						mLoopers.set( Looper.this );
+						runnable.run();
+					}
+				}, name );
+				thread.setDaemon( true );
+				mThread = thread;
+				return thread;
+			}
+		} );
+		mExecutor.setRemoveOnCancelPolicy( true );
+		mExecutor.prestartCoreThread();
+	}
+
+	public static Looper getMainLooper() {
+		return mMainLooper;
+	}
+
+	public static Looper myLooper() {
+		return mLoopers.get();
+	}
+
+	public Thread getThread() {
+		return mThread;
+	}
+
+	public void quit() {
+		mExecutor.shutdown();
+	}
+
+	ScheduledThreadPoolExecutor getExecutor() {
+		return mExecutor;
+	}
+
+}
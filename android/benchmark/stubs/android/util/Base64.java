@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.util;
+
+/**
+ * Desktop stand-in for the Android <code>Base64</code>, backed by <code>java.util.Base64</code>.
+ */
+public final class Base64 {
+
+	public static final int DEFAULT = 0;
+	public static final int NO_PADDING = 1;
+	public static final int NO_WRAP = 2;
+	public static final int URL_SAFE = 8;
+
+	private Base64() {
+	}
+
+	public static byte[] decode( String input, int flags ) {
+		java.util.Base64.Decoder decoder = ((flags & URL_SAFE) != 0) ? java.util.Base64.getUrlDecoder() : java.util.Base64.getMimeDecoder();
+		return decoder.decode( input );
+	}
+
+	public static String encodeToString( byte[] input, int flags ) {
+		java.util.Base64.Encoder encoder = ((flags & URL_SAFE) != 0) ? java.util.Base64.getUrlEncoder() : java.util.Base64.getEncoder();
+		if( (flags & NO_PADDING) != 0 ) {
+			encoder = encoder.withoutPadding();
+		}
+		return encoder.encodeToString( input );
+	}
+
+}
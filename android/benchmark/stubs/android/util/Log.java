@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.util;
+
+/**
+ * Desktop stand-in for the Android <code>Log</code>, messages are written to the standard error stream.
+ */
+public final class Log {
+
+	private Log() {
+	}
+
+	public static int i( String tag, String message ) {
+		return println( "I", tag, message );
+	}
+
+	public static int w( String tag, String message ) {
+		return println( "W", tag, message );
+	}
+
+	public static int e( String tag, String message ) {
+		return println( "E", tag, message );
+	}
+
+	private static int println( String priority, String tag, String message ) {
+		String line = priority + "/" + tag + ": " + message;
+		System.err.println( line );
+		return line.length();
+	}
+
+}
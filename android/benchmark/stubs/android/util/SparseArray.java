@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.util;
+
+import java.util.Arrays;
+
+/**
+ * Desktop stand-in for the Android <code>SparseArray</code>, int keys are kept sorted without boxing them.
+ */
+public class SparseArray<E> {
+
+	private int[] mKeys;
+	private Object[] mValues;
+	private int mSize;
+
+	public SparseArray() {
+		this( 10 );
+	}
+
+	public SparseArray( int initialCapacity ) {
+		mKeys = new int[Math.max( 1, initialCapacity )];
+		mValues = new Object[mKeys.length];
+	}
+
+	@SuppressWarnings( "unchecked" )
+	public E get( int key ) {
+		int index = Arrays.binarySearch( mKeys, 0, mSize, key );
+		return (index >= 0) ? (E) mValues[index] : null;
+	}
+
+	public void put( int key, E value ) {
+		int index = Arrays.binarySearch( mKeys, 0, mSize, key );
+		if( index >= 0 ) {
+			mValues[index] = value;
+			return;
+		}
+		index = ~index;
+		if( mSize == mKeys.length ) {
+			mKeys = Arrays.copyOf( mKeys, mSize * 2 );
+			mValues = Arrays.copyOf( mValues, mSize * 2 );
+		}
+		System.arraycopy( mKeys, index, mKeys, index + 1, mSize - index );
+		System.arraycopy( mValues, index, mValues, index + 1, mSize - index );
+		mKeys[index] = key;
+		mValues[index] = value;
+		mSize++;
+	}
+
+	public void remove( int key ) {
+		int index = Arrays.binarySearch( mKeys, 0, mSize, key );
+		if( index < 0 ) return;
+		System.arraycopy( mKeys, index + 1, mKeys, index, mSize - index - 1 );
+		System.arraycopy( mValues, index + 1, mValues, index, mSize - index - 1 );
+		mSize--;
+		mValues[mSize] = null;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.adobe.fre;
+
+public class FREArray extends FREObject {
+
+	private FREObject[] mElements;
+
+	private FREArray( int length ) {
+		super( Type.ARRAY, null );
+		mElements = new FREObject[length];
+	}
+
+	public static FREArray newArray( String classname, int numElements, boolean fixed ) throws FREASErrorException, FREWrongThreadException, FRENoSuchNameException, FREInvalidObjectException, FRETypeMismatchException {
+		return new FREArray( numElements );
+	}
+
+	public long getLength() throws FREInvalidObjectException, FREWrongThreadException {
+		return mElements.length;
+	}
+
+	public FREObject getObjectAt( long index ) throws FREInvalidObjectException, FREWrongThreadException {
+		return mElements[(int) index];
+	}
+
+	public void setObjectAt( long index, FREObject value ) throws FREInvalidObjectException, FRETypeMismatchException, FREWrongThreadException {
+		if( index >= mElements.length ) {
+			FREObject[] elements = new FREObject[(int) index + 1];
+			System.arraycopy( mElements, 0, elements, 0, mElements.length );
+			mElements = elements;
+		}
+		mElements[(int) index] = value;
+	}
+
+}
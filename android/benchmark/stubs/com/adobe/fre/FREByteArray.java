@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.adobe.fre;
+
+import java.nio.ByteBuffer;
+
+public class FREByteArray extends FREObject {
+
+	private ByteBuffer mBytes = ByteBuffer.allocate( 0 );
+
+	private FREByteArray() {
+		super( Type.BYTEARRAY, null );
+	}
+
+	public static FREByteArray newByteArray() throws FREWrongThreadException {
+		return new FREByteArray();
+	}
+
+	public long getLength() throws FREInvalidObjectException, FREWrongThreadException {
+		return mBytes.capacity();
+	}
+
+	public ByteBuffer getBytes() throws FREInvalidObjectException, FREWrongThreadException {
+		return mBytes;
+	}
+
+	public void acquire() throws FREInvalidObjectException, FREWrongThreadException {
+	}
+
+	public void release() throws FREInvalidObjectException, FREWrongThreadException {
+	}
+
+	@Override
+	public void setProperty( String name, FREObject value ) throws FRETypeMismatchException, FREInvalidObjectException, FREASErrorException, FRENoSuchNameException, FREReadOnlyException, FREWrongThreadException {
+		if( "length".equals( name ) ) {
+			mBytes = ByteBuffer.allocate( value.getAsInt() );
+			return;
+		}
+		super.setProperty( name, value );
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.adobe.fre;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Desktop stand-in for the AIR <code>FREObject</code>. Holds a primitive value (or properties
+ * of an object) so that the argument decoding can run outside of the AIR runtime.
+ * Reading the value as a different type throws <code>FRETypeMismatchException</code>, like the runtime does.
+ */
+public class FREObject {
+
+	public enum Type {
+		OBJECT, NUMBER, STRING, BOOLEAN, BYTEARRAY, ARRAY, VECTOR, BITMAPDATA, NULL
+	}
+
+	private final Type mType;
+	private final Object mValue;
+	private final Map<String, FREObject> mProperties = new HashMap<String, FREObject>();
+
+	protected FREObject( Type type, Object value ) {
+		mType = type;
+		mValue = value;
+	}
+
+	public static FREObject newObject( int value ) throws FREWrongThreadException {
+		return new FREObject( Type.NUMBER, value );
+	}
+
+	public static FREObject newObject( double value ) throws FREWrongThreadException {
+		return new FREObject( Type.NUMBER, value );
+	}
+
+	public static FREObject newObject( boolean value ) throws FREWrongThreadException {
+		return new FREObject( Type.BOOLEAN, value );
+	}
+
+	public static FREObject newObject( String value ) throws FREWrongThreadException {
+		return (value != null) ? new FREObject( Type.STRING, value ) : new FREObject( Type.NULL, null );
+	}
+
+	public static FREObject newObject( String className, FREObject[] args ) throws FRETypeMismatchException, FREInvalidObjectException, FREWrongThreadException, FREASErrorException, FRENoSuchNameException {
+		return new FREObject( Type.OBJECT, className );
+	}
+
+	public int getAsInt() throws FRETypeMismatchException, FREInvalidObjectException, FREWrongThreadException {
+		if( mType != Type.NUMBER ) {
+			throw new FRETypeMismatchException();
+		}
+		return ((Number) mValue).intValue();
+	}
+
+	public double getAsDouble() throws FRETypeMismatchException, FREInvalidObjectException, FREWrongThreadException {
+		if( mType != Type.NUMBER ) {
+			throw new FRETypeMismatchException();
+		}
+		return ((Number) mValue).doubleValue();
+	}
+
+	public boolean getAsBool() throws FRETypeMismatchException, FREInvalidObjectException, FREWrongThreadException {
+		if( mType != Type.BOOLEAN ) {
+			throw new FRETypeMismatchException();
+		}
+		return (Boolean) mValue;
+	}
+
+	public String getAsString() throws FRETypeMismatchException, FREInvalidObjectException, FREWrongThreadException {
+		if( mType != Type.STRING ) {
+			throw new FRETypeMismatchException();
+		}
+		return (String) mValue;
+	}
+
+	public Type getType() throws FREWrongThreadException {
+		return mType;
+	}
+
+	public FREObject getProperty( String name ) throws FRETypeMismatchException, FREInvalidObjectException, FREASErrorException, FRENoSuchNameException, FREWrongThreadException {
+		FREObject property = mProperties.get( name );
+		if( property == null ) {
+			throw new FRENoSuchNameException();
+		}
+		return property;
+	}
+
+	public void setProperty( String name, FREObject value ) throws FRETypeMismatchException, FREInvalidObjectException, FREASErrorException, FRENoSuchNameException, FREReadOnlyException, FREWrongThreadException {
+		mProperties.put( name, value );
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.tasks;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Desktop stand-in for the Play services <code>Task</code>. Listeners added without an executor
+ * run on the main looper, listeners added to a completed task are called right away.
+ */
+public class Task<TResult> {
+
+	private static final Executor MAIN_THREAD = new Executor() {
+		private final Handler mHandler = new Handler( Looper.getMainLooper() );
+
+		@Override
+		public void execute( Runnable command ) {
+			mHandler.post( command );
+		}
+	};
+
+	private final List<Runnable> mListeners = new ArrayList<Runnable>( 1 );
+	private boolean mComplete;
+	private TResult mResult;
+	private Exception mException;
+
+	Task() {
+	}
+
+	public synchronized boolean isComplete() {
+		return mComplete;
+	}
+
+	public synchronized boolean isSuccessful() {
+		return mComplete && mException == null;
+	}
+
+	public synchronized TResult getResult() {
+		if( !mComplete ) {
+			throw new IllegalStateException( "Task is not yet complete" );
+		}
+		if( mException != null ) {
+			throw new RuntimeExecutionException( mException );
+		}
+		return mResult;
+	}
+
+	public synchronized Exception getException() {
+		return mException;
+	}
+
+	public Task<TResult> addOnCompleteListener( OnCompleteListener<TResult> listener ) {
+		return addOnCompleteListener( MAIN_THREAD, listener );
+	}
+
+	public Task<TResult> addOnCompleteListener( final Executor executor, final OnCompleteListener<TResult> listener ) {
+		Runnable notification = new Runnable() {
+			@Override
+			public void run() {
+				executor.execute( new Runnable() {
+					@Override
+					public void run() {
+						listener.onComplete( Task.this );
+					}
+				} );
+			}
+		};
+		synchronized( this ) {
+			if( !mComplete ) {
+				mListeners.add( notification );
+				return this;
+			}
+		}
+		notification.run();
+		return this;
+	}
+
+	public <TContinuationResult> Task<TContinuationResult> continueWith( Executor executor, final Continuation<TResult, TContinuationResult> continuation ) {
+		final TaskCompletionSource<TContinuationResult> source = new TaskCompletionSource<TContinuationResult>();
+		addOnCompleteListener( executor, new OnCompleteListener<TResult>() {
+			@Override
+			public void onComplete( Task<TResult> task ) {
+				try {
+					source.setResult( continuation.then( task ) );
+				} catch( Exception e ) {
+					source.setException( e );
+				}
+			}
+		} );
+		return source.getTask();
+	}
+
+	/**
+	 * Completes the task and notifies its listeners, returns <code>false</code> if it has already been completed.
+	 */
+	boolean complete( TResult result, Exception exception ) {
+		List<Runnable> listeners;
+		synchronized( this ) {
+			if( mComplete ) {
+				return false;
+			}
+			mComplete = true;
+			mResult = result;
+			mException = exception;
+			listeners = new ArrayList<Runnable>( mListeners );
+			mListeners.clear();
+		}
+		for( Runnable listener : listeners ) {
+			listener.run();
+		}
+		return true;
+	}
+
+}
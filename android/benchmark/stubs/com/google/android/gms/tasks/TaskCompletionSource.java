@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.tasks;
+
+public class TaskCompletionSource<TResult> {
+
+	private final Task<TResult> mTask = new Task<TResult>();
+
+	public Task<TResult> getTask() {
+		return mTask;
+	}
+
+	public void setResult( TResult result ) {
+		if( !mTask.complete( result, null ) ) {
+			throw new IllegalStateException( "Task is already complete" );
+		}
+	}
+
+	public void setException( Exception exception ) {
+		if( !mTask.complete( null, exception ) ) {
+			throw new IllegalStateException( "Task is already complete" );
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.tasks;
+
+public final class Tasks {
+
+	private Tasks() {
+	}
+
+	public static <TResult> Task<TResult> forResult( TResult result ) {
+		TaskCompletionSource<TResult> source = new TaskCompletionSource<TResult>();
+		source.setResult( result );
+		return source.getTask();
+	}
+
+	public static <TResult> Task<TResult> forException( Exception exception ) {
+		TaskCompletionSource<TResult> source = new TaskCompletionSource<TResult>();
+		source.setException( exception );
+		return source.getTask();
+	}
+
+}
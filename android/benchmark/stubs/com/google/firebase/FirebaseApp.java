@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.firebase;
+
+/**
+ * Desktop stand-in for <code>FirebaseApp</code>, no app is ever configured.
+ */
+public class FirebaseApp {
+
+	public static final String DEFAULT_APP_NAME = "[DEFAULT]";
+
+	private FirebaseApp() {
+	}
+
+	public static FirebaseApp getInstance() {
+		return getInstance( DEFAULT_APP_NAME );
+	}
+
+	public static FirebaseApp getInstance( String name ) {
+		throw new IllegalStateException( "FirebaseApp with name " + name + " doesn't exist." );
+	}
+
+	public String getName() {
+		return DEFAULT_APP_NAME;
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.firebase.auth;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.FirebaseApp;
+
+/**
+ * Desktop stand-in for <code>FirebaseAuth</code>. There is no <code>FirebaseApp</code> to get
+ * an instance for, operations are performed against <code>FakeAuthBackend</code> instead.
+ */
+public abstract class FirebaseAuth {
+
+	public interface AuthStateListener {
+		void onAuthStateChanged( FirebaseAuth firebaseAuth );
+	}
+
+	public static FirebaseAuth getInstance() {
+		return getInstance( FirebaseApp.getInstance() );
+	}
+
+	public static FirebaseAuth getInstance( FirebaseApp app ) {
+		throw new IllegalStateException( "FirebaseAuth is not available on a desktop JVM." );
+	}
+
+	public abstract FirebaseUser getCurrentUser();
+
+	public abstract void addAuthStateListener( AuthStateListener listener );
+
+	public abstract void removeAuthStateListener( AuthStateListener listener );
+
+	public abstract Task<AuthResult> signInWithCredential( AuthCredential credential );
+
+	public abstract Task<AuthResult> signInAnonymously();
+
+	public abstract Task<AuthResult> signInWithEmailAndPassword( String email, String password );
+
+	public abstract Task<AuthResult> createUserWithEmailAndPassword( String email, String password );
+
+	public abstract void signOut();
+
+}
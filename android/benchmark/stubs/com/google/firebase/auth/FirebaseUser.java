@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.firebase.auth;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.List;
+
+public abstract class FirebaseUser implements UserInfo {
+
+	public abstract boolean isAnonymous();
+
+	public abstract List<? extends UserInfo> getProviderData();
+
+	public abstract List<String> getProviders();
+
+	public abstract Task<Void> updateEmail( String email );
+
+	public abstract Task<Void> updatePassword( String password );
+
+	public abstract Task<Void> updateProfile( UserProfileChangeRequest request );
+
+	public abstract Task<Void> reauthenticate( AuthCredential credential );
+
+	public abstract Task<AuthResult> linkWithCredential( AuthCredential credential );
+
+	public abstract Task<AuthResult> unlink( String provider );
+
+	public abstract Task<Void> delete();
+
+	public abstract Task<Void> reload();
+
+	public abstract Task<GetTokenResult> getToken( boolean forceRefresh );
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.firebase.auth;
+
+/**
+ * Credential returned by the providers, it only knows the provider it was created by.
+ */
+class ProviderCredential extends AuthCredential {
+
+	private final String mProvider;
+
+	ProviderCredential( String provider ) {
+		mProvider = provider;
+	}
+
+	@Override
+	public String getProvider() {
+		return mProvider;
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.firebase.auth;
+
+import android.net.Uri;
+
+public class UserProfileChangeRequest {
+
+	public static class Builder {
+		private String mDisplayName;
+		private Uri mPhotoUri;
+
+		public Builder setDisplayName( String displayName ) {
+			mDisplayName = displayName;
+			return this;
+		}
+
+		public Builder setPhotoUri( Uri photoUri ) {
+			mPhotoUri = photoUri;
+			return this;
+		}
+
+		public UserProfileChangeRequest build() {
+			return new UserProfileChangeRequest( mDisplayName, mPhotoUri );
+		}
+	}
+
+	private final String mDisplayName;
+	private final Uri mPhotoUri;
+
+	private UserProfileChangeRequest( String displayName, Uri photoUri ) {
+		mDisplayName = displayName;
+		mPhotoUri = photoUri;
+	}
+
+	public String getDisplayName() {
+		return mDisplayName;
+	}
+
+	public Uri getPhotoUri() {
+		return mPhotoUri;
+	}
+
+}
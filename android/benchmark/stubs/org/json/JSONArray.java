@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Desktop stand-in for the Android <code>org.json.JSONArray</code>, covers the methods used by the extension.
+ */
+public class JSONArray {
+
+	private final List<Object> mValues = new ArrayList<Object>();
+
+	public JSONArray() {
+	}
+
+	public JSONArray( String json ) throws JSONException {
+		JSONTokener tokener = new JSONTokener( json );
+		Object value = tokener.nextValue();
+		if( !(value instanceof JSONArray) ) {
+			throw new JSONException( "Value is not a JSONArray" );
+		}
+		tokener.end();
+		mValues.addAll( ((JSONArray) value).mValues );
+	}
+
+	public JSONArray put( Object value ) {
+		mValues.add( value );
+		return this;
+	}
+
+	public JSONArray put( int value ) {
+		return put( (Object) value );
+	}
+
+	public JSONArray put( long value ) {
+		return put( (Object) value );
+	}
+
+	public JSONArray put( boolean value ) {
+		return put( (Object) value );
+	}
+
+	public int length() {
+		return mValues.size();
+	}
+
+	public Object opt( int index ) {
+		return (index >= 0 && index < mValues.size()) ? mValues.get( index ) : null;
+	}
+
+	public String optString( int index ) {
+		Object value = opt( index );
+		return (value != null) ? value.toString() : "";
+	}
+
+	public JSONObject optJSONObject( int index ) {
+		Object value = opt( index );
+		return (value instanceof JSONObject) ? (JSONObject) value : null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append( '[' );
+		final int length = mValues.size();
+		for( int i = 0; i < length; i++ ) {
+			if( i > 0 ) {
+				builder.append( ',' );
+			}
+			JSONObject.appendValue( builder, mValues.get( i ) );
+		}
+		return builder.append( ']' ).toString();
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Desktop stand-in for the Android <code>org.json.JSONObject</code>, covers the methods used by the extension.
+ */
+public class JSONObject {
+
+	private final Map<String, Object> mValues = new LinkedHashMap<String, Object>();
+
+	public JSONObject() {
+	}
+
+	public JSONObject( String json ) throws JSONException {
+		JSONTokener tokener = new JSONTokener( json );
+		Object value = tokener.nextValue();
+		if( !(value instanceof JSONObject) ) {
+			throw new JSONException( "Value is not a JSONObject" );
+		}
+		tokener.end();
+		mValues.putAll( ((JSONObject) value).mValues );
+	}
+
+	public JSONObject put( String name, Object value ) throws JSONException {
+		if( name == null ) {
+			throw new JSONException( "Names must be non-null" );
+		}
+		if( value == null ) {
+			mValues.remove( name );
+		} else {
+			mValues.put( name, value );
+		}
+		return this;
+	}
+
+	public JSONObject put( String name, int value ) throws JSONException {
+		return put( name, (Object) value );
+	}
+
+	public JSONObject put( String name, long value ) throws JSONException {
+		return put( name, (Object) value );
+	}
+
+	public JSONObject put( String name, boolean value ) throws JSONException {
+		return put( name, (Object) value );
+	}
+
+	public JSONObject put( String name, double value ) throws JSONException {
+		if( Double.isNaN( value ) || Double.isInfinite( value ) ) {
+			throw new JSONException( "Forbidden numeric value: " + value );
+		}
+		return put( name, (Object) value );
+	}
+
+	public boolean has( String name ) {
+		return mValues.containsKey( name );
+	}
+
+	public Object opt( String name ) {
+		return mValues.get( name );
+	}
+
+	public int length() {
+		return mValues.size();
+	}
+
+	public Iterator<String> keys() {
+		return mValues.keySet().iterator();
+	}
+
+	public String optString( String name ) {
+		return optString( name, "" );
+	}
+
+	public String optString( String name, String fallback ) {
+		Object value = mValues.get( name );
+		return (value != null) ? value.toString() : fallback;
+	}
+
+	public int optInt( String name, int fallback ) {
+		Object value = mValues.get( name );
+		return (value instanceof Number) ? ((Number) value).intValue() : fallback;
+	}
+
+	public long optLong( String name ) {
+		return optLong( name, 0 );
+	}
+
+	public long optLong( String name, long fallback ) {
+		Object value = mValues.get( name );
+		return (value instanceof Number) ? ((Number) value).longValue() : fallback;
+	}
+
+	public boolean optBoolean( String name, boolean fallback ) {
+		Object value = mValues.get( name );
+		return (value instanceof Boolean) ? (Boolean) value : fallback;
+	}
+
+	public JSONObject optJSONObject( String name ) {
+		Object value = mValues.get( name );
+		return (value instanceof JSONObject) ? (JSONObject) value : null;
+	}
+
+	public JSONArray optJSONArray( String name ) {
+		Object value = mValues.get( name );
+		return (value instanceof JSONArray) ? (JSONArray) value : null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append( '{' );
+		boolean first = true;
+		for( Map.Entry<String, Object> entry : mValues.entrySet() ) {
+			if( !first ) {
+				builder.append( ',' );
+			}
+			first = false;
+			quote( builder, entry.getKey() );
+			builder.append( ':' );
+			appendValue( builder, entry.getValue() );
+		}
+		return builder.append( '}' ).toString();
+	}
+
+	public static String quote( String value ) {
+		StringBuilder builder = new StringBuilder();
+		quote( builder, value );
+		return builder.toString();
+	}
+
+	/**
+	 *
+	 *
+	 * Package private API
+	 *
+	 *
+	 */
+
+	static void appendValue( StringBuilder builder, Object value ) {
+		if( value instanceof String ) {
+			quote( builder, (String) value );
+		} else if( value instanceof Double ) {
+			double number = (Double) value;
+			if( number == (long) number ) {
+				builder.append( (long) number );
+			} else {
+				builder.append( number );
+			}
+		} else {
+			builder.append( value );
+		}
+	}
+
+	static void quote( StringBuilder builder, String value ) {
+		builder.append( '"' );
+		final int length = value.length();
+		for( int i = 0; i < length; i++ ) {
+			char c = value.charAt( i );
+			switch( c ) {
+				case '"':
+				case '\\':
+				case '/':
+					builder.append( '\\' ).append( c );
+					break;
+				case '\t':
+					builder.append( "\\t" );
+					break;
+				case '\b':
+					builder.append( "\\b" );
+					break;
+				case '\n':
+					builder.append( "\\n" );
+					break;
+				case '\r':
+					builder.append( "\\r" );
+					break;
+				case '\f':
+					builder.append( "\\f" );
+					break;
+				default:
+					if( c <= 0x1F ) {
+						builder.append( String.format( "\\u%04x", (int) c ) );
+					} else {
+						builder.append( c );
+					}
+					break;
+			}
+		}
+		builder.append( '"' );
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+/**
+ * Parses JSON text into <code>JSONObject</code>, <code>JSONArray</code>, strings, numbers, booleans and <code>null</code>.
+ */
+public class JSONTokener {
+
+	private final String mInput;
+	private int mPosition;
+
+	public JSONTokener( String input ) {
+		mInput = (input != null) ? input : "";
+	}
+
+	public Object nextValue() throws JSONException {
+		char c = nextClean();
+		switch( c ) {
+			case '{':
+				return readObject();
+			case '[':
+				return readArray();
+			case '"':
+				return readString();
+			default:
+				mPosition--;
+				return readLiteral();
+		}
+	}
+
+	/**
+	 *
+	 *
+	 * Package private API
+	 *
+	 *
+	 */
+
+	/**
+	 * Checks that only whitespace follows the parsed value.
+	 */
+	void end() throws JSONException {
+		if( nextClean() != 0 ) {
+			throw syntaxError( "Unexpected characters after the value" );
+		}
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private JSONObject readObject() throws JSONException {
+		JSONObject result = new JSONObject();
+		if( nextClean() == '}' ) {
+			return result;
+		}
+		mPosition--;
+		while( true ) {
+			if( nextClean() != '"' ) {
+				throw syntaxError( "Expected a name" );
+			}
+			String name = readString();
+			if( nextClean() != ':' ) {
+				throw syntaxError( "Expected ':' after " + name );
+			}
+			result.put( name, nextValue() );
+			char c = nextClean();
+			if( c == '}' ) {
+				return result;
+			}
+			if( c != ',' ) {
+				throw syntaxError( "Unterminated object" );
+			}
+		}
+	}
+
+	private JSONArray readArray() throws JSONException {
+		JSONArray result = new JSONArray();
+		if( nextClean() == ']' ) {
+			return result;
+		}
+		mPosition--;
+		while( true ) {
+			result.put( nextValue() );
+			char c = nextClean();
+			if( c == ']' ) {
+				return result;
+			}
+			if( c != ',' ) {
+				throw syntaxError( "Unterminated array" );
+			}
+		}
+	}
+
+	private String readString() throws JSONException {
+		StringBuilder builder = new StringBuilder();
+		while( mPosition < mInput.length() ) {
+			char c = mInput.charAt( mPosition++ );
+			if( c == '"' ) {
+				return builder.toString();
+			}
+			if( c != '\\' ) {
+				builder.append( c );
+				continue;
+			}
+			if( mPosition >= mInput.length() ) break;
+			c = mInput.charAt( mPosition++ );
+			switch( c ) {
+				case 'u':
+					if( mPosition + 4 > mInput.length() ) {
+						throw syntaxError( "Unterminated escape sequence" );
+					}
+					try {
+						builder.append( (char) Integer.parseInt( mInput.substring( mPosition, mPosition + 4 ), 16 ) );
+					} catch( NumberFormatException e ) {
+						throw syntaxError( "Invalid escape sequence" );
+					}
+					mPosition += 4;
+					break;
+				case 't':
+					builder.append( '\t' );
+					break;
+				case 'b':
+					builder.append( '\b' );
+					break;
+				case 'n':
+					builder.append( '\n' );
+					break;
+				case 'r':
+					builder.append( '\r' );
+					break;
+				case 'f':
+					builder.append( '\f' );
+					break;
+				default:
+					builder.append( c );
+					break;
+			}
+		}
+		throw syntaxError( "Unterminated string" );
+	}
+
+	private Object readLiteral() throws JSONException {
+		int start = mPosition;
+		while( mPosition < mInput.length() && ",:]} \t\n\r".indexOf( mInput.charAt( mPosition ) ) < 0 ) {
+			mPosition++;
+		}
+		String literal = mInput.substring( start, mPosition );
+		if( literal.isEmpty() ) {
+			throw syntaxError( "Expected a value" );
+		}
+		if( "null".equals( literal ) ) {
+			return null;
+		}
+		if( "true".equals( literal ) ) {
+			return Boolean.TRUE;
+		}
+		if( "false".equals( literal ) ) {
+			return Boolean.FALSE;
+		}
+		try {
+			if( literal.indexOf( '.' ) < 0 && literal.indexOf( 'e' ) < 0 && literal.indexOf( 'E' ) < 0 ) {
+				long value = Long.parseLong( literal );
+				if( value == (int) value ) {
+					return (int) value;
+				}
+				return value;
+			}
+			return Double.valueOf( literal );
+		} catch( NumberFormatException e ) {
+			throw syntaxError( "Invalid value " + literal );
+		}
+	}
+
+	/**
+	 * Returns the next character that is not whitespace, or <code>0</code> at the end of the input.
+	 */
+	private char nextClean() {
+		while( mPosition < mInput.length() ) {
+			char c = mInput.charAt( mPosition++ );
+			if( c != ' ' && c != '\t' && c != '\n' && c != '\r' ) {
+				return c;
+			}
+		}
+		mPosition++;
+		return 0;
+	}
+
+	private JSONException syntaxError( String message ) {
+		return new JSONException( message + " at character " + mPosition );
+	}
+
+}
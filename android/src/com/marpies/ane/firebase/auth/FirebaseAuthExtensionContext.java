@@ -16,50 +16,54 @@
 
 package com.marpies.ane.firebase.auth;
 
+import android.app.Activity;
+import android.content.pm.ApplicationInfo;
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREFunction;
-import com.marpies.ane.firebase.auth.functions.*;
+import com.marpies.ane.firebase.auth.functions.FunctionRegistry;
 import com.marpies.ane.firebase.auth.utils.AIR;
+import com.marpies.ane.firebase.auth.utils.EventPayloadStore;
+import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
 
-import java.util.HashMap;
 import java.util.Map;
 
 public class FirebaseAuthExtensionContext extends FREContext {
 
 	@Override
 	public Map<String, FREFunction> getFunctions() {
-		Map<String, FREFunction> functions = new HashMap<String, FREFunction>();
-
-		functions.put( "init", new InitFunction() );
-		functions.put( "createUser", new CreateUserFunction() );
-		functions.put( "signInWithFacebookAccount", new SignInWithFacebookFunction() );
-		functions.put( "signInWithGoogleAccount", new SignInWithGoogleFunction() );
-		functions.put( "signInWithEmailAndPassword", new SignInWithEmailFunction() );
-		functions.put( "signInWithTwitterAccount", new SignInWithTwitterFunction() );
-		functions.put( "signInWithGithubAccount", new SignInWithGithubFunction() );
-		functions.put( "signInAnonymously", new SignInAnonymouslyFunction() );
-		functions.put( "linkWithFacebookAccount", new LinkWithFacebookFunction() );
-		functions.put( "linkWithGoogleAccount", new LinkWithGoogleFunction() );
-		functions.put( "linkWithEmailAccount", new LinkWithEmailFunction() );
-		functions.put( "linkWithTwitterAccount", new LinkWithTwitterFunction() );
-		functions.put( "linkWithGithubAccount", new LinkWithGithubFunction() );
-		functions.put( "reauthWithFacebookAccount", new ReauthenticateWithFacebookFunction() );
-		functions.put( "reauthWithGoogleAccount", new ReauthenticateWithGoogleFunction() );
-		functions.put( "reauthWithEmailAccount", new ReauthenticateWithEmailFunction() );
-		functions.put( "reauthWithTwitterAccount", new ReauthenticateWithTwitterFunction() );
-		functions.put( "reauthWithGithubAccount", new ReauthenticateWithGithubFunction() );
-		functions.put( "unlinkFromProvider", new UnlinkFromProviderFunction() );
-		functions.put( "updateEmail", new UpdateEmailFunction() );
-		functions.put( "updatePassword", new UpdatePasswordFunction() );
-		functions.put( "deleteUser", new DeleteUserFunction() );
-		functions.put( "changeUserProfile", new UpdateUserProfileFunction() );
-		functions.put( "signOut", new SignOutFunction() );
-
+		long start = System.nanoTime();
+		Map<String, FREFunction> functions = FunctionRegistry.getFunctions( isDebuggable() );
+		FunctionRegistry.recordContextCreation( System.nanoTime() - start );
+		preloadUser();
 		return functions;
 	}
 
 	@Override
 	public void dispose() {
 		AIR.setContext( null );
+		EventPayloadStore.clear();
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	/**
+	 * Starts reading the last known user of the default app, so that it is ready when AS calls init.
+	 */
+	private void preloadUser() {
+		Activity activity = getActivity();
+		if( activity != null ) {
+			FirebaseAuthHelper.getInstance().preloadUser( activity.getFilesDir() );
+		}
+	}
+
+	private boolean isDebuggable() {
+		Activity activity = getActivity();
+		return (activity != null) && (activity.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
 	}
 }
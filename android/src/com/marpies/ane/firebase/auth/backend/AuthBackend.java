@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.backend;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.auth.AuthCredential;
+
+/**
+ * Operations the extension performs against an authentication service. Operations on the
+ * signed in user fail if there is no such user. Tasks may complete on any thread.
+ */
+public interface AuthBackend {
+
+	interface AuthStateListener {
+		/**
+		 * Called when a user signs in or out, <code>null</code> user means no user is signed in.
+		 */
+		void onAuthStateChanged( AuthUser user );
+	}
+
+	void addAuthStateListener( AuthStateListener listener );
+
+	void removeAuthStateListener( AuthStateListener listener );
+
+	/**
+	 * Returns currently signed in user, or <code>null</code> if no user is signed in.
+	 */
+	AuthUser getCurrentUser();
+
+	Task<AuthUser> createUser( String email, String password );
+
+	Task<AuthUser> signInWithEmailAndPassword( String email, String password );
+
+	Task<AuthUser> signInAnonymously();
+
+	Task<AuthUser> signInWithCredential( AuthCredential credential );
+
+	Task<AuthUser> linkWithCredential( AuthCredential credential );
+
+	Task<Void> reauthenticate( AuthCredential credential );
+
+	Task<AuthUser> unlink( String providerId );
+
+	Task<Void> updateEmail( String email );
+
+	Task<Void> updatePassword( String password );
+
+	/**
+	 * Updates the user's profile, <code>null</code> values are left unchanged.
+	 */
+	Task<Void> updateProfile( String displayName, String photoURL );
+
+	Task<Void> delete();
+
+	/**
+	 * Returns ID token of the signed in user.
+	 */
+	Task<String> getToken( boolean forceRefresh );
+
+	void signOut();
+
+}
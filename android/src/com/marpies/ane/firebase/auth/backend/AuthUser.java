@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.backend;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of a signed in user, independent of the backend that provided it.
+ * Two snapshots are equal if all their fields, including the provider data, are.
+ */
+public class AuthUser extends AuthUserInfo {
+
+	private final boolean mIsAnonymous;
+	private final List<AuthUserInfo> mProviderData;
+
+	public AuthUser( String providerId, String uid, boolean isAnonymous, String displayName, String email, String photoURL, List<AuthUserInfo> providerData ) {
+		super( providerId, uid, displayName, email, photoURL );
+		mIsAnonymous = isAnonymous;
+		mProviderData = (providerData != null) ? Collections.unmodifiableList( providerData ) : Collections.<AuthUserInfo>emptyList();
+	}
+
+	@Override
+	public boolean equals( Object o ) {
+		if( this == o ) return true;
+		if( !super.equals( o ) ) return false;
+		AuthUser other = (AuthUser) o;
+		if( mIsAnonymous != other.mIsAnonymous ) return false;
+		/* Indexed loops, the lists' own methods allocate iterators */
+		int size = mProviderData.size();
+		if( size != other.mProviderData.size() ) return false;
+		for( int i = 0; i < size; i++ ) {
+			if( !mProviderData.get( i ).equals( other.mProviderData.get( i ) ) ) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = super.hashCode();
+		result = 31 * result + (mIsAnonymous ? 1 : 0);
+		for( int i = 0; i < mProviderData.size(); i++ ) {
+			result = 31 * result + mProviderData.get( i ).hashCode();
+		}
+		return result;
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	public boolean isAnonymous() {
+		return mIsAnonymous;
+	}
+
+	public List<AuthUserInfo> getProviderData() {
+		return mProviderData;
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.backend;
+
+/**
+ * User's profile data as seen by a single identity provider.
+ * Two instances are equal if all their fields are, i.e. if they serialize the same way.
+ */
+public class AuthUserInfo {
+
+	private final String mProviderId;
+	private final String mUid;
+	private final String mDisplayName;
+	private final String mEmail;
+	private final String mPhotoURL;
+
+	public AuthUserInfo( String providerId, String uid, String displayName, String email, String photoURL ) {
+		mProviderId = providerId;
+		mUid = uid;
+		mDisplayName = displayName;
+		mEmail = email;
+		mPhotoURL = photoURL;
+	}
+
+	@Override
+	public boolean equals( Object o ) {
+		if( this == o ) return true;
+		if( o == null || getClass() != o.getClass() ) return false;
+		AuthUserInfo other = (AuthUserInfo) o;
+		return equals( mProviderId, other.mProviderId ) &&
+				equals( mUid, other.mUid ) &&
+				equals( mDisplayName, other.mDisplayName ) &&
+				equals( mEmail, other.mEmail ) &&
+				equals( mPhotoURL, other.mPhotoURL );
+	}
+
+	@Override
+	public int hashCode() {
+		int result = hashCode( mProviderId );
+		result = 31 * result + hashCode( mUid );
+		result = 31 * result + hashCode( mDisplayName );
+		result = 31 * result + hashCode( mEmail );
+		result = 31 * result + hashCode( mPhotoURL );
+		return result;
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	public String getProviderId() {
+		return mProviderId;
+	}
+
+	public String getUid() {
+		return mUid;
+	}
+
+	public String getDisplayName() {
+		return mDisplayName;
+	}
+
+	public String getEmail() {
+		return mEmail;
+	}
+
+	public String getPhotoURL() {
+		return mPhotoURL;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static boolean equals( String a, String b ) {
+		return (a == null) ? (b == null) : a.equals( b );
+	}
+
+	private static int hashCode( String value ) {
+		return (value != null) ? value.hashCode() : 0;
+	}
+
+}
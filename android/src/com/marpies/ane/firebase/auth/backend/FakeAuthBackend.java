@@ -0,0 +1,422 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.backend;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.FirebaseNetworkException;
+import com.google.firebase.auth.AuthCredential;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory backend for measuring the extension without a Firebase project. Accounts live only
+ * in memory, operations complete on a private thread after a configurable delay, and failures
+ * can be injected either randomly or one by one. Latency and random failure of the n-th operation
+ * depend only on the seed and n, regardless of the threads the operations complete on.
+ */
+public class FakeAuthBackend implements AuthBackend {
+
+	private static final String PROVIDER_PASSWORD = "password";
+	private static final String PROVIDER_FIREBASE = "firebase";
+
+	private interface Operation<T> {
+		T call() throws Exception;
+	}
+
+	private static class Account {
+		String mUid;
+		boolean mIsAnonymous;
+		String mEmail;
+		String mPassword;
+		String mDisplayName;
+		String mPhotoURL;
+		final List<String> mProviders = new ArrayList<String>( 2 );
+	}
+
+	private final ScheduledExecutorService mScheduler;
+	private final long mSeed;
+	private long mOperationCount;
+	private final List<AuthStateListener> mListeners = new CopyOnWriteArrayList<AuthStateListener>();
+	private final Map<String, Account> mAccountsByEmail = new HashMap<String, Account>();
+	private final Map<String, Account> mAccountsByCredential = new HashMap<String, Account>();
+	private final Queue<Exception> mInjectedFailures = new LinkedList<Exception>();
+
+	private Account mCurrentAccount;
+	private int mUidCounter;
+	private int mTokenCounter;
+
+	private long mMinLatency;
+	private long mMaxLatency;
+	private double mFailureRate;
+
+	public FakeAuthBackend( long seed ) {
+		mSeed = seed;
+		mScheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+			@Override
+			public Thread newThread( Runnable runnable ) {
+				Thread thread = new Thread( runnable, "FakeAuthBackend" );
+				thread.setDaemon( true );
+				return thread;
+			}
+		} );
+	}
+
+	/**
+	 * Sets range (in milliseconds) of the delay after which each operation completes.
+	 */
+	public synchronized void setLatency( long minLatency, long maxLatency ) {
+		mMinLatency = Math.max( 0, minLatency );
+		mMaxLatency = Math.max( mMinLatency, maxLatency );
+	}
+
+	/**
+	 * Sets probability (<code>0</code> to <code>1</code>) that an operation fails with a network error.
+	 */
+	public synchronized void setFailureRate( double failureRate ) {
+		mFailureRate = failureRate;
+	}
+
+	/**
+	 * Makes the next operation fail with the given exception, calls are queued.
+	 */
+	public synchronized void failNext( Exception exception ) {
+		mInjectedFailures.add( exception );
+	}
+
+	/**
+	 * Stops accepting operations. Those already started still complete, after which the thread ends.
+	 * Operations started after the shutdown fail right away.
+	 */
+	public void shutdown() {
+		mScheduler.shutdown();
+	}
+
+	@Override
+	public void addAuthStateListener( final AuthStateListener listener ) {
+		if( mListeners.contains( listener ) ) return;
+		mListeners.add( listener );
+		/* Like Firebase, report the current state right away */
+		final AuthUser user = getCurrentUser();
+		mScheduler.execute( new Runnable() {
+			@Override
+			public void run() {
+				listener.onAuthStateChanged( user );
+			}
+		} );
+	}
+
+	@Override
+	public void removeAuthStateListener( AuthStateListener listener ) {
+		mListeners.remove( listener );
+	}
+
+	@Override
+	public synchronized AuthUser getCurrentUser() {
+		return toAuthUser( mCurrentAccount );
+	}
+
+	@Override
+	public Task<AuthUser> createUser( final String email, final String password ) {
+		return run( new Operation<AuthUser>() {
+			@Override
+			public AuthUser call() throws Exception {
+				if( mAccountsByEmail.containsKey( email ) ) {
+					throw new Exception( "The email address is already in use by another account." );
+				}
+				Account account = createAccount( false );
+				account.mEmail = email;
+				account.mPassword = password;
+				account.mProviders.add( PROVIDER_PASSWORD );
+				mAccountsByEmail.put( email, account );
+				return signIn( account );
+			}
+		} );
+	}
+
+	@Override
+	public Task<AuthUser> signInWithEmailAndPassword( final String email, final String password ) {
+		return run( new Operation<AuthUser>() {
+			@Override
+			public AuthUser call() throws Exception {
+				Account account = mAccountsByEmail.get( email );
+				if( account == null ) {
+					throw new Exception( "There is no user record corresponding to this identifier." );
+				}
+				if( !password.equals( account.mPassword ) ) {
+					throw new Exception( "The password is invalid or the user does not have a password." );
+				}
+				return signIn( account );
+			}
+		} );
+	}
+
+	@Override
+	public Task<AuthUser> signInAnonymously() {
+		return run( new Operation<AuthUser>() {
+			@Override
+			public AuthUser call() throws Exception {
+				return signIn( createAccount( true ) );
+			}
+		} );
+	}
+
+	@Override
+	public Task<AuthUser> signInWithCredential( final AuthCredential credential ) {
+		return run( new Operation<AuthUser>() {
+			@Override
+			public AuthUser call() throws Exception {
+				String provider = credential.getProvider();
+				Account account = mAccountsByCredential.get( provider );
+				if( account == null ) {
+					account = createAccount( false );
+					account.mProviders.add( provider );
+					mAccountsByCredential.put( provider, account );
+				}
+				return signIn( account );
+			}
+		} );
+	}
+
+	@Override
+	public Task<AuthUser> linkWithCredential( final AuthCredential credential ) {
+		return run( new Operation<AuthUser>() {
+			@Override
+			public AuthUser call() throws Exception {
+				Account account = requireAccount();
+				String provider = credential.getProvider();
+				if( account.mProviders.contains( provider ) || mAccountsByCredential.containsKey( provider ) ) {
+					throw new Exception( "This credential is already associated with a user account." );
+				}
+				account.mProviders.add( provider );
+				account.mIsAnonymous = false;
+				mAccountsByCredential.put( provider, account );
+				return toAuthUser( account );
+			}
+		} );
+	}
+
+	@Override
+	public Task<Void> reauthenticate( AuthCredential credential ) {
+		return run( new Operation<Void>() {
+			@Override
+			public Void call() throws Exception {
+				requireAccount();
+				return null;
+			}
+		} );
+	}
+
+	@Override
+	public Task<AuthUser> unlink( final String providerId ) {
+		return run( new Operation<AuthUser>() {
+			@Override
+			public AuthUser call() throws Exception {
+				Account account = requireAccount();
+				if( !account.mProviders.remove( providerId ) ) {
+					throw new Exception( "User was not linked to an account with the given provider." );
+				}
+				mAccountsByCredential.remove( providerId );
+				return toAuthUser( account );
+			}
+		} );
+	}
+
+	@Override
+	public Task<Void> updateEmail( final String email ) {
+		return run( new Operation<Void>() {
+			@Override
+			public Void call() throws Exception {
+				Account account = requireAccount();
+				if( account.mEmail != null ) {
+					mAccountsByEmail.remove( account.mEmail );
+				}
+				account.mEmail = email;
+				mAccountsByEmail.put( email, account );
+				return null;
+			}
+		} );
+	}
+
+	@Override
+	public Task<Void> updatePassword( final String password ) {
+		return run( new Operation<Void>() {
+			@Override
+			public Void call() throws Exception {
+				requireAccount().mPassword = password;
+				return null;
+			}
+		} );
+	}
+
+	@Override
+	public Task<Void> updateProfile( final String displayName, final String photoURL ) {
+		return run( new Operation<Void>() {
+			@Override
+			public Void call() throws Exception {
+				Account account = requireAccount();
+				if( displayName != null ) {
+					account.mDisplayName = displayName;
+				}
+				if( photoURL != null ) {
+					account.mPhotoURL = photoURL;
+				}
+				return null;
+			}
+		} );
+	}
+
+	@Override
+	public Task<Void> delete() {
+		return run( new Operation<Void>() {
+			@Override
+			public Void call() throws Exception {
+				Account account = requireAccount();
+				if( account.mEmail != null ) {
+					mAccountsByEmail.remove( account.mEmail );
+				}
+				for( String provider : account.mProviders ) {
+					mAccountsByCredential.remove( provider );
+				}
+				signIn( null );
+				return null;
+			}
+		} );
+	}
+
+	@Override
+	public Task<String> getToken( boolean forceRefresh ) {
+		return run( new Operation<String>() {
+			@Override
+			public String call() throws Exception {
+				return "fake-token-" + requireAccount().mUid + "-" + (++mTokenCounter);
+			}
+		} );
+	}
+
+	@Override
+	public void signOut() {
+		synchronized( this ) {
+			signIn( null );
+		}
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private <T> Task<T> run( final Operation<T> operation ) {
+		final TaskCompletionSource<T> source = new TaskCompletionSource<T>();
+		final long delay;
+		final boolean injectFailure;
+		synchronized( this ) {
+			/* Each operation draws from its own generator so that concurrent completions do not reorder the draws */
+			Random random = new Random( mSeed ^ (mOperationCount++ * 0x9E3779B97F4A7C15L) );
+			delay = mMinLatency + (long) (random.nextDouble() * (mMaxLatency - mMinLatency));
+			injectFailure = mFailureRate > 0 && random.nextDouble() < mFailureRate;
+		}
+		try {
+			mScheduler.schedule( new Runnable() {
+				@Override
+				public void run() {
+					T result;
+					synchronized( FakeAuthBackend.this ) {
+						try {
+							Exception failure = mInjectedFailures.poll();
+							if( failure == null && injectFailure ) {
+								failure = new FirebaseNetworkException( "Injected network failure." );
+							}
+							if( failure != null ) {
+								throw failure;
+							}
+							result = operation.call();
+						} catch( Exception e ) {
+							source.setException( e );
+							return;
+						}
+					}
+					source.setResult( result );
+				}
+			}, delay, TimeUnit.MILLISECONDS );
+		} catch( RejectedExecutionException e ) {
+			source.setException( new IllegalStateException( "Backend has been shut down." ) );
+		}
+		return source.getTask();
+	}
+
+	/**
+	 * Must be called while holding the lock.
+	 */
+	private AuthUser signIn( Account account ) {
+		boolean changed = account != mCurrentAccount;
+		mCurrentAccount = account;
+		final AuthUser user = toAuthUser( account );
+		if( changed ) {
+			mScheduler.execute( new Runnable() {
+				@Override
+				public void run() {
+					for( AuthStateListener listener : mListeners ) {
+						listener.onAuthStateChanged( user );
+					}
+				}
+			} );
+		}
+		return user;
+	}
+
+	private Account createAccount( boolean anonymous ) {
+		Account account = new Account();
+		account.mUid = "fake-uid-" + (++mUidCounter);
+		account.mIsAnonymous = anonymous;
+		return account;
+	}
+
+	private Account requireAccount() throws Exception {
+		if( mCurrentAccount == null ) {
+			throw new IllegalStateException( "User is not signed in." );
+		}
+		return mCurrentAccount;
+	}
+
+	private static AuthUser toAuthUser( Account account ) {
+		if( account == null ) {
+			return null;
+		}
+		List<AuthUserInfo> providers = new ArrayList<AuthUserInfo>( account.mProviders.size() );
+		for( String provider : account.mProviders ) {
+			providers.add( new AuthUserInfo( provider, account.mUid, account.mDisplayName, account.mEmail, account.mPhotoURL ) );
+		}
+		return new AuthUser( PROVIDER_FIREBASE, account.mUid, account.mIsAnonymous, account.mDisplayName, account.mEmail, account.mPhotoURL, providers );
+	}
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.backend;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import com.google.android.gms.tasks.Continuation;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.*;
+import com.marpies.ane.firebase.auth.utils.AuthExecutors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backend that uses the Firebase SDK, for the default or a named <code>FirebaseApp</code>.
+ */
+public class FirebaseAuthBackend implements AuthBackend {
+
+	private final String mAppName;
+	private final Map<AuthStateListener, FirebaseAuth.AuthStateListener> mListeners = new HashMap<AuthStateListener, FirebaseAuth.AuthStateListener>();
+
+	private final Continuation<AuthResult, AuthUser> mAuthResultContinuation = new Continuation<AuthResult, AuthUser>() {
+		@Override
+		public AuthUser then( @NonNull Task<AuthResult> task ) throws Exception {
+			if( !task.isSuccessful() ) {
+				throw task.getException();
+			}
+			FirebaseUser user = task.getResult().getUser();
+			return toAuthUser( (user != null) ? user : getAuth().getCurrentUser() );
+		}
+	};
+
+	private final Continuation<GetTokenResult, String> mTokenContinuation = new Continuation<GetTokenResult, String>() {
+		@Override
+		public String then( @NonNull Task<GetTokenResult> task ) throws Exception {
+			if( !task.isSuccessful() ) {
+				throw task.getException();
+			}
+			return task.getResult().getToken();
+		}
+	};
+
+	/**
+	 * Creates backend for the default <code>FirebaseApp</code>.
+	 */
+	public FirebaseAuthBackend() {
+		this( null );
+	}
+
+	/**
+	 * @param appName Name of the <code>FirebaseApp</code>, or <code>null</code> for the default app.
+	 */
+	public FirebaseAuthBackend( String appName ) {
+		mAppName = appName;
+	}
+
+	@Override
+	public void addAuthStateListener( final AuthStateListener listener ) {
+		FirebaseAuth.AuthStateListener firebaseListener = new FirebaseAuth.AuthStateListener() {
+			@Override
+			public void onAuthStateChanged( @NonNull FirebaseAuth firebaseAuth ) {
+				listener.onAuthStateChanged( toAuthUser( firebaseAuth.getCurrentUser() ) );
+			}
+		};
+		synchronized( mListeners ) {
+			if( mListeners.containsKey( listener ) ) return;
+			mListeners.put( listener, firebaseListener );
+		}
+		getAuth().addAuthStateListener( firebaseListener );
+	}
+
+	@Override
+	public void removeAuthStateListener( AuthStateListener listener ) {
+		FirebaseAuth.AuthStateListener firebaseListener;
+		synchronized( mListeners ) {
+			firebaseListener = mListeners.remove( listener );
+		}
+		if( firebaseListener != null ) {
+			getAuth().removeAuthStateListener( firebaseListener );
+		}
+	}
+
+	@Override
+	public AuthUser getCurrentUser() {
+		return toAuthUser( getAuth().getCurrentUser() );
+	}
+
+	@Override
+	public Task<AuthUser> createUser( String email, String password ) {
+		return toUserTask( getAuth().createUserWithEmailAndPassword( email, password ) );
+	}
+
+	@Override
+	public Task<AuthUser> signInWithEmailAndPassword( String email, String password ) {
+		return toUserTask( getAuth().signInWithEmailAndPassword( email, password ) );
+	}
+
+	@Override
+	public Task<AuthUser> signInAnonymously() {
+		return toUserTask( getAuth().signInAnonymously() );
+	}
+
+	@Override
+	public Task<AuthUser> signInWithCredential( AuthCredential credential ) {
+		return toUserTask( getAuth().signInWithCredential( credential ) );
+	}
+
+	@Override
+	public Task<AuthUser> linkWithCredential( AuthCredential credential ) {
+		FirebaseUser user = getAuth().getCurrentUser();
+		if( user == null ) {
+			return Tasks.forException( new IllegalStateException( "User is not signed in." ) );
+		}
+		return toUserTask( user.linkWithCredential( credential ) );
+	}
+
+	@Override
+	public Task<Void> reauthenticate( AuthCredential credential ) {
+		FirebaseUser user = getAuth().getCurrentUser();
+		if( user == null ) {
+			return Tasks.forException( new IllegalStateException( "User is not signed in." ) );
+		}
+		return user.reauthenticate( credential );
+	}
+
+	@Override
+	public Task<AuthUser> unlink( String providerId ) {
+		FirebaseUser user = getAuth().getCurrentUser();
+		if( user == null ) {
+			return Tasks.forException( new IllegalStateException( "User is not signed in." ) );
+		}
+		return toUserTask( user.unlink( providerId ) );
+	}
+
+	@Override
+	public Task<Void> updateEmail( String email ) {
+		FirebaseUser user = getAuth().getCurrentUser();
+		if( user == null ) {
+			return Tasks.forException( new IllegalStateException( "User is not signed in." ) );
+		}
+		return user.updateEmail( email );
+	}
+
+	@Override
+	public Task<Void> updatePassword( String password ) {
+		FirebaseUser user = getAuth().getCurrentUser();
+		if( user == null ) {
+			return Tasks.forException( new IllegalStateException( "User is not signed in." ) );
+		}
+		return user.updatePassword( password );
+	}
+
+	@Override
+	public Task<Void> updateProfile( String displayName, String photoURL ) {
+		FirebaseUser user = getAuth().getCurrentUser();
+		if( user == null ) {
+			return Tasks.forException( new IllegalStateException( "User is not signed in." ) );
+		}
+		UserProfileChangeRequest.Builder builder = new UserProfileChangeRequest.Builder();
+		if( displayName != null ) {
+			builder.setDisplayName( displayName );
+		}
+		if( photoURL != null ) {
+			builder.setPhotoUri( Uri.parse( photoURL ) );
+		}
+		return user.updateProfile( builder.build() );
+	}
+
+	@Override
+	public Task<Void> delete() {
+		FirebaseUser user = getAuth().getCurrentUser();
+		if( user == null ) {
+			return Tasks.forException( new IllegalStateException( "User is not signed in." ) );
+		}
+		return user.delete();
+	}
+
+	@Override
+	public Task<String> getToken( boolean forceRefresh ) {
+		FirebaseUser user = getAuth().getCurrentUser();
+		if( user == null ) {
+			return Tasks.forException( new IllegalStateException( "User is not signed in." ) );
+		}
+		return user.getToken( forceRefresh ).continueWith( AuthExecutors.getCompletionExecutor(), mTokenContinuation );
+	}
+
+	@Override
+	public void signOut() {
+		getAuth().signOut();
+	}
+
+	/**
+	 * Returns copy of the given Firebase user, or <code>null</code> if the user is <code>null</code>.
+	 */
+	public static AuthUser toAuthUser( FirebaseUser user ) {
+		if( user == null ) {
+			return null;
+		}
+		List<? extends UserInfo> providerData = user.getProviderData();
+		List<AuthUserInfo> providers = null;
+		if( providerData != null ) {
+			final int size = providerData.size();
+			providers = new ArrayList<AuthUserInfo>( size );
+			for( int i = 0; i < size; i++ ) {
+				UserInfo info = providerData.get( i );
+				providers.add( new AuthUserInfo( info.getProviderId(), info.getUid(), info.getDisplayName(), info.getEmail(), getString( info.getPhotoUrl() ) ) );
+			}
+		}
+		return new AuthUser( user.getProviderId(), user.getUid(), user.isAnonymous(), user.getDisplayName(), user.getEmail(), getString( user.getPhotoUrl() ), providers );
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private Task<AuthUser> toUserTask( Task<AuthResult> task ) {
+		return task.continueWith( AuthExecutors.getCompletionExecutor(), mAuthResultContinuation );
+	}
+
+	private FirebaseAuth getAuth() {
+		return (mAppName != null) ? FirebaseAuth.getInstance( FirebaseApp.getInstance( mAppName ) ) : FirebaseAuth.getInstance();
+	}
+
+	private static String getString( Uri uri ) {
+		return (uri != null) ? uri.toString() : null;
+	}
+
+}
@@ -18,12 +18,30 @@ package com.marpies.ane.firebase.auth.data;
 
 public class FirebaseAuthEvent {
 
+	public static final String READY = "ready";
+	public static final String INIT_ERROR = "initError";
+	public static final String APP_EVENT = "appEvent";
+
 	public static final String SIGN_IN_ERROR = "signInError";
 	public static final String SIGN_IN_SUCCESS = "signInSuccess";
 	public static final String AUTH_STATE_SIGN_IN = "authStateSignIn";
 	public static final String AUTH_STATE_SIGN_OFF = "authStateSignOff";
 
+	public static final String SIGN_IN_SUCCESS_BINARY = "signInSuccessBinary";
+	public static final String AUTH_STATE_SIGN_IN_BINARY = "authStateSignInBinary";
+
 	public static final String PROFILE_CHANGE_SUCCESS = "profileChangeSuccess";
 	public static final String PROFILE_CHANGE_ERROR = "profileChangeError";
+	public static final String USER_BATCH_UPDATE = "userBatchUpdate";
+	public static final String PROFILE_CHANGE_QUEUED = "profileChangeQueued";
+	public static final String PROFILE_JOURNAL_ENTRY = "profileJournalEntry";
+
+	public static final String ID_TOKEN_SUCCESS = "idTokenSuccess";
+	public static final String ID_TOKEN_ERROR = "idTokenError";
+
+	public static final String OPERATION_TIMEOUT = "operationTimeout";
+	public static final String INVALID_ARGUMENTS = "invalidArguments";
+
+	public static final String LOAD_TEST_COMPLETE = "loadTestComplete";
 
 }
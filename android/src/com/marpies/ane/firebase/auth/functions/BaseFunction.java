@@ -20,14 +20,109 @@ import com.adobe.fre.FREContext;
 import com.adobe.fre.FREFunction;
 import com.adobe.fre.FREObject;
 import com.marpies.ane.firebase.auth.FirebaseAuthExtensionContext;
+import com.marpies.ane.firebase.auth.data.FirebaseAuthEvent;
 import com.marpies.ane.firebase.auth.utils.AIR;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
+import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
+import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.OperationTracer;
+import com.marpies.ane.firebase.auth.utils.PendingOperations;
+import com.marpies.ane.firebase.auth.utils.StringUtils;
 
-public class BaseFunction implements FREFunction {
+import java.util.concurrent.atomic.AtomicLong;
+
+public abstract class BaseFunction implements FREFunction {
+
+	private final ArgumentSchema mSchema;
+	private String mName;
+
+	/* Instances are shared by all extension contexts, so the statistics do not rely on being updated by a single thread */
+	private final AtomicLong mCallCount = new AtomicLong();
+	private final AtomicLong mTotalNanos = new AtomicLong();
+
+	/**
+	 * @param argumentTypes Types of the arguments the function expects, see <code>ArgumentSchema</code>.
+	 */
+	protected BaseFunction( int... argumentTypes ) {
+		mSchema = new ArgumentSchema( argumentTypes );
+	}
 
 	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		AIR.setContext( (FirebaseAuthExtensionContext) context );
-		return null;
+	public final FREObject call( FREContext context, FREObject[] args ) {
+		long start = System.nanoTime();
+		if( AIR.getContext() != context ) {
+			AIR.setContext( (FirebaseAuthExtensionContext) context );
+		}
+		FREObject result = null;
+		Arguments arguments = mSchema.decode( args );
+		if( arguments != null ) {
+			int callbackId = arguments.getCallbackId();
+			if( mSchema.getCallbackIndex() >= 0 ) {
+				OperationTracer.begin( callbackId, getName() );
+				PendingOperations.begin( callbackId, getName() );
+			}
+			result = execute( context, arguments );
+		} else {
+			dispatchInvalidArguments( args );
+		}
+		mCallCount.incrementAndGet();
+		mTotalNanos.addAndGet( System.nanoTime() - start );
+		return result;
+	}
+
+	public String getName() {
+		return (mName != null) ? mName : getClass().getSimpleName();
+	}
+
+	/**
+	 * Sets name under which the function is registered, used when reporting metrics.
+	 */
+	void setName( String name ) {
+		mName = name;
+	}
+
+	public long getCallCount() {
+		return mCallCount.get();
+	}
+
+	public long getTotalNanos() {
+		return mTotalNanos.get();
+	}
+
+	/**
+	 * Returns helper of the app the call is made for. The app name may be passed
+	 * as an extra argument following all the arguments of the function's schema.
+	 */
+	protected FirebaseAuthHelper getHelper( Arguments args ) {
+		return FirebaseAuthHelper.getInstance( args.getAppName() );
+	}
+
+	/**
+	 * Executes the function with arguments that have been decoded according to the function's schema.
+	 * The arguments are only valid until the function returns.
+	 */
+	protected abstract FREObject execute( FREContext context, Arguments args );
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	/**
+	 * Logs the rejected call and, if the function takes a callback, reports the error
+	 * to the callback so that it does not wait (and stay registered) forever.
+	 */
+	private void dispatchInvalidArguments( FREObject[] args ) {
+		AIR.log( "Invalid arguments passed to {}", getName() );
+		int callbackIndex = mSchema.getCallbackIndex();
+		if( callbackIndex < 0 || args == null || args.length <= callbackIndex ) return;
+		int callbackId = FREObjectUtils.getInt( args[callbackIndex], -1 );
+		if( callbackId < 0 ) return;
+		AIR.dispatchEvent( FirebaseAuthEvent.INVALID_ARGUMENTS, StringUtils.getEventErrorJSON( callbackId, "Invalid arguments passed to " + getName() + "." ) );
 	}
 
 }
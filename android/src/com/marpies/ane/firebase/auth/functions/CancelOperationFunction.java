@@ -18,27 +18,29 @@ package com.marpies.ane.firebase.auth.functions;
 
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
-import com.google.firebase.auth.AuthCredential;
-import com.google.firebase.auth.FacebookAuthProvider;
+import com.adobe.fre.FREWrongThreadException;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
+import com.marpies.ane.firebase.auth.utils.PendingOperations;
 
-public class LinkWithFacebookFunction extends BaseFunction {
+public class CancelOperationFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
-
-		AIR.log( "FirebaseAuth::linkWithFacebook" );
-		String accessToken = FREObjectUtils.getString( args[0] );
-		final int callbackId = FREObjectUtils.getInt( args[1] );
-
-		AuthCredential credential = FacebookAuthProvider.getCredential( accessToken );
-		FirebaseAuthHelper.getInstance().linkWithCredential( credential, callbackId );
+	public CancelOperationFunction() {
+		super( ArgumentSchema.INT );
+	}
 
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		int callbackId = args.getInt( 0, -1 );
+		AIR.log( "FirebaseAuth::cancelOperation {}", callbackId );
+
+		try {
+			return FREObject.newObject( PendingOperations.cancel( callbackId ) );
+		} catch( FREWrongThreadException e ) {
+			e.printStackTrace();
+		}
 		return null;
 	}
 
 }
-
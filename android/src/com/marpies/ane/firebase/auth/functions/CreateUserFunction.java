@@ -16,36 +16,26 @@
 
 package com.marpies.ane.firebase.auth.functions;
 
-import android.support.annotation.NonNull;
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.Task;
-import com.google.firebase.auth.AuthResult;
-import com.google.firebase.auth.FirebaseAuth;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
 public class CreateUserFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
+	public CreateUserFunction() {
+		super( ArgumentSchema.STRING, ArgumentSchema.STRING, ArgumentSchema.CALLBACK_ID );
+	}
 
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
 		AIR.log( "FirebaseAuth::createUser" );
-		String email = FREObjectUtils.getString( args[0] );
-		String password = FREObjectUtils.getString( args[1] );
-		final int callbackId = FREObjectUtils.getInt( args[2] );
-
-		FirebaseAuth.getInstance()
-				.createUserWithEmailAndPassword( email, password )
-				.addOnCompleteListener( new OnCompleteListener<AuthResult>() {
-					@Override
-					public void onComplete( @NonNull Task<AuthResult> task ) {
-						FirebaseAuthHelper.getInstance().processAuthResponse( task, callbackId );
-					}
-				} );
+		String email = args.getString( 0 );
+		String password = args.getString( 1 );
+		final int callbackId = args.getCallbackId();
+
+		getHelper( args ).createUser( email, password, callbackId );
 
 		return null;
 	}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.functions;
+
+import com.adobe.fre.FREContext;
+import com.adobe.fre.FREObject;
+import com.google.firebase.auth.AuthCredential;
+import com.marpies.ane.firebase.auth.utils.AIR;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
+import com.marpies.ane.firebase.auth.utils.CredentialProviders;
+import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+
+/**
+ * Signs in, links or reauthenticates the user with a credential of one of the <code>CredentialProviders</code>.
+ * Generic functions take the provider ID as the first argument, followed by two credential arguments
+ * (the second one may be <code>null</code>) and the callback ID. Functions bound to a provider
+ * take only the provider's credential arguments and the callback ID.
+ */
+public class CredentialFunction extends BaseFunction {
+
+	/* Actions */
+	public static final int SIGN_IN = 0;
+	public static final int LINK = 1;
+	public static final int REAUTHENTICATE = 2;
+
+	private final int mAction;
+	private final CredentialProviders.Descriptor mProvider;
+
+	/**
+	 * Creates generic function that takes the provider ID as its first argument.
+	 */
+	public CredentialFunction( int action ) {
+		super( ArgumentSchema.STRING, ArgumentSchema.STRING, ArgumentSchema.NULLABLE_STRING, ArgumentSchema.CALLBACK_ID );
+		mAction = action;
+		mProvider = null;
+	}
+
+	/**
+	 * Creates function bound to the provider with the given ID.
+	 */
+	public CredentialFunction( int action, String providerId ) {
+		super( getArgumentTypes( CredentialProviders.get( providerId ) ) );
+		mAction = action;
+		mProvider = CredentialProviders.get( providerId );
+	}
+
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		AIR.log( "FirebaseAuth::{}", getName() );
+		FirebaseAuthHelper helper = getHelper( args );
+		CredentialProviders.Descriptor provider = mProvider;
+		int index = 0;
+		if( provider == null ) {
+			String providerId = args.getString( index++ );
+			provider = CredentialProviders.get( providerId );
+			if( provider == null ) {
+				dispatchError( helper, "Unsupported auth provider: " + providerId, args.getCallbackId() );
+				return null;
+			}
+		}
+		String first = args.getString( index++ );
+		String second = null;
+		if( mProvider == null || provider.getArgumentCount() > 1 ) {
+			second = args.getString( index++ );
+		}
+		final int callbackId = args.getCallbackId();
+
+		/* Email sign in is shared by concurrent calls with the same credentials */
+		if( mAction == SIGN_IN && CredentialProviders.EMAIL.equals( provider.getProviderId() ) ) {
+			helper.signInWithEmailAndPassword( first, second, callbackId );
+			return null;
+		}
+
+		AuthCredential credential = provider.getCredential( first, second );
+		switch( mAction ) {
+			case SIGN_IN:
+				helper.signInWithCredential( credential, callbackId );
+				break;
+			case LINK:
+				helper.linkWithCredential( credential, callbackId );
+				break;
+			default:
+				helper.reauthenticateWithCredential( credential, callbackId );
+				break;
+		}
+
+		return null;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private void dispatchError( FirebaseAuthHelper helper, String errorMessage, int callbackId ) {
+		AIR.log( callbackId, "{}", errorMessage );
+		if( mAction == REAUTHENTICATE ) {
+			helper.dispatchProfileChangeErrorResponse( errorMessage, callbackId );
+		} else {
+			helper.dispatchAuthErrorResponse( errorMessage, callbackId );
+		}
+	}
+
+	private static int[] getArgumentTypes( CredentialProviders.Descriptor provider ) {
+		if( provider.getArgumentCount() > 1 ) {
+			return new int[] { ArgumentSchema.STRING, ArgumentSchema.STRING, ArgumentSchema.CALLBACK_ID };
+		}
+		return new int[] { ArgumentSchema.STRING, ArgumentSchema.CALLBACK_ID };
+	}
+
+}
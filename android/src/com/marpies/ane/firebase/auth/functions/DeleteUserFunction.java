@@ -19,19 +19,21 @@ package com.marpies.ane.firebase.auth.functions;
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
 public class DeleteUserFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
+	public DeleteUserFunction() {
+		super( ArgumentSchema.CALLBACK_ID );
+	}
 
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
 		AIR.log( "FirebaseAuth::deleteUser" );
-		final int callbackId = FREObjectUtils.getInt( args[0] );
+		final int callbackId = args.getCallbackId();
 
-		FirebaseAuthHelper.getInstance().deleteUser( callbackId );
+		getHelper( args ).deleteUser( callbackId );
 
 		return null;
 	}
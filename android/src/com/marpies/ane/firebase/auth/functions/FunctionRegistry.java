@@ -0,0 +1,237 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.functions;
+
+import com.adobe.fre.FREFunction;
+import com.marpies.ane.firebase.auth.utils.AuthExecutors;
+import com.marpies.ane.firebase.auth.utils.CredentialProviders;
+import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.OperationScheduler;
+import com.marpies.ane.firebase.auth.utils.PendingOperations;
+import com.marpies.ane.firebase.auth.utils.RateLimiter;
+import com.marpies.ane.firebase.auth.utils.RetryEngine;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Table of the extension's functions. The functions are stateless so the table
+ * is built once and shared by all extension contexts. Functions meant for debugging,
+ * such as the load test, are only present in the table of debuggable apps.
+ */
+public class FunctionRegistry {
+
+	private static final String[] NAMES = {
+		"init",
+		"createUser",
+		"signInWithFacebookAccount",
+		"signInWithGoogleAccount",
+		"signInWithEmailAndPassword",
+		"signInWithTwitterAccount",
+		"signInWithGithubAccount",
+		"signInAnonymously",
+		"linkWithFacebookAccount",
+		"linkWithGoogleAccount",
+		"linkWithEmailAccount",
+		"linkWithTwitterAccount",
+		"linkWithGithubAccount",
+		"reauthWithFacebookAccount",
+		"reauthWithGoogleAccount",
+		"reauthWithEmailAccount",
+		"reauthWithTwitterAccount",
+		"reauthWithGithubAccount",
+		"unlinkFromProvider",
+		"updateEmail",
+		"updatePassword",
+		"deleteUser",
+		"changeUserProfile",
+		"signOut",
+		"getEventPayload",
+		"setAuthStateCoalescingWindow",
+		"getAuthStateStats",
+		"setEventBatching",
+		"flushEvents",
+		"getFunctionStats",
+		"setCompletionOnMainThread",
+		"getMetrics",
+		"getIdToken",
+		"updateUserBatch",
+		"cancelOperation",
+		"setOperationTimeout",
+		"dumpLogs",
+		"setLogBufferEnabled",
+		"signInWithProvider",
+		"linkWithProvider",
+		"reauthWithProvider",
+		"linkWithEmailAndPassword",
+		"reauthWithEmailAndPassword",
+		"setMaxConcurrentOperations",
+		"setRateLimit",
+		"setProfileJournalEnabled"
+	};
+
+	private static final BaseFunction[] FUNCTIONS = {
+		new InitFunction(),
+		new CreateUserFunction(),
+		new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.FACEBOOK ),
+		new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.GOOGLE ),
+		new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.EMAIL ),
+		new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.TWITTER ),
+		new CredentialFunction( CredentialFunction.SIGN_IN, CredentialProviders.GITHUB ),
+		new SignInAnonymouslyFunction(),
+		new CredentialFunction( CredentialFunction.LINK, CredentialProviders.FACEBOOK ),
+		new CredentialFunction( CredentialFunction.LINK, CredentialProviders.GOOGLE ),
+		new CredentialFunction( CredentialFunction.LINK, CredentialProviders.EMAIL ),
+		new CredentialFunction( CredentialFunction.LINK, CredentialProviders.TWITTER ),
+		new CredentialFunction( CredentialFunction.LINK, CredentialProviders.GITHUB ),
+		new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.FACEBOOK ),
+		new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.GOOGLE ),
+		new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.EMAIL ),
+		new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.TWITTER ),
+		new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.GITHUB ),
+		new UnlinkFromProviderFunction(),
+		new UpdateEmailFunction(),
+		new UpdatePasswordFunction(),
+		new DeleteUserFunction(),
+		new UpdateUserProfileFunction(),
+		new SignOutFunction(),
+		new GetEventPayloadFunction(),
+		new SetAuthStateCoalescingWindowFunction(),
+		new GetAuthStateStatsFunction(),
+		new SetEventBatchingFunction(),
+		new FlushEventsFunction(),
+		new GetFunctionStatsFunction(),
+		new SetCompletionOnMainThreadFunction(),
+		new GetMetricsFunction(),
+		new GetIdTokenFunction(),
+		new UpdateUserBatchFunction(),
+		new CancelOperationFunction(),
+		new SetOperationTimeoutFunction(),
+		new DumpLogsFunction(),
+		new SetLogBufferEnabledFunction(),
+		new CredentialFunction( CredentialFunction.SIGN_IN ),
+		new CredentialFunction( CredentialFunction.LINK ),
+		new CredentialFunction( CredentialFunction.REAUTHENTICATE ),
+		/* Names used by the AS library (and the iOS implementation) for email link and reauthentication */
+		new CredentialFunction( CredentialFunction.LINK, CredentialProviders.EMAIL ),
+		new CredentialFunction( CredentialFunction.REAUTHENTICATE, CredentialProviders.EMAIL ),
+		new SetMaxConcurrentOperationsFunction(),
+		new SetRateLimitFunction(),
+		new SetProfileJournalEnabledFunction()
+	};
+
+	private static final String[] DEBUG_NAMES = {
+		"runLoadTest"
+	};
+
+	private static final BaseFunction[] DEBUG_FUNCTIONS = {
+		new RunLoadTestFunction()
+	};
+
+	private static final Map<String, FREFunction> mFunctionMap = createFunctionMap( false );
+	private static final Map<String, FREFunction> mDebugFunctionMap = createFunctionMap( true );
+
+	private static int mContextCount;
+	private static long mFirstContextNanos;
+	private static long mLastContextNanos;
+
+	/**
+	 * @param debuggable <code>true</code> if the app is debuggable and the debugging functions should be included.
+	 */
+	public static Map<String, FREFunction> getFunctions( boolean debuggable ) {
+		return debuggable ? mDebugFunctionMap : mFunctionMap;
+	}
+
+	/**
+	 * Records time it took to provide functions for a new extension context.
+	 */
+	public static synchronized void recordContextCreation( long nanos ) {
+		if( mContextCount++ == 0 ) {
+			mFirstContextNanos = nanos;
+		}
+		mLastContextNanos = nanos;
+	}
+
+	/**
+	 * Returns JSON with context creation times, time spent handling Task completions on the main
+	 * and background threads, retry counts, and number of calls and time spent in each function.
+	 */
+	public static synchronized String getStatsJSON() {
+		RetryEngine retryEngine = FirebaseAuthHelper.getInstance().getRetryEngine();
+		StringBuilder builder = new StringBuilder( 1024 );
+		builder.append( "{\"contextCount\":" ).append( mContextCount )
+				.append( ",\"firstContextNanos\":" ).append( mFirstContextNanos )
+				.append( ",\"lastContextNanos\":" ).append( mLastContextNanos )
+				.append( ",\"mainThreadCompletionNanos\":" ).append( AuthExecutors.getMainThreadNanos() )
+				.append( ",\"backgroundCompletionNanos\":" ).append( AuthExecutors.getBackgroundNanos() )
+				.append( ",\"retries\":" ).append( retryEngine.getRetryCount() )
+				.append( ",\"rejectedByCircuitBreaker\":" ).append( retryEngine.getCircuitBreaker().getRejectedCount() )
+				.append( ",\"pendingOperations\":" ).append( PendingOperations.getStatsJSON() )
+				.append( ",\"scheduler\":" ).append( OperationScheduler.getInstance().getStatsJSON() )
+				.append( ",\"rateLimiter\":" ).append( RateLimiter.getInstance().getStatsJSON() )
+				.append( ",\"functions\":{" );
+		boolean first = appendFunctionStats( builder, NAMES, FUNCTIONS, true );
+		appendFunctionStats( builder, DEBUG_NAMES, DEBUG_FUNCTIONS, first );
+		builder.append( "}}" );
+		return builder.toString();
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static Map<String, FREFunction> createFunctionMap( boolean debuggable ) {
+		Map<String, FREFunction> functions = new HashMap<String, FREFunction>( (NAMES.length + DEBUG_NAMES.length) * 2 );
+		addFunctions( functions, NAMES, FUNCTIONS );
+		if( debuggable ) {
+			addFunctions( functions, DEBUG_NAMES, DEBUG_FUNCTIONS );
+		}
+		return Collections.unmodifiableMap( functions );
+	}
+
+	private static void addFunctions( Map<String, FREFunction> functions, String[] names, BaseFunction[] instances ) {
+		for( int i = 0; i < names.length; i++ ) {
+			instances[i].setName( names[i] );
+			functions.put( names[i], instances[i] );
+		}
+	}
+
+	/**
+	 * Appends stats of the functions that have been called, returns <code>true</code> if nothing has been appended
+	 * and there was nothing appended before.
+	 */
+	private static boolean appendFunctionStats( StringBuilder builder, String[] names, BaseFunction[] functions, boolean first ) {
+		for( int i = 0; i < functions.length; i++ ) {
+			BaseFunction function = functions[i];
+			long calls = function.getCallCount();
+			if( calls == 0 ) continue;
+			if( !first ) {
+				builder.append( ',' );
+			}
+			first = false;
+			builder.append( '"' ).append( names[i] ).append( "\":{\"calls\":" ).append( calls )
+					.append( ",\"totalNanos\":" ).append( function.getTotalNanos() ).append( '}' );
+		}
+		return first;
+	}
+
+}
@@ -18,24 +18,23 @@ package com.marpies.ane.firebase.auth.functions;
 
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
-import com.google.firebase.auth.AuthCredential;
-import com.google.firebase.auth.GithubAuthProvider;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
-public class LinkWithGithubFunction extends BaseFunction {
+public class GetIdTokenFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
+	public GetIdTokenFunction() {
+		super( ArgumentSchema.BOOLEAN, ArgumentSchema.CALLBACK_ID );
+	}
 
-		AIR.log( "FirebaseAuth::linkWithGithub" );
-		String accessToken = FREObjectUtils.getString( args[0] );
-		final int callbackId = FREObjectUtils.getInt( args[1] );
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		AIR.log( "FirebaseAuth::getIdToken" );
+		boolean forceRefresh = args.getBoolean( 0, false );
+		final int callbackId = args.getCallbackId();
 
-		AuthCredential credential = GithubAuthProvider.getCredential( accessToken );
-		FirebaseAuthHelper.getInstance().linkWithCredential( credential, callbackId );
+		getHelper( args ).getIdToken( forceRefresh, callbackId );
 
 		return null;
 	}
@@ -18,22 +18,52 @@ package com.marpies.ane.firebase.auth.functions;
 
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
-import com.google.firebase.auth.FirebaseAuth;
+import com.adobe.fre.FREWrongThreadException;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
 
 public class InitFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
+	public InitFunction() {
+		super( ArgumentSchema.BOOLEAN, ArgumentSchema.BOOLEAN | ArgumentSchema.OPTIONAL );
+	}
 
-		boolean showLogs = FREObjectUtils.getBoolean( args[0] );
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		boolean showLogs = args.getBoolean( 0, false );
+		boolean binaryPayloads = args.getBoolean( 1, false );
 		AIR.setLogEnabled( showLogs );
 		AIR.log( "FirebaseAuth::init" );
-		FirebaseAuth.getInstance().addAuthStateListener( FirebaseAuthHelper.getInstance() );
+		String appName = args.getAppName();
+		if( appName != null && !FirebaseAuthHelper.hasApp( appName ) ) {
+			/* No helper is created for the app, AS reports the error */
+			AIR.log( "FirebaseApp {} has not been configured", appName );
+			try {
+				return FREObject.newObject( false );
+			} catch( FREWrongThreadException e ) {
+				e.printStackTrace();
+			}
+			return null;
+		}
+		FirebaseAuthHelper helper = getHelper( args );
+		helper.setBinaryPayloadsEnabled( binaryPayloads );
+		helper.resetAuthState();
+		/* Last known user is returned right away, the auth state listener reports the actual one later.
+		 * The snapshot is read in the background, for the default app as soon as the context is created.
+		 * Init still waits for that read, as its return value is the snapshot, but it has usually finished by now. */
+		String userJSON = helper.restoreUser( context.getActivity().getFilesDir() );
+		/* FirebaseAuth is set up in the background, the READY event is dispatched when done */
+		helper.getInitializer().start();
 
+		if( userJSON != null ) {
+			try {
+				return FREObject.newObject( userJSON );
+			} catch( FREWrongThreadException e ) {
+				e.printStackTrace();
+			}
+		}
 		return null;
 	}
 
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.functions;
+
+import com.adobe.fre.FREContext;
+import com.adobe.fre.FREObject;
+import com.marpies.ane.firebase.auth.data.FirebaseAuthEvent;
+import com.marpies.ane.firebase.auth.loadtest.LoadTestRunner;
+import com.marpies.ane.firebase.auth.utils.AIR;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
+
+/**
+ * Registered in debuggable apps only, see <code>FunctionRegistry</code>.
+ */
+public class RunLoadTestFunction extends BaseFunction {
+
+	public RunLoadTestFunction() {
+		/* The callback ID is a plain int, the test is not an operation that may time out */
+		super( ArgumentSchema.INT, ArgumentSchema.INT, ArgumentSchema.INT, ArgumentSchema.INT, ArgumentSchema.INT );
+	}
+
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		AIR.log( "FirebaseAuth::runLoadTest" );
+		int operations = args.getInt( 0, 0 );
+		int concurrency = args.getInt( 1, 1 );
+		int latency = args.getInt( 2, 0 );
+		int failurePercent = args.getInt( 3, 0 );
+		final int callbackId = args.getInt( 4, -1 );
+
+		final LoadTestRunner runner = new LoadTestRunner( operations, concurrency, latency, failurePercent / 100.0 );
+		/* The runner blocks until the operations complete */
+		new Thread( new Runnable() {
+			@Override
+			public void run() {
+				String report = runner.run();
+				AIR.dispatchEvent( FirebaseAuthEvent.LOAD_TEST_COMPLETE, "{\"callbackId\":" + callbackId + ",\"report\":" + report + "}" );
+			}
+		}, "FirebaseAuthLoadTest" ).start();
+
+		return null;
+	}
+
+}
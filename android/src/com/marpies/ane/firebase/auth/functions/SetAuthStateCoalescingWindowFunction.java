@@ -18,27 +18,23 @@ package com.marpies.ane.firebase.auth.functions;
 
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
-import com.google.firebase.auth.AuthCredential;
-import com.google.firebase.auth.GithubAuthProvider;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
-public class SignInWithGithubFunction extends BaseFunction {
+public class SetAuthStateCoalescingWindowFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
-
-		AIR.log( "FirebaseAuth::signInWithGithub" );
-		String accessToken = FREObjectUtils.getString( args[0] );
-		final int callbackId = FREObjectUtils.getInt( args[1] );
+	public SetAuthStateCoalescingWindowFunction() {
+		super( ArgumentSchema.INT );
+	}
 
-		AuthCredential credential = GithubAuthProvider.getCredential( accessToken );
-		FirebaseAuthHelper.getInstance().signInWithCredential( credential, callbackId );
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		int window = args.getInt( 0, -1 );
+		AIR.log( "FirebaseAuth::setAuthStateCoalescingWindow {}", window );
+		getHelper( args ).getAuthStateCoalescer().setWindow( window );
 
 		return null;
 	}
 
 }
-
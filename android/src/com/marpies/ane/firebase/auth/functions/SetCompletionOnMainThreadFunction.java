@@ -18,27 +18,24 @@ package com.marpies.ane.firebase.auth.functions;
 
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
-import com.google.firebase.auth.AuthCredential;
-import com.google.firebase.auth.FacebookAuthProvider;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
+import com.marpies.ane.firebase.auth.utils.AuthExecutors;
 
-public class SignInWithFacebookFunction extends BaseFunction {
+public class SetCompletionOnMainThreadFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
-
-		AIR.log( "FirebaseAuth::signInWithFacebook" );
-		String accessToken = FREObjectUtils.getString( args[0] );
-		final int callbackId = FREObjectUtils.getInt( args[1] );
+	public SetCompletionOnMainThreadFunction() {
+		super( ArgumentSchema.BOOLEAN );
+	}
 
-		AuthCredential credential = FacebookAuthProvider.getCredential( accessToken );
-		FirebaseAuthHelper.getInstance().signInWithCredential( credential, callbackId );
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		boolean mainThread = args.getBoolean( 0, false );
+		AIR.log( "FirebaseAuth::setCompletionOnMainThread {}", mainThread );
+		AuthExecutors.setCompletionExecutor( mainThread ? AuthExecutors.getMainThreadExecutor() : null );
 
 		return null;
 	}
 
 }
-
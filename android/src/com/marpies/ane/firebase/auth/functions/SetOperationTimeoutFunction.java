@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.functions;
+
+import com.adobe.fre.FREContext;
+import com.adobe.fre.FREObject;
+import com.marpies.ane.firebase.auth.utils.AIR;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
+import com.marpies.ane.firebase.auth.utils.PendingOperations;
+
+public class SetOperationTimeoutFunction extends BaseFunction {
+
+	public SetOperationTimeoutFunction() {
+		super( ArgumentSchema.INT, ArgumentSchema.NULLABLE_STRING | ArgumentSchema.OPTIONAL );
+	}
+
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		int timeout = args.getInt( 0, 0 );
+		String name = args.getString( 1 );
+		AIR.log( "FirebaseAuth::setOperationTimeout {} operation: {}", timeout, name );
+		PendingOperations.setTimeout( name, timeout );
+
+		return null;
+	}
+
+}
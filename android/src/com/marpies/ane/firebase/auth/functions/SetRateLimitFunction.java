@@ -18,27 +18,27 @@ package com.marpies.ane.firebase.auth.functions;
 
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
-import com.google.firebase.auth.AuthCredential;
-import com.google.firebase.auth.GithubAuthProvider;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
+import com.marpies.ane.firebase.auth.utils.RateLimiter;
 
-public class ReauthenticateWithGithubFunction extends BaseFunction {
+public class SetRateLimitFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
-
-		AIR.log( "FirebaseAuth::reauthenticateWithGithub" );
-		String accessToken = FREObjectUtils.getString( args[0] );
-		final int callbackId = FREObjectUtils.getInt( args[1] );
+	public SetRateLimitFunction() {
+		super( ArgumentSchema.STRING, ArgumentSchema.INT, ArgumentSchema.INT, ArgumentSchema.BOOLEAN );
+	}
 
-		AuthCredential credential = GithubAuthProvider.getCredential( accessToken );
-		FirebaseAuthHelper.getInstance().reauthenticateWithCredential( credential, callbackId );
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		String operation = args.getString( 0 );
+		int burst = args.getInt( 1, 0 );
+		int callsPerMinute = args.getInt( 2, 0 );
+		boolean delay = args.getBoolean( 3, false );
+		AIR.log( "FirebaseAuth::setRateLimit {} burst: {}", operation, burst );
+		RateLimiter.getInstance().setLimit( operation, burst, callsPerMinute, delay );
 
 		return null;
 	}
 
 }
-
@@ -16,34 +16,24 @@
 
 package com.marpies.ane.firebase.auth.functions;
 
-import android.support.annotation.NonNull;
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.Task;
-import com.google.firebase.auth.AuthResult;
-import com.google.firebase.auth.FirebaseAuth;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
 public class SignInAnonymouslyFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
+	public SignInAnonymouslyFunction() {
+		super( ArgumentSchema.CALLBACK_ID );
+	}
 
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
 		AIR.log( "FirebaseAuth::signInWithAnonymously" );
-		final int callbackId = FREObjectUtils.getInt( args[0] );
-
-		FirebaseAuth.getInstance()
-				.signInAnonymously()
-				.addOnCompleteListener( new OnCompleteListener<AuthResult>() {
-					@Override
-					public void onComplete( @NonNull Task<AuthResult> task ) {
-						FirebaseAuthHelper.getInstance().processAuthResponse( task, callbackId );
-					}
-				} );
+		final int callbackId = args.getCallbackId();
+
+		getHelper( args ).signInAnonymously( callbackId );
 
 		return null;
 	}
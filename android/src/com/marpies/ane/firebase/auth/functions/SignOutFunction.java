@@ -19,18 +19,16 @@ package com.marpies.ane.firebase.auth.functions;
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
 import com.adobe.fre.FREWrongThreadException;
-import com.google.firebase.auth.FirebaseAuth;
 import com.marpies.ane.firebase.auth.utils.AIR;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
 public class SignOutFunction extends BaseFunction {
 
 	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
-
+	protected FREObject execute( FREContext context, Arguments args ) {
 		try {
 			AIR.log( "FirebaseAuth::signOut" );
-			FirebaseAuth.getInstance().signOut();
+			getHelper( args ).signOut();
 			return FREObject.newObject( true );
 		} catch( FREWrongThreadException e ) {
 			e.printStackTrace();
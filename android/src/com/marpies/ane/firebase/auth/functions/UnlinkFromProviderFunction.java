@@ -19,20 +19,22 @@ package com.marpies.ane.firebase.auth.functions;
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
 public class UnlinkFromProviderFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
+	public UnlinkFromProviderFunction() {
+		super( ArgumentSchema.STRING, ArgumentSchema.CALLBACK_ID );
+	}
 
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
 		AIR.log( "FirebaseAuth::unlinkFromProvider" );
-		String providerId = FREObjectUtils.getString( args[0] );
-		final int callbackId = FREObjectUtils.getInt( args[1] );
+		String providerId = args.getString( 0 );
+		final int callbackId = args.getCallbackId();
 
-		FirebaseAuthHelper.getInstance().unlinkFromProvider( providerId, callbackId );
+		getHelper( args ).unlinkFromProvider( providerId, callbackId );
 
 		return null;
 	}
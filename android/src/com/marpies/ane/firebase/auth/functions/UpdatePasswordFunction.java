@@ -19,20 +19,22 @@ package com.marpies.ane.firebase.auth.functions;
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
 public class UpdatePasswordFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
+	public UpdatePasswordFunction() {
+		super( ArgumentSchema.STRING, ArgumentSchema.CALLBACK_ID );
+	}
 
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
 		AIR.log( "FirebaseAuth::updatePassword" );
-		String password = FREObjectUtils.getString( args[0] );
-		final int callbackId = FREObjectUtils.getInt( args[1] );
+		String password = args.getString( 0 );
+		final int callbackId = args.getCallbackId();
 
-		FirebaseAuthHelper.getInstance().updatePassword( password, callbackId );
+		getHelper( args ).updatePassword( password, callbackId );
 
 		return null;
 	}
@@ -18,28 +18,28 @@ package com.marpies.ane.firebase.auth.functions;
 
 import com.adobe.fre.FREContext;
 import com.adobe.fre.FREObject;
-import com.google.firebase.auth.AuthCredential;
-import com.google.firebase.auth.EmailAuthProvider;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
-public class LinkWithEmailFunction extends BaseFunction {
+public class UpdateUserBatchFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
+	public UpdateUserBatchFunction() {
+		super( ArgumentSchema.NULLABLE_STRING, ArgumentSchema.NULLABLE_STRING, ArgumentSchema.NULLABLE_STRING, ArgumentSchema.NULLABLE_STRING, ArgumentSchema.CALLBACK_ID );
+	}
 
-		AIR.log( "FirebaseAuth::linkWithEmail" );
-		String email = FREObjectUtils.getString( args[0] );
-		String password = FREObjectUtils.getString( args[1] );
-		final int callbackId = FREObjectUtils.getInt( args[2] );
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
+		AIR.log( "FirebaseAuth::updateUserBatch" );
+		String email = args.getString( 0 );
+		String password = args.getString( 1 );
+		String displayName = args.getString( 2 );
+		String photoURL = args.getString( 3 );
+		final int callbackId = args.getCallbackId();
 
-		AuthCredential credential = EmailAuthProvider.getCredential( email, password );
-		FirebaseAuthHelper.getInstance().linkWithCredential( credential, callbackId );
+		getHelper( args ).updateUserBatch( email, password, displayName, photoURL, callbackId );
 
 		return null;
 	}
 
 }
-
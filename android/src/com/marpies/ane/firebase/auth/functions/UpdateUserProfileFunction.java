@@ -21,21 +21,23 @@ import com.adobe.fre.FREObject;
 import com.google.firebase.auth.AuthCredential;
 import com.google.firebase.auth.GoogleAuthProvider;
 import com.marpies.ane.firebase.auth.utils.AIR;
-import com.marpies.ane.firebase.auth.utils.FREObjectUtils;
-import com.marpies.ane.firebase.auth.utils.FirebaseAuthHelper;
+import com.marpies.ane.firebase.auth.utils.ArgumentSchema;
+import com.marpies.ane.firebase.auth.utils.Arguments;
 
 public class UpdateUserProfileFunction extends BaseFunction {
 
-	@Override
-	public FREObject call( FREContext context, FREObject[] args ) {
-		super.call( context, args );
+	public UpdateUserProfileFunction() {
+		super( ArgumentSchema.NULLABLE_STRING, ArgumentSchema.NULLABLE_STRING, ArgumentSchema.CALLBACK_ID );
+	}
 
+	@Override
+	protected FREObject execute( FREContext context, Arguments args ) {
 		AIR.log( "FirebaseAuth::updateUserProfile" );
-		String displayName = (args[0] != null) ? FREObjectUtils.getString( args[0] ) : null;
-		String photoURL = (args[1] != null) ? FREObjectUtils.getString( args[1] ) : null;
-		final int callbackId = FREObjectUtils.getInt( args[2] );
+		String displayName = args.getString( 0 );
+		String photoURL = args.getString( 1 );
+		final int callbackId = args.getCallbackId();
 
-		FirebaseAuthHelper.getInstance().updateUserProfile( displayName, photoURL, callbackId );
+		getHelper( args ).updateUserProfile( displayName, photoURL, callbackId );
 
 		return null;
 	}
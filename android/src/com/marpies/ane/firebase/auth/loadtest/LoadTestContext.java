@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.loadtest;
+
+import com.marpies.ane.firebase.auth.FirebaseAuthExtensionContext;
+
+/**
+ * Extension context that hands events to the load test runner instead of sending them to AS.
+ */
+class LoadTestContext extends FirebaseAuthExtensionContext {
+
+	interface EventListener {
+		void onEvent( String code, String level );
+	}
+
+	private final EventListener mListener;
+
+	LoadTestContext( EventListener listener ) {
+		mListener = listener;
+	}
+
+	@Override
+	public void dispatchStatusEventAsync( String code, String level ) {
+		mListener.onEvent( code, level );
+	}
+
+	@Override
+	public void dispose() {
+		/* Nothing to release, the runner stops sending events here when it finishes */
+	}
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.loadtest;
+
+import com.marpies.ane.firebase.auth.backend.AuthBackend;
+import com.marpies.ane.firebase.auth.backend.FakeAuthBackend;
+import com.marpies.ane.firebase.auth.data.FirebaseAuthEvent;
+import com.marpies.ane.firebase.auth.utils.*;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the extension with a mix of simulated operations (reauthentication, profile edits,
+ * link and unlink chains and token requests) against a <code>FakeAuthBackend</code>.
+ * Up to the given number of operations are in flight at once. Events are intercepted by
+ * a <code>LoadTestContext</code> instead of being sent to AS.
+ *
+ * <p>The runner blocks until the operations complete, so it must run on its own thread.
+ * Operations are started through <code>FirebaseAuthHelper</code> rather than the FRE functions,
+ * since FRE objects cannot be created outside of an FRE call. Only one test runs at a time.</p>
+ *
+ * <p>The test runs with its own <code>RetryEngine</code> without rate limits, so that the simulated
+ * failures do not open the circuit breaker of the real traffic. The operations are not traced
+ * by <code>OperationTracer</code>, their latencies are only part of the report.</p>
+ */
+public class LoadTestRunner implements LoadTestContext.EventListener {
+
+	/* Callback IDs used by the runner, far above those generated by AS */
+	private static final int FIRST_CALLBACK_ID = 1 << 30;
+
+	/* Maximum time (in milliseconds) to wait for a free slot or the last operations */
+	private static final long STALL_TIMEOUT = 10 * 1000;
+
+	private static final String EMAIL = "loadtest@example.com";
+	private static final String PASSWORD = "loadtest-password";
+	private static final int OPERATION_MIX = 5;
+
+	private static final AtomicBoolean mRunning = new AtomicBoolean();
+
+	private final int mOperationCount;
+	private final int mConcurrency;
+	private final long mLatency;
+	private final double mFailureRate;
+
+	private final LoadTestContext mContext = new LoadTestContext( this );
+	private final Map<Integer, Long> mPending = new ConcurrentHashMap<Integer, Long>();
+	private final ConcurrentHashMap<String, AtomicInteger> mEventCounts = new ConcurrentHashMap<String, AtomicInteger>();
+	private final AtomicInteger mErrorCount = new AtomicInteger();
+	private final AtomicInteger mCompletedCount = new AtomicInteger();
+	private final Semaphore mSlots;
+
+	private volatile LatencyHistogram mLatencies = new LatencyHistogram();
+	private FirebaseAuthHelper mHelper;
+	private int mNextCallbackId = FIRST_CALLBACK_ID;
+	private boolean mStalled;
+
+	/**
+	 * @param operationCount Number of operations to run.
+	 * @param concurrency    Maximum number of operations in flight.
+	 * @param latency        Latency (in milliseconds) of the fake backend, actual values vary between half and the full value.
+	 * @param failureRate    Probability (<code>0</code> to <code>1</code>) of a simulated network failure.
+	 */
+	public LoadTestRunner( int operationCount, int concurrency, long latency, double failureRate ) {
+		mOperationCount = Math.max( 0, operationCount );
+		mConcurrency = Math.max( 1, concurrency );
+		mLatency = Math.max( 0, latency );
+		mFailureRate = failureRate;
+		mSlots = new Semaphore( mConcurrency );
+	}
+
+	/**
+	 * Runs the test and returns JSON report with throughput, latency percentiles (in microseconds),
+	 * number of dispatched events per event code and approximate change of the used heap.
+	 */
+	public String run() {
+		FirebaseAuthHelper helper = FirebaseAuthHelper.getInstance();
+		if( !helper.getInitializer().isReady() ) {
+			return "{\"error\":\"Extension is not initialized yet.\"}";
+		}
+		if( !mRunning.compareAndSet( false, true ) ) {
+			return "{\"error\":\"Another load test is in progress.\"}";
+		}
+		try {
+			return runExclusive( helper );
+		} finally {
+			mRunning.set( false );
+		}
+	}
+
+	@Override
+	public void onEvent( String code, String level ) {
+		if( AIR.EVENT_BATCH.equals( code ) ) {
+			onEventBatch( level );
+			return;
+		}
+		AtomicInteger count = mEventCounts.get( code );
+		if( count == null ) {
+			count = new AtomicInteger();
+			AtomicInteger existing = mEventCounts.putIfAbsent( code, count );
+			if( existing != null ) {
+				count = existing;
+			}
+		}
+		count.incrementAndGet();
+
+		int callbackId = getCallbackId( code, level );
+		Long started = (callbackId >= 0) ? mPending.remove( callbackId ) : null;
+		if( started == null ) {
+			return;
+		}
+		mLatencies.record( (System.nanoTime() - started) / 1000 );
+		if( FirebaseAuthEvent.SIGN_IN_ERROR.equals( code ) || FirebaseAuthEvent.PROFILE_CHANGE_ERROR.equals( code ) || FirebaseAuthEvent.ID_TOKEN_ERROR.equals( code ) || FirebaseAuthEvent.OPERATION_TIMEOUT.equals( code ) ) {
+			mErrorCount.incrementAndGet();
+		}
+		mCompletedCount.incrementAndGet();
+		mSlots.release();
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private String runExclusive( FirebaseAuthHelper helper ) {
+		/* Remember what to restore */
+		AuthBackend backend = helper.getBackend();
+		EventBatcher batcher = AIR.getEventBatcher();
+		boolean batching = batcher.isEnabled();
+		long batchingInterval = batcher.getInterval();
+		boolean persistence = helper.isPersistenceEnabled();
+		RetryEngine retryEngine = helper.getRetryEngine();
+
+		FakeAuthBackend fakeBackend = new FakeAuthBackend( 0 );
+		fakeBackend.setLatency( mLatency / 2, mLatency );
+		/* Queued events still go to AS */
+		batcher.setEnabled( false, 0 );
+		helper.setPersistenceEnabled( false );
+		/* Context first, so that the fake user reported by the new backend does not reach AS */
+		AIR.setContextOverride( mContext );
+		/* The fake backend has no quotas and the test measures the extension, not the limits */
+		helper.setRetryEngine( new RetryEngine( null ) );
+		helper.setBackend( fakeBackend );
+		mHelper = helper;
+
+		Runtime runtime = Runtime.getRuntime();
+		long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+		long start = System.nanoTime();
+		String report;
+		try {
+			/* Every operation needs a signed in user */
+			mSlots.acquire();
+			mHelper.createUser( EMAIL, PASSWORD, begin( "createUser" ) );
+			awaitAll();
+
+			/* Warm up is not part of the results */
+			mLatencies = new LatencyHistogram();
+			mCompletedCount.set( 0 );
+			mErrorCount.set( 0 );
+			mEventCounts.clear();
+			fakeBackend.setFailureRate( mFailureRate );
+
+			start = System.nanoTime();
+			for( int i = 0; i < mOperationCount && !mStalled; i++ ) {
+				startOperation( i );
+			}
+			awaitAll();
+		} catch( InterruptedException e ) {
+			e.printStackTrace();
+			mStalled = true;
+		} finally {
+			long duration = System.nanoTime() - start;
+			long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+			/* Operations that did not finish are abandoned: their retries stop, queued ones are skipped
+			 * and their scheduler slots are released. Those already started keep the fake backend. */
+			for( Integer callbackId : mPending.keySet() ) {
+				PendingOperations.cancel( callbackId );
+			}
+			fakeBackend.shutdown();
+			/* Restore in the reverse order */
+			helper.setBackend( backend );
+			helper.setRetryEngine( retryEngine );
+			AIR.setContextOverride( null );
+			helper.setPersistenceEnabled( persistence );
+			batcher.setEnabled( batching, batchingInterval );
+
+			report = getReportJSON( duration, heapAfter - heapBefore );
+		}
+		return report;
+	}
+
+	private void startOperation( int index ) throws InterruptedException {
+		if( !mSlots.tryAcquire( STALL_TIMEOUT, TimeUnit.MILLISECONDS ) ) {
+			mStalled = true;
+			return;
+		}
+		switch( index % OPERATION_MIX ) {
+			case 0:
+				mHelper.reauthenticateWithCredential( CredentialProviders.get( CredentialProviders.EMAIL ).getCredential( EMAIL, PASSWORD ), begin( "reauthWithEmailAccount" ) );
+				break;
+			case 1:
+				mHelper.updateUserProfile( "Load Test " + index, null, begin( "changeUserProfile" ) );
+				break;
+			case 2:
+				mHelper.linkWithCredential( CredentialProviders.get( CredentialProviders.GITHUB ).getCredential( "loadtest-token", null ), begin( "linkWithGithubAccount" ) );
+				break;
+			case 3:
+				mHelper.unlinkFromProvider( CredentialProviders.GITHUB, begin( "unlinkFromProvider" ) );
+				break;
+			default:
+				mHelper.getIdToken( false, begin( "getIdToken" ) );
+				break;
+		}
+	}
+
+	/**
+	 * Starts tracking a new operation like the function of the given name would, returns its callback ID.
+	 * The operation is not traced so that the production metrics only cover real calls.
+	 * A slot must have been acquired by the caller.
+	 */
+	private int begin( String name ) {
+		int callbackId = mNextCallbackId++;
+		mPending.put( callbackId, System.nanoTime() );
+		PendingOperations.begin( callbackId, name );
+		return callbackId;
+	}
+
+	private void awaitAll() throws InterruptedException {
+		if( !mSlots.tryAcquire( mConcurrency, STALL_TIMEOUT, TimeUnit.MILLISECONDS ) ) {
+			mStalled = true;
+			return;
+		}
+		mSlots.release( mConcurrency );
+	}
+
+	private void onEventBatch( String batch ) {
+		try {
+			JSONArray events = new JSONArray( batch );
+			final int length = events.length();
+			for( int i = 0; i < length; i++ ) {
+				JSONObject event = events.optJSONObject( i );
+				if( event != null ) {
+					onEvent( event.optString( "code" ), event.optString( "level" ) );
+				}
+			}
+		} catch( JSONException e ) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns callback ID the event responds to, or <code>-1</code> if it is not a response.
+	 */
+	private static int getCallbackId( String code, String level ) {
+		if( FirebaseAuthEvent.PROFILE_CHANGE_SUCCESS.equals( code ) ) {
+			return parseInt( level );
+		}
+		if( FirebaseAuthEvent.SIGN_IN_SUCCESS_BINARY.equals( code ) || FirebaseAuthEvent.AUTH_STATE_SIGN_IN_BINARY.equals( code ) ) {
+			/* Take the payload so that it does not stay in the store */
+			byte[] payload = EventPayloadStore.take( parseInt( level ) );
+			if( payload == null || payload.length < 4 ) {
+				return -1;
+			}
+			return ((payload[0] & 0xFF) << 24) | ((payload[1] & 0xFF) << 16) | ((payload[2] & 0xFF) << 8) | (payload[3] & 0xFF);
+		}
+		if( level == null || !level.startsWith( "{" ) ) {
+			return -1;
+		}
+		try {
+			JSONObject json = new JSONObject( level );
+			return json.optInt( "callbackId", json.optInt( "listenerID", -1 ) );
+		} catch( JSONException e ) {
+			return -1;
+		}
+	}
+
+	private static int parseInt( String value ) {
+		try {
+			return Integer.parseInt( value );
+		} catch( NumberFormatException e ) {
+			return -1;
+		}
+	}
+
+	private String getReportJSON( long durationNanos, long heapDelta ) {
+		int completed = mCompletedCount.get();
+		double seconds = durationNanos / 1e9;
+		StringBuilder builder = new StringBuilder( 512 );
+		builder.append( "{\"operations\":" ).append( mOperationCount )
+				.append( ",\"concurrency\":" ).append( mConcurrency )
+				.append( ",\"completed\":" ).append( completed )
+				.append( ",\"errors\":" ).append( mErrorCount.get() )
+				.append( ",\"stalled\":" ).append( mStalled )
+				.append( ",\"durationMs\":" ).append( durationNanos / 1000000 )
+				.append( ",\"throughput\":" ).append( (seconds > 0) ? Math.round( completed / seconds ) : 0 )
+				.append( ",\"heapDeltaBytes\":" ).append( heapDelta )
+				.append( ",\"latency\":" );
+		mLatencies.appendJSON( builder );
+		builder.append( ",\"events\":{" );
+		boolean first = true;
+		for( Map.Entry<String, AtomicInteger> entry : mEventCounts.entrySet() ) {
+			if( !first ) {
+				builder.append( ',' );
+			}
+			first = false;
+			StringUtils.appendJSONString( builder, entry.getKey() );
+			builder.append( ':' ).append( entry.getValue().get() );
+		}
+		builder.append( "}}" );
+		return builder.toString();
+	}
+
+}
@@ -21,23 +21,93 @@ import com.marpies.ane.firebase.auth.FirebaseAuthExtensionContext;
 
 public class AIR {
 
+	public static final String EVENT_BATCH = "eventBatch";
+
 	private static final String TAG = "FirebaseAuth";
-	private static boolean mLogEnabled = false;
+	private static final int LOG_BUFFER_CAPACITY = 256;
+	private static volatile boolean mLogEnabled = false;
+	private static volatile boolean mLogBufferEnabled = false;
+
+	private static final LogBuffer mLogBuffer = new LogBuffer( LOG_BUFFER_CAPACITY );
+
+	private static final EventBatcher mEventBatcher = new EventBatcher();
 
-	private static FirebaseAuthExtensionContext mContext;
+	private static volatile FirebaseAuthExtensionContext mContext;
+	private static volatile FirebaseAuthExtensionContext mContextOverride;
 
 	public static void log( String message ) {
+		log( -1, message, null, null, null );
+	}
+
+	/**
+	 * Logs message with <code>{}</code> placeholder replaced with the given argument.
+	 * The message is only formatted when it is written to logcat or dumped from the log buffer.
+	 */
+	public static void log( String template, Object arg ) {
+		log( -1, template, arg, null, null );
+	}
+
+	public static void log( String template, long arg ) {
+		if( mLogEnabled || mLogBufferEnabled ) {
+			log( -1, template, arg, null, null );
+		}
+	}
+
+	public static void log( String template, Object arg1, Object arg2 ) {
+		log( -1, template, arg1, arg2, null );
+	}
+
+	/**
+	 * Logs message related to the operation with the given callback ID.
+	 */
+	public static void log( int callbackId, String template, Object arg ) {
+		log( callbackId, template, arg, null, null );
+	}
+
+	/**
+	 * Logs message with up to three <code>{}</code> placeholders related to the operation with the given callback ID.
+	 */
+	public static void log( int callbackId, String template, Object arg1, Object arg2, Object arg3 ) {
+		if( mLogBufferEnabled ) {
+			mLogBuffer.add( callbackId, template, arg1, arg2, arg3 );
+		}
 		if( mLogEnabled ) {
-			Log.i( TAG, message );
+			Log.i( TAG, LogBuffer.format( template, arg1, arg2, arg3 ) );
 		}
 	}
 
+	/**
+	 * Returns <code>true</code> if log messages are written anywhere, can be used to skip
+	 * boxing or computing arguments of messages that would not be written.
+	 */
+	public static boolean isLogEnabled() {
+		return mLogEnabled || mLogBufferEnabled;
+	}
+
 	public static void dispatchEvent( String eventName ) {
 		dispatchEvent( eventName, "" );
 	}
 
 	public static void dispatchEvent( String eventName, String message ) {
-		mContext.dispatchStatusEventAsync( eventName, message );
+		if( mEventBatcher.isEnabled() ) {
+			mEventBatcher.add( eventName, message );
+		} else {
+			dispatchEventImmediately( eventName, message );
+		}
+	}
+
+	/**
+	 * Dispatches event to AS, bypassing the event batcher.
+	 */
+	public static void dispatchEventImmediately( String eventName, String message ) {
+		/* Events may be dispatched from background threads after the context has been disposed */
+		FirebaseAuthExtensionContext context = mContextOverride;
+		if( context == null ) {
+			context = mContext;
+		}
+		if( context != null ) {
+			context.dispatchStatusEventAsync( eventName, message );
+		}
 	}
 
 	/**
@@ -55,8 +125,35 @@ public class AIR {
 		mContext = context;
 	}
 
+	/**
+	 * Sends events to the given context instead of the current one until called with <code>null</code>,
+	 * e.g. while a load test runs. Unlike the current context, it is not replaced by function calls from AS.
+	 */
+	public static void setContextOverride( FirebaseAuthExtensionContext context ) {
+		mContextOverride = context;
+	}
+
+	public static EventBatcher getEventBatcher() {
+		return mEventBatcher;
+	}
+
 	public static void setLogEnabled( boolean value ) {
 		mLogEnabled = value;
 	}
-	
+
+	/**
+	 * Enables or disables recording of log messages into the in-memory buffer, independently of logcat.
+	 * Recording is disabled by default.
+	 */
+	public static void setLogBufferEnabled( boolean value ) {
+		mLogBufferEnabled = value;
+		if( !value ) {
+			mLogBuffer.clear();
+		}
+	}
+
+	public static LogBuffer getLogBuffer() {
+		return mLogBuffer;
+	}
+
 }
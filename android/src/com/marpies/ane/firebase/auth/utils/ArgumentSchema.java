@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import com.adobe.fre.FREObject;
+
+/**
+ * Describes arguments expected by an FRE function, so that they can be validated
+ * and decoded in one place before the function is executed.
+ */
+public class ArgumentSchema {
+
+	public static final int STRING = 1;
+	public static final int NULLABLE_STRING = 2;
+	public static final int INT = 3;
+	public static final int BOOLEAN = 4;
+	public static final int CALLBACK_ID = 5;
+
+	/**
+	 * Flag for trailing arguments that may be omitted by the caller.
+	 */
+	public static final int OPTIONAL = 0x100;
+
+	private static final int TYPE_MASK = 0xFF;
+
+	private final int[] mTypes;
+	private final int mCallbackIndex;
+	/* The FRE functions are shared by all contexts, so the decoded arguments are kept per thread */
+	private final ThreadLocal<Arguments> mArguments = new ThreadLocal<Arguments>() {
+		@Override
+		protected Arguments initialValue() {
+			return new Arguments( mTypes.length );
+		}
+	};
+
+	public ArgumentSchema( int... types ) {
+		mTypes = types;
+		int callbackIndex = -1;
+		for( int i = 0; i < types.length; i++ ) {
+			if( (types[i] & TYPE_MASK) == CALLBACK_ID ) {
+				callbackIndex = i;
+				break;
+			}
+		}
+		mCallbackIndex = callbackIndex;
+	}
+
+	/**
+	 * Decodes the given arguments, checking that all required arguments are present and of the declared type.
+	 * An extra argument following the schema's arguments is decoded as the app name.
+	 * The returned instance is reused by the next call on the same thread.
+	 *
+	 * @return Decoded arguments, or <code>null</code> if the arguments do not satisfy this schema.
+	 */
+	public Arguments decode( FREObject[] args ) {
+		Arguments result = mArguments.get();
+		result.clear();
+		final int length = mTypes.length;
+		final int argsLength = (args != null) ? args.length : 0;
+		try {
+			for( int i = 0; i < length; i++ ) {
+				int type = mTypes[i] & TYPE_MASK;
+				FREObject arg = (i < argsLength) ? args[i] : null;
+				FREObject.Type argType = (arg != null) ? arg.getType() : FREObject.Type.NULL;
+				if( argType == FREObject.Type.NULL ) {
+					if( type == NULLABLE_STRING ) {
+						result.setString( i, null );
+						continue;
+					}
+					if( (mTypes[i] & OPTIONAL) != 0 ) {
+						continue;
+					}
+					return null;
+				}
+				switch( type ) {
+					case STRING:
+					case NULLABLE_STRING:
+						if( argType != FREObject.Type.STRING ) return null;
+						result.setString( i, arg.getAsString() );
+						break;
+					case INT:
+					case CALLBACK_ID:
+						if( argType != FREObject.Type.NUMBER ) return null;
+						if( type == CALLBACK_ID ) {
+							result.setCallbackId( i, arg.getAsInt() );
+						} else {
+							result.setInt( i, arg.getAsInt() );
+						}
+						break;
+					case BOOLEAN:
+						if( argType != FREObject.Type.BOOLEAN ) return null;
+						result.setBoolean( i, arg.getAsBool() );
+						break;
+					default:
+						return null;
+				}
+			}
+			if( argsLength > length ) {
+				FREObject appName = args[length];
+				if( appName != null && appName.getType() == FREObject.Type.STRING ) {
+					result.setAppName( appName.getAsString() );
+				}
+			}
+		} catch( Exception e ) {
+			AIR.log( "Failed to decode arguments: {}", e );
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns index of the callback ID argument, or <code>-1</code> if the function does not take one.
+	 */
+	public int getCallbackIndex() {
+		return mCallbackIndex;
+	}
+
+	public int getArgumentCount() {
+		return mTypes.length;
+	}
+
+}
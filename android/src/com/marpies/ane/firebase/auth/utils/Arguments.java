@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+/**
+ * Arguments of an FRE function decoded according to its <code>ArgumentSchema</code>.
+ * Values are stored as primitives by their position, an instance is reused by the thread
+ * that decodes into it so decoding does not allocate (apart from the strings).
+ */
+public class Arguments {
+
+	private final String[] mStrings;
+	private final int[] mInts;
+	private final boolean[] mBooleans;
+	private final boolean[] mPresent;
+
+	private String mAppName;
+	private int mCallbackId;
+
+	Arguments( int count ) {
+		mStrings = new String[count];
+		mInts = new int[count];
+		mBooleans = new boolean[count];
+		mPresent = new boolean[count];
+		mCallbackId = -1;
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	/**
+	 * Returns <code>true</code> if the argument at the given index has been passed, i.e. it is not an omitted optional argument.
+	 */
+	public boolean has( int index ) {
+		return mPresent[index];
+	}
+
+	public String getString( int index ) {
+		return mStrings[index];
+	}
+
+	public int getInt( int index, int defaultValue ) {
+		return mPresent[index] ? mInts[index] : defaultValue;
+	}
+
+	public boolean getBoolean( int index, boolean defaultValue ) {
+		return mPresent[index] ? mBooleans[index] : defaultValue;
+	}
+
+	/**
+	 * Returns ID of the AS callback, or <code>-1</code> if the function does not take one.
+	 */
+	public int getCallbackId() {
+		return mCallbackId;
+	}
+
+	/**
+	 * Returns name of the app the call is made for, or <code>null</code> for the default app.
+	 */
+	public String getAppName() {
+		return mAppName;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	void clear() {
+		final int count = mStrings.length;
+		for( int i = 0; i < count; i++ ) {
+			mStrings[i] = null;
+			mPresent[i] = false;
+		}
+		mAppName = null;
+		mCallbackId = -1;
+	}
+
+	void setString( int index, String value ) {
+		mStrings[index] = value;
+		mPresent[index] = true;
+	}
+
+	void setInt( int index, int value ) {
+		mInts[index] = value;
+		mPresent[index] = true;
+	}
+
+	void setBoolean( int index, boolean value ) {
+		mBooleans[index] = value;
+		mPresent[index] = true;
+	}
+
+	void setCallbackId( int index, int value ) {
+		setInt( index, value );
+		mCallbackId = value;
+	}
+
+	void setAppName( String appName ) {
+		mAppName = appName;
+	}
+
+}
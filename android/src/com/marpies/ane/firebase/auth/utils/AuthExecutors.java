@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides threads the extension does its work on. Task completions (serialization of
+ * the results and dispatch to AS) run on a small background pool by default so that
+ * they do not compete with rendering on the main thread.
+ */
+public class AuthExecutors {
+
+	private static final int COMPLETION_POOL_SIZE = 2;
+
+	private static final AtomicLong mMainThreadNanos = new AtomicLong();
+	private static final AtomicLong mBackgroundNanos = new AtomicLong();
+
+	private static final Executor mMainThreadExecutor = new Executor() {
+		private final Handler mHandler = new Handler( Looper.getMainLooper() );
+
+		@Override
+		public void execute( Runnable command ) {
+			mHandler.post( command );
+		}
+	};
+
+	private static final Executor mMeasuredCompletionExecutor = new Executor() {
+		@Override
+		public void execute( final Runnable command ) {
+			mCompletionExecutor.execute( new Runnable() {
+				@Override
+				public void run() {
+					long start = System.nanoTime();
+					command.run();
+					addNanos( start );
+				}
+			} );
+		}
+	};
+
+	private static volatile Executor mCompletionExecutor;
+	private static ExecutorService mBackgroundPool;
+	private static Handler mBackgroundHandler;
+
+	/**
+	 * Returns executor that should be used for Task completion listeners.
+	 */
+	public static Executor getCompletionExecutor() {
+		if( mCompletionExecutor == null ) {
+			setCompletionExecutor( null );
+		}
+		return mMeasuredCompletionExecutor;
+	}
+
+	/**
+	 * Returns executor for Task completion listeners that measure their own time using <code>addNanos()</code>,
+	 * which saves the executor from wrapping each command.
+	 */
+	public static Executor getUnmeasuredCompletionExecutor() {
+		if( mCompletionExecutor == null ) {
+			setCompletionExecutor( null );
+		}
+		return mCompletionExecutor;
+	}
+
+	/**
+	 * Sets executor for Task completion listeners, <code>null</code> to use the default background pool.
+	 */
+	public static synchronized void setCompletionExecutor( Executor executor ) {
+		if( executor == null ) {
+			if( mBackgroundPool == null ) {
+				mBackgroundPool = Executors.newFixedThreadPool( COMPLETION_POOL_SIZE, new WorkerThreadFactory( "FirebaseAuth-completion" ) );
+			}
+			executor = mBackgroundPool;
+		}
+		mCompletionExecutor = executor;
+	}
+
+	/**
+	 * Returns <code>true</code> if Task completion listeners currently run on the main thread.
+	 */
+	public static boolean isCompletionOnMainThread() {
+		return mCompletionExecutor == mMainThreadExecutor;
+	}
+
+	/**
+	 * Returns executor running tasks on the main (UI) thread.
+	 */
+	public static Executor getMainThreadExecutor() {
+		return mMainThreadExecutor;
+	}
+
+	/**
+	 * Returns handler of a background thread used for ordered and delayed work,
+	 * such as auth state changes and event batch flushing.
+	 */
+	public static synchronized Handler getBackgroundHandler() {
+		if( mBackgroundHandler == null ) {
+			HandlerThread thread = new HandlerThread( "FirebaseAuth-worker", Process.THREAD_PRIORITY_BACKGROUND );
+			thread.start();
+			mBackgroundHandler = new Handler( thread.getLooper() );
+		}
+		return mBackgroundHandler;
+	}
+
+	/**
+	 * Runs the given task on the background handler thread, measuring time spent in it.
+	 */
+	public static void runInBackground( final Runnable task ) {
+		getBackgroundHandler().post( new Runnable() {
+			@Override
+			public void run() {
+				long start = System.nanoTime();
+				task.run();
+				addNanos( start );
+			}
+		} );
+	}
+
+	public static boolean isMainThread() {
+		return Looper.myLooper() == Looper.getMainLooper();
+	}
+
+	/**
+	 * Returns time (in nanoseconds) the extension spent handling Task completions and
+	 * auth state changes on the main thread.
+	 */
+	public static long getMainThreadNanos() {
+		return mMainThreadNanos.get();
+	}
+
+	/**
+	 * Returns time (in nanoseconds) the extension spent handling Task completions and
+	 * auth state changes on background threads.
+	 */
+	public static long getBackgroundNanos() {
+		return mBackgroundNanos.get();
+	}
+
+	/**
+	 * Adds time elapsed since the given start to the statistics of the current thread.
+	 */
+	public static void addNanos( long start ) {
+		long elapsed = System.nanoTime() - start;
+		if( isMainThread() ) {
+			mMainThreadNanos.addAndGet( elapsed );
+		} else {
+			mBackgroundNanos.addAndGet( elapsed );
+		}
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+		private final String mName;
+		private final AtomicInteger mCount = new AtomicInteger();
+
+		WorkerThreadFactory( String name ) {
+			mName = name;
+		}
+
+		@Override
+		public Thread newThread( final Runnable runnable ) {
+			Thread thread = new Thread( new Runnable() {
+				@Override
+				public void run() {
+					Process.setThreadPriority( Process.THREAD_PRIORITY_BACKGROUND );
+					runnable.run();
+				}
+			}, mName + "-" + mCount.incrementAndGet() );
+			thread.setDaemon( true );
+			return thread;
+		}
+	}
+
+}
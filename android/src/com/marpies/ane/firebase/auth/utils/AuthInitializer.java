@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import com.marpies.ane.firebase.auth.data.FirebaseAuthEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Initializes the auth backend (<code>FirebaseAuth</code> by default) off the main thread and registers the auth state
+ * listener exactly once per app. Calls made before the initialization finishes are
+ * queued and run on the main thread once it does, followed by the <code>READY</code> event.
+ * If the backend cannot be set up, the <code>INIT_ERROR</code> event is dispatched instead,
+ * the queued calls are dropped (their callbacks time out) and the next <code>start()</code> tries again.
+ */
+public class AuthInitializer {
+
+	private final FirebaseAuthHelper mHelper;
+	private final AtomicBoolean mStarted = new AtomicBoolean();
+	private final List<Runnable> mPending = new ArrayList<Runnable>();
+	private volatile boolean mReady;
+
+	AuthInitializer( FirebaseAuthHelper helper ) {
+		mHelper = helper;
+	}
+
+	/**
+	 * Starts the initialization if it has not been started yet. If the extension has already been
+	 * initialized (e.g. by a previous extension context), the current auth state and the
+	 * <code>READY</code> event are dispatched again.
+	 */
+	public void start() {
+		if( !mStarted.compareAndSet( false, true ) ) {
+			if( mReady ) {
+				AIR.log( "FirebaseAuth is already initialized" );
+				mHelper.dispatchEvent( FirebaseAuthEvent.READY, "" );
+				mHelper.onAuthStateChanged( mHelper.getBackend().getCurrentUser() );
+			}
+			return;
+		}
+		AuthExecutors.runInBackground( new Runnable() {
+			@Override
+			public void run() {
+				long start = System.nanoTime();
+				try {
+					mHelper.getBackend().addAuthStateListener( mHelper );
+				} catch( final Exception e ) {
+					e.printStackTrace();
+					AuthExecutors.getMainThreadExecutor().execute( new Runnable() {
+						@Override
+						public void run() {
+							onError( e );
+						}
+					} );
+					return;
+				}
+				AIR.log( "FirebaseAuth initialized in {} us", (System.nanoTime() - start) / 1000 );
+				AuthExecutors.getMainThreadExecutor().execute( new Runnable() {
+					@Override
+					public void run() {
+						onReady();
+					}
+				} );
+			}
+		} );
+	}
+
+	/**
+	 * Queues the given call if the initialization has not finished yet.
+	 *
+	 * @return <code>true</code> if the call was queued, <code>false</code> if the caller should proceed right away.
+	 */
+	public boolean deferUntilReady( Runnable call ) {
+		if( mReady ) {
+			return false;
+		}
+		synchronized( mPending ) {
+			if( mReady ) {
+				return false;
+			}
+			mPending.add( call );
+			return true;
+		}
+	}
+
+	public boolean isReady() {
+		return mReady;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private void onReady() {
+		List<Runnable> pending;
+		synchronized( mPending ) {
+			pending = new ArrayList<Runnable>( mPending );
+			mPending.clear();
+			mReady = true;
+		}
+		mHelper.dispatchEvent( FirebaseAuthEvent.READY, "" );
+		if( !pending.isEmpty() ) {
+			AIR.log( "Running {} call(s) made before initialization", pending.size() );
+		}
+		for( Runnable call : pending ) {
+			call.run();
+		}
+	}
+
+	private void onError( Exception e ) {
+		int dropped;
+		synchronized( mPending ) {
+			dropped = mPending.size();
+			mPending.clear();
+		}
+		mStarted.set( false );
+		String errorMessage = (e.getLocalizedMessage() != null) ? e.getLocalizedMessage() : e.toString();
+		AIR.log( "FirebaseAuth failed to initialize, dropping {} call(s): {}", dropped, errorMessage );
+		mHelper.dispatchEvent( FirebaseAuthEvent.INIT_ERROR, StringUtils.getEventErrorJSON( -1, errorMessage ) );
+	}
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import android.os.Handler;
+import com.marpies.ane.firebase.auth.backend.AuthUser;
+
+/**
+ * Filters auth state changes before they are dispatched to AS. A change is suppressed
+ * if the user has the same fields as the last dispatched one, i.e. it would serialize the same way.
+ * The fields are compared only when their fingerprint, <code>AuthUser.hashCode()</code>, matches.
+ * If a window is set, changes arriving within the window are collapsed into a single dispatch of the final state.
+ */
+public class AuthStateCoalescer {
+
+	public interface Listener {
+		void onAuthStateDispatch( AuthUser user );
+	}
+
+	private final Listener mListener;
+	private final Handler mHandler;
+	private final Runnable mFlushRunnable = new Runnable() {
+		@Override
+		public void run() {
+			flush();
+		}
+	};
+
+	private long mWindow;
+
+	private boolean mHasPending;
+	private boolean mFlushScheduled;
+	private AuthUser mPendingUser;
+
+	private boolean mHasDispatched;
+	private AuthUser mLastUser;
+	private int mLastFingerprint;
+
+	private long mForwardedCount;
+	private long mSuppressedCount;
+
+	public AuthStateCoalescer( Listener listener ) {
+		mListener = listener;
+		mHandler = AuthExecutors.getBackgroundHandler();
+	}
+
+	/**
+	 * Submits new auth state, <code>null</code> user means no user is signed in.
+	 */
+	public void submit( AuthUser user ) {
+		synchronized( this ) {
+			if( mHasPending ) {
+				/* Previous state within the window is replaced by this one */
+				mSuppressedCount++;
+			}
+			mPendingUser = user;
+			mHasPending = true;
+			if( mWindow > 0 ) {
+				if( !mFlushScheduled ) {
+					mFlushScheduled = true;
+					mHandler.postDelayed( mFlushRunnable, mWindow );
+				}
+				return;
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Forgets the last dispatched state so that the next one is always forwarded.
+	 */
+	public synchronized void reset() {
+		mHasDispatched = false;
+		mLastUser = null;
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	/**
+	 * Sets time window (in milliseconds) in which state changes are collapsed, use <code>0</code> to disable.
+	 */
+	public void setWindow( long window ) {
+		synchronized( this ) {
+			mWindow = Math.max( 0, window );
+			if( mWindow > 0 || !mFlushScheduled ) {
+				return;
+			}
+			mHandler.removeCallbacks( mFlushRunnable );
+		}
+		flush();
+	}
+
+	public synchronized long getForwardedCount() {
+		return mForwardedCount;
+	}
+
+	public synchronized long getSuppressedCount() {
+		return mSuppressedCount;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private void flush() {
+		AuthUser user;
+		synchronized( this ) {
+			mFlushScheduled = false;
+			if( !mHasPending ) {
+				return;
+			}
+			user = mPendingUser;
+			mPendingUser = null;
+			mHasPending = false;
+
+			int fingerprint = (user != null) ? user.hashCode() : 0;
+			if( mHasDispatched && fingerprint == mLastFingerprint && (user == null ? mLastUser == null : user.equals( mLastUser )) ) {
+				mSuppressedCount++;
+				return;
+			}
+			mHasDispatched = true;
+			mLastUser = user;
+			mLastFingerprint = fingerprint;
+			mForwardedCount++;
+		}
+		mListener.onAuthStateDispatch( user );
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+/**
+ * Stops new requests from reaching the backend after several consecutive network failures.
+ * Once the cool-down period passes, a single trial request is let through; its success
+ * closes the breaker, its failure opens it again. A trial that does not finish within
+ * the trial timeout counts as a failure, so a lost request cannot keep the breaker half-open.
+ */
+public class CircuitBreaker {
+
+	private static final int CLOSED = 0;
+	private static final int OPEN = 1;
+	private static final int HALF_OPEN = 2;
+
+	private final int mFailureThreshold;
+	private final long mCoolDown;
+	private final long mTrialTimeout;
+
+	private int mState = CLOSED;
+	private int mFailureCount;
+	private long mOpenedAt;
+	private long mTrialStartedAt;
+	private long mRejectedCount;
+
+	/**
+	 * @param failureThreshold Number of consecutive network failures that opens the breaker.
+	 * @param coolDown         Time (in milliseconds) the breaker stays open before a trial request is allowed.
+	 * @param trialTimeout     Time (in milliseconds) after which an unfinished trial request opens the breaker again.
+	 */
+	public CircuitBreaker( int failureThreshold, long coolDown, long trialTimeout ) {
+		mFailureThreshold = failureThreshold;
+		mCoolDown = coolDown;
+		mTrialTimeout = trialTimeout;
+	}
+
+	/**
+	 * Returns <code>true</code> if a request may be made now.
+	 */
+	public synchronized boolean allowRequest() {
+		if( mState == OPEN ) {
+			if( now() - mOpenedAt < mCoolDown ) {
+				mRejectedCount++;
+				return false;
+			}
+			/* Let one trial request through */
+			mState = HALF_OPEN;
+			mTrialStartedAt = now();
+			return true;
+		}
+		if( mState == HALF_OPEN ) {
+			if( now() - mTrialStartedAt >= mTrialTimeout ) {
+				/* Trial request never finished, start another cool-down */
+				AIR.log( "Trial request has not finished in {} ms, failing requests for the next {} ms", mTrialTimeout, mCoolDown );
+				mState = OPEN;
+				mOpenedAt = now();
+			}
+			/* Trial request is in progress */
+			mRejectedCount++;
+			return false;
+		}
+		return true;
+	}
+
+	public synchronized void onSuccess() {
+		mState = CLOSED;
+		mFailureCount = 0;
+	}
+
+	/**
+	 * Should be called when a request fails with a transient network error.
+	 */
+	public synchronized void onNetworkFailure() {
+		mFailureCount++;
+		if( mState == HALF_OPEN || mFailureCount >= mFailureThreshold ) {
+			if( mState != OPEN ) {
+				AIR.log( "Backend seems unreachable, failing requests for the next {} ms", mCoolDown );
+			}
+			mState = OPEN;
+			mOpenedAt = now();
+		}
+	}
+
+	/**
+	 * Should be called when a request fails with an error that is not network related,
+	 * i.e. the backend was reached.
+	 */
+	public synchronized void onOtherFailure() {
+		onSuccess();
+	}
+
+	public synchronized boolean isOpen() {
+		return mState != CLOSED;
+	}
+
+	public synchronized long getRejectedCount() {
+		return mRejectedCount;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static long now() {
+		return System.nanoTime() / 1000000;
+	}
+
+}
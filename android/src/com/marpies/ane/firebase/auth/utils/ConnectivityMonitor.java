@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+
+/**
+ * Tracks whether the device has a network connection and runs the given task
+ * on the background thread whenever the connection is regained.
+ * Requires the <code>android.permission.ACCESS_NETWORK_STATE</code> permission,
+ * without it the device is assumed to always be connected.
+ */
+public class ConnectivityMonitor extends BroadcastReceiver {
+
+	private final Runnable mOnConnected;
+
+	private Context mContext;
+	private volatile boolean mConnected = true;
+
+	public ConnectivityMonitor( Runnable onConnected ) {
+		mOnConnected = onConnected;
+	}
+
+	@Override
+	public void onReceive( Context context, Intent intent ) {
+		boolean wasConnected = mConnected;
+		mConnected = readState( context );
+		if( mConnected && !wasConnected ) {
+			AIR.log( "Network connection has been regained" );
+			AuthExecutors.runInBackground( mOnConnected );
+		}
+	}
+
+	/**
+	 * Starts listening to connectivity changes, does nothing if already started.
+	 */
+	public synchronized void start( Context context ) {
+		if( mContext != null ) return;
+		mContext = context.getApplicationContext();
+		mConnected = readState( mContext );
+		try {
+			mContext.registerReceiver( this, new IntentFilter( ConnectivityManager.CONNECTIVITY_ACTION ) );
+		} catch( Exception e ) {
+			e.printStackTrace();
+		}
+	}
+
+	public synchronized void stop() {
+		if( mContext == null ) return;
+		try {
+			mContext.unregisterReceiver( this );
+		} catch( Exception e ) {
+			e.printStackTrace();
+		}
+		mContext = null;
+		mConnected = true;
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	public boolean isConnected() {
+		return mConnected;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static boolean readState( Context context ) {
+		try {
+			ConnectivityManager manager = (ConnectivityManager) context.getSystemService( Context.CONNECTIVITY_SERVICE );
+			NetworkInfo info = (manager != null) ? manager.getActiveNetworkInfo() : null;
+			return info != null && info.isConnected();
+		} catch( SecurityException e ) {
+			/* Missing permission, let the requests find out */
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import com.google.firebase.auth.AuthCredential;
+import com.google.firebase.auth.EmailAuthProvider;
+import com.google.firebase.auth.FacebookAuthProvider;
+import com.google.firebase.auth.GithubAuthProvider;
+import com.google.firebase.auth.GoogleAuthProvider;
+import com.google.firebase.auth.TwitterAuthProvider;
+
+/**
+ * Table of the supported auth providers. Each descriptor knows how many string arguments
+ * its credential takes and builds the credential from them when the operation runs.
+ */
+public class CredentialProviders {
+
+	public static final String EMAIL = "password";
+	public static final String FACEBOOK = "facebook.com";
+	public static final String GOOGLE = "google.com";
+	public static final String TWITTER = "twitter.com";
+	public static final String GITHUB = "github.com";
+
+	public static abstract class Descriptor {
+		private final String mProviderId;
+		private final int mArgumentCount;
+
+		protected Descriptor( String providerId, int argumentCount ) {
+			mProviderId = providerId;
+			mArgumentCount = argumentCount;
+		}
+
+		/**
+		 * Builds credential from the given arguments, <code>second</code> is <code>null</code>
+		 * if the provider takes a single argument.
+		 */
+		public abstract AuthCredential getCredential( String first, String second );
+
+		public String getProviderId() {
+			return mProviderId;
+		}
+
+		/**
+		 * Returns number of string arguments (one or two) the credential is built from.
+		 */
+		public int getArgumentCount() {
+			return mArgumentCount;
+		}
+	}
+
+	private static final Descriptor[] mDescriptors = {
+		new Descriptor( EMAIL, 2 ) {
+			@Override
+			public AuthCredential getCredential( String email, String password ) {
+				return EmailAuthProvider.getCredential( email, password );
+			}
+		},
+		new Descriptor( FACEBOOK, 1 ) {
+			@Override
+			public AuthCredential getCredential( String accessToken, String unused ) {
+				return FacebookAuthProvider.getCredential( accessToken );
+			}
+		},
+		new Descriptor( GOOGLE, 2 ) {
+			@Override
+			public AuthCredential getCredential( String idToken, String accessToken ) {
+				return GoogleAuthProvider.getCredential( idToken, accessToken );
+			}
+		},
+		new Descriptor( TWITTER, 2 ) {
+			@Override
+			public AuthCredential getCredential( String token, String secret ) {
+				return TwitterAuthProvider.getCredential( token, secret );
+			}
+		},
+		new Descriptor( GITHUB, 1 ) {
+			@Override
+			public AuthCredential getCredential( String accessToken, String unused ) {
+				return GithubAuthProvider.getCredential( accessToken );
+			}
+		}
+	};
+
+	/**
+	 * Returns descriptor of the provider with the given ID, or <code>null</code> if the provider is not supported.
+	 */
+	public static Descriptor get( String providerId ) {
+		for( Descriptor descriptor : mDescriptors ) {
+			if( descriptor.getProviderId().equals( providerId ) ) {
+				return descriptor;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import android.os.Handler;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queues events and dispatches them to AS as a single batch, either periodically
+ * or when AS pulls them using the <code>flushEvents</code> function.
+ */
+public class EventBatcher {
+
+	private static class Event {
+		final String mCode;
+		final String mLevel;
+
+		Event( String code, String level ) {
+			mCode = code;
+			mLevel = level;
+		}
+	}
+
+	private final ConcurrentLinkedQueue<Event> mQueue = new ConcurrentLinkedQueue<Event>();
+	private final AtomicBoolean mFlushScheduled = new AtomicBoolean();
+	private final Handler mHandler = AuthExecutors.getBackgroundHandler();
+	private final Runnable mFlushRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mFlushScheduled.set( false );
+			flush();
+		}
+	};
+
+	private volatile boolean mEnabled;
+	private volatile long mInterval;
+
+	/**
+	 * Adds event to the queue and schedules a flush, if there is a flush interval.
+	 */
+	public void add( String code, String level ) {
+		mQueue.offer( new Event( code, level ) );
+		if( !mEnabled ) {
+			/* Batching was disabled after the caller checked it, the flush in setEnabled() may have missed this event */
+			flush();
+			return;
+		}
+		long interval = mInterval;
+		if( interval > 0 && mFlushScheduled.compareAndSet( false, true ) ) {
+			mHandler.postDelayed( mFlushRunnable, interval );
+		}
+	}
+
+	/**
+	 * Removes all queued events and returns them as JSON array of <code>{ "code", "level" }</code>
+	 * objects, or <code>null</code> if there are no events.
+	 */
+	public String drain() {
+		Event event = mQueue.poll();
+		if( event == null ) {
+			return null;
+		}
+		StringBuilder builder = new StringBuilder( 256 );
+		builder.append( '[' );
+		while( event != null ) {
+			builder.append( "{\"code\":" );
+			StringUtils.appendJSONString( builder, event.mCode );
+			builder.append( ",\"level\":" );
+			StringUtils.appendJSONString( builder, event.mLevel );
+			builder.append( '}' );
+			event = mQueue.poll();
+			if( event != null ) {
+				builder.append( ',' );
+			}
+		}
+		builder.append( ']' );
+		return builder.toString();
+	}
+
+	/**
+	 * Dispatches all queued events as a single batch event.
+	 */
+	public void flush() {
+		String batch = drain();
+		if( batch != null ) {
+			AIR.dispatchEventImmediately( AIR.EVENT_BATCH, batch );
+		}
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	public boolean isEnabled() {
+		return mEnabled;
+	}
+
+	public long getInterval() {
+		return mInterval;
+	}
+
+	/**
+	 * Enables or disables batching. Queued events are flushed when batching is disabled.
+	 *
+	 * @param enabled <code>true</code> to queue events instead of dispatching them immediately.
+	 * @param interval Time (in milliseconds) after which queued events are flushed, or <code>0</code>
+	 *                 to flush only when AS asks for it.
+	 */
+	public void setEnabled( boolean enabled, long interval ) {
+		mInterval = Math.max( 0, interval );
+		mEnabled = enabled;
+		if( !enabled ) {
+			mHandler.removeCallbacks( mFlushRunnable );
+			mFlushScheduled.set( false );
+			flush();
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds binary event payloads until the AS side fetches them using the slot ID
+ * that was dispatched in the <code>StatusEvent</code>.
+ */
+public class EventPayloadStore {
+
+	private static final ConcurrentHashMap<Integer, byte[]> mPayloads = new ConcurrentHashMap<Integer, byte[]>();
+	private static final AtomicInteger mSlotCounter = new AtomicInteger();
+
+	/**
+	 * Stores the payload and returns slot ID it can be retrieved with.
+	 */
+	public static int put( byte[] payload ) {
+		int slot = mSlotCounter.incrementAndGet();
+		mPayloads.put( slot, payload );
+		return slot;
+	}
+
+	/**
+	 * Removes and returns payload stored in the given slot, or <code>null</code> if there is none.
+	 */
+	public static byte[] take( int slot ) {
+		return mPayloads.remove( slot );
+	}
+
+	/**
+	 * Drops payloads that were not fetched, e.g. when the extension context is disposed.
+	 */
+	public static void clear() {
+		mPayloads.clear();
+	}
+
+}
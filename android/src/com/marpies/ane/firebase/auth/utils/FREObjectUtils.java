@@ -27,39 +27,51 @@ import java.util.Set;
 
 public class FREObjectUtils {
 
-	public static Integer getInt( FREObject object ) {
+	public static int getInt( FREObject object, int defaultValue ) {
+		if( object == null ) {
+			return defaultValue;
+		}
 		try {
 			return object.getAsInt();
 		} catch( Exception e ) {
-			e.printStackTrace();
-			return null;
+			AIR.log( "Failed to read int argument: {}", e );
+			return defaultValue;
 		}
 	}
 
-	public static Double getDouble( FREObject object ) {
+	public static double getDouble( FREObject object, double defaultValue ) {
+		if( object == null ) {
+			return defaultValue;
+		}
 		try {
 			return object.getAsDouble();
 		} catch( Exception e ) {
-			e.printStackTrace();
-			return null;
+			AIR.log( "Failed to read double argument: {}", e );
+			return defaultValue;
 		}
 	}
 
-	public static String getString( FREObject object ) {
+	public static boolean getBoolean( FREObject object, boolean defaultValue ) {
+		if( object == null ) {
+			return defaultValue;
+		}
 		try {
-			return object.getAsString();
+			return object.getAsBool();
 		} catch( Exception e ) {
-			e.printStackTrace();
-			return null;
+			AIR.log( "Failed to read boolean argument: {}", e );
+			return defaultValue;
 		}
 	}
 
-	public static Boolean getBoolean( FREObject object ) {
+	public static String getString( FREObject object ) {
+		if( object == null ) {
+			return null;
+		}
 		try {
-			return object.getAsBool();
+			return object.getAsString();
 		} catch( Exception e ) {
-			e.printStackTrace();
-			return false;
+			AIR.log( "Failed to read String argument: {}", e );
+			return null;
 		}
 	}
 
@@ -16,28 +16,165 @@
 
 package com.marpies.ane.firebase.auth.utils;
 
-import android.net.Uri;
+import android.content.Context;
+import android.os.Handler;
 import android.support.annotation.NonNull;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
-import com.google.firebase.auth.*;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseTooManyRequestsException;
+import com.google.firebase.auth.AuthCredential;
+import com.marpies.ane.firebase.auth.backend.AuthBackend;
+import com.marpies.ane.firebase.auth.backend.AuthUser;
+import com.marpies.ane.firebase.auth.backend.FirebaseAuthBackend;
 import com.marpies.ane.firebase.auth.data.FirebaseAuthEvent;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 
-public class FirebaseAuthHelper implements FirebaseAuth.AuthStateListener {
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-	private static FirebaseAuthHelper mInstance;
+public class FirebaseAuthHelper implements AuthBackend.AuthStateListener {
 
+	/* Status of journaled profile changes */
+	private static final String JOURNAL_APPLIED = "applied";
+	private static final String JOURNAL_FAILED = "failed";
+	private static final String JOURNAL_SUPERSEDED = "superseded";
+
+	/* Delay (in milliseconds) before journaled changes are tried again when the backend cannot be reached */
+	private static final long JOURNAL_RETRY_DELAY = 60 * 1000;
+	/* Time (in milliseconds) a journaled change may take to apply before it is abandoned and tried again later */
+	private static final long JOURNAL_REPLAY_TIMEOUT = 60 * 1000;
+	/* Time (in milliseconds) init waits for the persisted user to be read before returning without it */
+	private static final long RESTORE_TIMEOUT = 500;
+
+	/* Helpers of the default app (key <code>FirebaseApp.DEFAULT_APP_NAME</code>) and the named apps */
+	private static final ConcurrentHashMap<String, FirebaseAuthHelper> mInstances = new ConcurrentHashMap<String, FirebaseAuthHelper>();
+
+	/**
+	 * Returns helper of the default <code>FirebaseApp</code>.
+	 */
 	public static FirebaseAuthHelper getInstance() {
-		if( mInstance == null ) {
-			mInstance = new FirebaseAuthHelper();
+		return getInstance( null );
+	}
+
+	/**
+	 * Returns helper of the <code>FirebaseApp</code> with the given name, creating it if needed.
+	 *
+	 * @param appName Name of the app, or <code>null</code> for the default app.
+	 */
+	public static FirebaseAuthHelper getInstance( String appName ) {
+		String key = (appName != null) ? appName : FirebaseApp.DEFAULT_APP_NAME;
+		FirebaseAuthHelper instance = mInstances.get( key );
+		if( instance == null ) {
+			FirebaseAuthHelper created = new FirebaseAuthHelper( FirebaseApp.DEFAULT_APP_NAME.equals( key ) ? null : key );
+			instance = mInstances.putIfAbsent( key, created );
+			if( instance == null ) {
+				instance = created;
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns <code>true</code> if the <code>FirebaseApp</code> with the given name has been configured.
+	 */
+	public static boolean hasApp( String appName ) {
+		try {
+			FirebaseApp.getInstance( appName );
+			return true;
+		} catch( IllegalStateException e ) {
+			return false;
 		}
-		return mInstance;
 	}
 
-	private FirebaseAuthHelper() { }
+	/* Name of the app, null for the default app */
+	private final String mAppName;
+	private final AuthInitializer mInitializer;
+	private volatile AuthBackend mBackend;
+	private volatile boolean mBinaryPayloads;
+	private volatile boolean mPersistenceEnabled = true;
+	private final UserSnapshotCache mSnapshotCache = new UserSnapshotCache();
+	private final InFlightOperations mInFlightOperations = new InFlightOperations();
+	private volatile RetryEngine mRetryEngine = new RetryEngine();
+	private final IdTokenCache mIdTokenCache = new IdTokenCache();
+	private final UserSnapshotStore mSnapshotStore;
+	/* Read of the persisted user, started ahead of init and taken by restoreUser(), guarded by this */
+	private FutureTask<String> mUserPreload;
+	private final ProfileJournal mProfileJournal;
+	private volatile boolean mProfileJournalEnabled;
+	private final Runnable mJournalReplayRunnable = new Runnable() {
+		@Override
+		public void run() {
+			replayProfileJournal();
+		}
+	};
+	/* Journaled change being applied, nobody waits for it so it is abandoned after a timeout */
+	private volatile ProfileJournal.Entry mJournalReplayEntry;
+	private volatile RetryEngine.Handle mJournalReplay;
+	private final Runnable mJournalReplayTimeoutRunnable = new Runnable() {
+		@Override
+		public void run() {
+			abandonProfileJournalReplay();
+		}
+	};
+	private final ConnectivityMonitor mConnectivityMonitor = new ConnectivityMonitor( mJournalReplayRunnable );
+	private volatile boolean mIdTokenRequested;
+	private final Runnable mIdTokenRefreshRunnable = new Runnable() {
+		@Override
+		public void run() {
+			/* Keep refreshing only while the token is being asked for */
+			if( !mIdTokenRequested ) return;
+			mIdTokenRequested = false;
+			AuthUser user = getUser();
+			if( user != null && user.getUid().equals( mIdTokenCache.getUid() ) ) {
+				AIR.log( "Refreshing ID token before it expires" );
+				refreshIdToken( user, true, -1 );
+			}
+		}
+	};
+	/* Completion listeners shared by all operations, the callback ID is passed along with the Task */
+	private final RetryEngine.CallbackListener<AuthUser> mAuthResultListener = new RetryEngine.CallbackListener<AuthUser>() {
+		@Override
+		public void onComplete( @NonNull Task<AuthUser> task, int callbackId ) {
+			processAuthResponse( task, callbackId );
+		}
+	};
+	private final RetryEngine.CallbackListener<Void> mProfileChangeListener = new RetryEngine.CallbackListener<Void>() {
+		@Override
+		public void onComplete( @NonNull Task<Void> task, int callbackId ) {
+			processProfileChangeResponse( task, callbackId );
+		}
+	};
+	private final RetryEngine.CallbackListener<Void> mUserChangeListener = new RetryEngine.CallbackListener<Void>() {
+		@Override
+		public void onComplete( @NonNull Task<Void> task, int callbackId ) {
+			/* The change is reflected in the user's data */
+			if( task.isSuccessful() ) {
+				mSnapshotCache.invalidate();
+			}
+			processProfileChangeResponse( task, callbackId );
+		}
+	};
+	private final AuthStateCoalescer mAuthStateCoalescer = new AuthStateCoalescer( new AuthStateCoalescer.Listener() {
+		@Override
+		public void onAuthStateDispatch( AuthUser user ) {
+			dispatchAuthState( user );
+		}
+	} );
+
+	private FirebaseAuthHelper( String appName ) {
+		mAppName = appName;
+		mInitializer = new AuthInitializer( this );
+		mBackend = new FirebaseAuthBackend( appName );
+		mSnapshotStore = new UserSnapshotStore( appName );
+		mProfileJournal = new ProfileJournal( appName );
+	}
 
 	/**
 	 *
@@ -48,163 +185,582 @@ public class FirebaseAuthHelper implements FirebaseAuth.AuthStateListener {
 	 */
 
 	@Override
-	public void onAuthStateChanged( @NonNull FirebaseAuth firebaseAuth ) {
-		FirebaseUser user = firebaseAuth.getCurrentUser();
-		if( user != null ) {
-			AIR.log( "User has signed in" );
-			String userJSON = getJSONFromUser( user );
-			if( userJSON == null ) {
-				userJSON = "{}";
+	public void onAuthStateChanged( final AuthUser user ) {
+		String tokenUid = mIdTokenCache.getUid();
+		if( tokenUid != null && (user == null || !tokenUid.equals( user.getUid() )) ) {
+			clearIdToken();
+		}
+		/* Serialization of the user is done off the main thread */
+		AuthExecutors.runInBackground( new Runnable() {
+			@Override
+			public void run() {
+				mAuthStateCoalescer.submit( user );
 			}
-			AIR.dispatchEvent( FirebaseAuthEvent.AUTH_STATE_SIGN_IN, userJSON );
-		} else {
-			AIR.log( "No user is currently signed in" );
-			AIR.dispatchEvent( FirebaseAuthEvent.AUTH_STATE_SIGN_OFF );
+		} );
+		/* Changes journaled while the user was signed out are applied once they sign in again */
+		if( user != null && mProfileJournalEnabled ) {
+			AuthExecutors.runInBackground( mJournalReplayRunnable );
 		}
 	}
 
-	public void signInWithCredential( AuthCredential credential, final int callbackId ) {
-		FirebaseAuth.getInstance()
-				.signInWithCredential( credential )
-				.addOnCompleteListener( new OnCompleteListener<AuthResult>() {
-					@Override
-					public void onComplete( @NonNull Task<AuthResult> task ) {
-						processAuthResponse( task, callbackId );
-					}
-				} );
+	/**
+	 * Makes sure the next auth state change is dispatched to AS, even if it matches the last one.
+	 */
+	public void resetAuthState() {
+		mAuthStateCoalescer.reset();
+	}
+
+	public void createUser( final String email, final String password, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				createUser( email, password, callbackId );
+			}
+		} ) ) return;
+		OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+		final AuthBackend backend = mBackend;
+		mRetryEngine.execute( "createUser", RetryPolicy.NONE, OperationScheduler.INTERACTIVE, new RetryEngine.TaskFactory<AuthUser>() {
+			@Override
+			public Task<AuthUser> create() {
+				return backend.createUser( email, password );
+			}
+		}, mAuthResultListener, callbackId );
+	}
+
+	public void signInWithEmailAndPassword( final String email, final String password, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				signInWithEmailAndPassword( email, password, callbackId );
+			}
+		} ) ) return;
+		String hash = StringUtils.getSHA256( email + "\u0000" + password );
+		/* Without the digest the calls cannot be told apart safely, so each gets its own key */
+		final String key = (hash != null) ? "signInWithEmail:" + hash : "signInWithEmail#" + callbackId;
+		InFlightOperations.Operation operation = mInFlightOperations.attach( key, callbackId );
+		if( operation == null ) {
+			AIR.log( "Sign in with the same email is in progress, waiting for its result" );
+			return;
+		}
+		OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+		final AuthBackend backend = mBackend;
+		RetryEngine.Handle handle = mRetryEngine.execute( "signInWithEmailAndPassword", RetryPolicy.IDEMPOTENT, OperationScheduler.INTERACTIVE, new RetryEngine.TaskFactory<AuthUser>() {
+			@Override
+			public Task<AuthUser> create() {
+				return backend.signInWithEmailAndPassword( email, password );
+			}
+		}, new OnCompleteListener<AuthUser>() {
+			@Override
+			public void onComplete( @NonNull Task<AuthUser> task ) {
+				processSharedAuthResponse( task, key );
+			}
+		} );
+		mInFlightOperations.setHandle( operation, handle );
+	}
+
+	public void signInAnonymously( final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				signInAnonymously( callbackId );
+			}
+		} ) ) return;
+		final String key = "signInAnonymously";
+		InFlightOperations.Operation operation = mInFlightOperations.attach( key, callbackId );
+		if( operation == null ) {
+			AIR.log( "Anonymous sign in is in progress, waiting for its result" );
+			return;
+		}
+		OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+		final AuthBackend backend = mBackend;
+		RetryEngine.Handle handle = mRetryEngine.execute( "signInAnonymously", RetryPolicy.NONE, OperationScheduler.INTERACTIVE, new RetryEngine.TaskFactory<AuthUser>() {
+			@Override
+			public Task<AuthUser> create() {
+				return backend.signInAnonymously();
+			}
+		}, new OnCompleteListener<AuthUser>() {
+			@Override
+			public void onComplete( @NonNull Task<AuthUser> task ) {
+				processSharedAuthResponse( task, key );
+			}
+		} );
+		mInFlightOperations.setHandle( operation, handle );
+	}
+
+	public void signInWithCredential( final AuthCredential credential, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				signInWithCredential( credential, callbackId );
+			}
+		} ) ) return;
+		OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+		final AuthBackend backend = mBackend;
+		mRetryEngine.execute( "signInWithCredential", RetryPolicy.IDEMPOTENT, OperationScheduler.INTERACTIVE, new RetryEngine.TaskFactory<AuthUser>() {
+			@Override
+			public Task<AuthUser> create() {
+				return backend.signInWithCredential( credential );
+			}
+		}, mAuthResultListener, callbackId );
 	}
 
-	public void linkWithCredential( AuthCredential credential, final int callbackId ) {
-		FirebaseUser user = getUser();
+	public void linkWithCredential( final AuthCredential credential, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				linkWithCredential( credential, callbackId );
+			}
+		} ) ) return;
+		AuthUser user = getUser();
 		if( user != null ) {
-			user.linkWithCredential( credential )
-					.addOnCompleteListener( new OnCompleteListener<AuthResult>() {
-						@Override
-						public void onComplete( @NonNull Task<AuthResult> task ) {
-							processAuthResponse( task, callbackId );
-						}
-					} );
+			OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+			final AuthBackend backend = mBackend;
+			mRetryEngine.execute( "linkWithCredential", RetryPolicy.NONE, OperationScheduler.ACCOUNT, new RetryEngine.TaskFactory<AuthUser>() {
+				@Override
+				public Task<AuthUser> create() {
+					return backend.linkWithCredential( credential );
+				}
+			}, mAuthResultListener, callbackId );
 		} else {
 			dispatchAuthErrorResponse( "Unable to link with provider, user is not signed in.", callbackId );
 		}
 	}
 
-	public void reauthenticateWithCredential( AuthCredential credential, final int callbackId ) {
-		FirebaseUser user = getUser();
+	public void reauthenticateWithCredential( final AuthCredential credential, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				reauthenticateWithCredential( credential, callbackId );
+			}
+		} ) ) return;
+		AuthUser user = getUser();
 		if( user != null ) {
-			user.reauthenticate( credential )
-					.addOnCompleteListener( new OnCompleteListener<Void>() {
-						@Override
-						public void onComplete( @NonNull Task<Void> task ) {
-							processProfileChangeResponse( task, callbackId );
-						}
-					} );
+			OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+			final AuthBackend backend = mBackend;
+			mRetryEngine.execute( "reauthenticateWithCredential", RetryPolicy.IDEMPOTENT, OperationScheduler.ACCOUNT, new RetryEngine.TaskFactory<Void>() {
+				@Override
+				public Task<Void> create() {
+					return backend.reauthenticate( credential );
+				}
+			}, mProfileChangeListener, callbackId );
 		} else {
 			dispatchProfileChangeErrorResponse( "Unable to reauthenticate user, user is not signed in.", callbackId );
 		}
 	}
 
-	public void processAuthResponse( @NonNull Task<AuthResult> task, int callbackId ) {
+	public void processAuthResponse( @NonNull Task<AuthUser> task, int callbackId ) {
+		OperationTracer.mark( callbackId, OperationTracer.TASK_COMPLETED );
 		if( task.isSuccessful() ) {
-			JSONObject response = new JSONObject();
-			try {
-				response.put( "user", getJSONFromUser( task.getResult().getUser() ) );
-				response.put( "callbackId", callbackId );
-				AIR.dispatchEvent( FirebaseAuthEvent.SIGN_IN_SUCCESS, response.toString() );
-			} catch( JSONException e ) {
-				e.printStackTrace();
-				AIR.log( "User authentication success, but failed to create response" );
-				dispatchAuthErrorResponse( "Failed to create response.", callbackId );
+			AuthUser user = task.getResult();
+			if( user == null ) {
+				user = getUser();
+			}
+			/* Sign in, link and unlink may all change the user's data */
+			mSnapshotCache.invalidate();
+			persistUser( user );
+			if( !PendingOperations.complete( callbackId ) ) return;
+			OperationTracer.mark( callbackId, OperationTracer.SERIALIZATION_START );
+			if( mBinaryPayloads ) {
+				int slot = EventPayloadStore.put( UserBinaryWriter.getPayload( mSnapshotCache.getBinary( user ), callbackId ) );
+				OperationTracer.mark( callbackId, OperationTracer.SERIALIZATION_END );
+				dispatchEvent( FirebaseAuthEvent.SIGN_IN_SUCCESS_BINARY, String.valueOf( slot ) );
+			} else {
+				String json = UserJSONWriter.getAuthResponseJSON( mSnapshotCache.getJSON( user ), callbackId );
+				OperationTracer.mark( callbackId, OperationTracer.SERIALIZATION_END );
+				dispatchEvent( FirebaseAuthEvent.SIGN_IN_SUCCESS, json );
 			}
+			OperationTracer.end( callbackId );
 		} else {
 			String errorMessage = (task.getException() != null) ? task.getException().getLocalizedMessage() : "Unknown error.";
-			AIR.log( "Error authenticating user: " + errorMessage );
+			AIR.log( callbackId, "Error authenticating user: {}", errorMessage );
 			dispatchAuthErrorResponse( errorMessage, callbackId );
 		}
 	}
 
-	public void unlinkFromProvider( String providerId, final int callbackId ) {
-		FirebaseUser user = getUser();
+	public void unlinkFromProvider( final String providerId, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				unlinkFromProvider( providerId, callbackId );
+			}
+		} ) ) return;
+		AuthUser user = getUser();
 		if( user != null ) {
-			user.unlink( providerId )
-					.addOnCompleteListener( new OnCompleteListener<AuthResult>() {
-						@Override
-						public void onComplete( @NonNull Task<AuthResult> task ) {
-							processAuthResponse( task, callbackId );
-						}
-					} );
+			OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+			final AuthBackend backend = mBackend;
+			mRetryEngine.execute( "unlinkFromProvider", RetryPolicy.NONE, OperationScheduler.ACCOUNT, new RetryEngine.TaskFactory<AuthUser>() {
+				@Override
+				public Task<AuthUser> create() {
+					return backend.unlink( providerId );
+				}
+			}, mAuthResultListener, callbackId );
 		} else {
 			dispatchAuthErrorResponse( "Unable to unlink from provider, user is not signed in.", callbackId );
 		}
 	}
 
-	public void updateEmail( String email, final int callbackId ) {
-		FirebaseUser user = getUser();
+	public void updateEmail( final String email, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				updateEmail( email, callbackId );
+			}
+		} ) ) return;
+		AuthUser user = getUser();
 		if( user != null ) {
-			user.updateEmail( email )
-					.addOnCompleteListener( new OnCompleteListener<Void>() {
-						@Override
-						public void onComplete( @NonNull Task<Void> task ) {
-							processProfileChangeResponse( task, callbackId );
-						}
-					} );
+			OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+			final AuthBackend backend = mBackend;
+			mRetryEngine.execute( "updateEmail", RetryPolicy.NONE, OperationScheduler.BACKGROUND, new RetryEngine.TaskFactory<Void>() {
+				@Override
+				public Task<Void> create() {
+					return backend.updateEmail( email );
+				}
+			}, mUserChangeListener, callbackId );
 		} else {
 			dispatchProfileChangeErrorResponse( "Unable to update email, user is not signed in.", callbackId );
 		}
 	}
 
-	public void updatePassword( String password, final int callbackId ) {
-		FirebaseUser user = getUser();
+	public void updatePassword( final String password, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				updatePassword( password, callbackId );
+			}
+		} ) ) return;
+		AuthUser user = getUser();
 		if( user != null ) {
-			user.updatePassword( password )
-					.addOnCompleteListener( new OnCompleteListener<Void>() {
-						@Override
-						public void onComplete( @NonNull Task<Void> task ) {
-							processProfileChangeResponse( task, callbackId );
-						}
-					} );
+			OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+			final AuthBackend backend = mBackend;
+			mRetryEngine.execute( "updatePassword", RetryPolicy.IDEMPOTENT, OperationScheduler.BACKGROUND, new RetryEngine.TaskFactory<Void>() {
+				@Override
+				public Task<Void> create() {
+					return backend.updatePassword( password );
+				}
+			}, mProfileChangeListener, callbackId );
 		} else {
 			dispatchProfileChangeErrorResponse( "Unable to update password, user is not signed in.", callbackId );
 		}
 	}
 
 	public void deleteUser( final int callbackId ) {
-		FirebaseUser user = getUser();
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				deleteUser( callbackId );
+			}
+		} ) ) return;
+		AuthUser user = getUser();
 		if( user != null ) {
-			user.delete()
-					.addOnCompleteListener( new OnCompleteListener<Void>() {
-						@Override
-						public void onComplete( @NonNull Task<Void> task ) {
-							processProfileChangeResponse( task, callbackId );
-						}
-					} );
+			OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+			final AuthBackend backend = mBackend;
+			mRetryEngine.execute( "deleteUser", RetryPolicy.NONE, OperationScheduler.ACCOUNT, new RetryEngine.TaskFactory<Void>() {
+				@Override
+				public Task<Void> create() {
+					return backend.delete();
+				}
+			}, mUserChangeListener, callbackId );
 		} else {
 			dispatchProfileChangeErrorResponse( "Unable to delete user, user is not signed in.", callbackId );
 		}
 	}
 
-	public void updateUserProfile( String displayName, String photoURL, final int callbackId ) {
-		FirebaseUser user = getUser();
+	public void updateUserProfile( final String displayName, final String photoURL, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				updateUserProfile( displayName, photoURL, callbackId );
+			}
+		} ) ) return;
+		AuthUser user = getUser();
 		if( user != null ) {
-			UserProfileChangeRequest.Builder request = new UserProfileChangeRequest.Builder();
-			if( displayName != null ) {
-				request.setDisplayName( displayName );
-			}
-			if( photoURL != null ) {
-				request.setPhotoUri( Uri.parse( photoURL ) );
-			}
-			user.updateProfile( request.build() )
-					.addOnCompleteListener( new OnCompleteListener<Void>() {
-						@Override
-						public void onComplete( @NonNull Task<Void> task ) {
-							processProfileChangeResponse( task, callbackId );
+			final String uid = user.getUid();
+			if( isProfileJournalActive() && (!mConnectivityMonitor.isConnected() || mProfileJournal.hasEntries( uid )) ) {
+				/* No point trying while offline, and earlier journaled changes must be applied first */
+				journalProfileChange( uid, displayName, photoURL, callbackId );
+				return;
+			}
+			OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+			RetryEngine.CallbackListener<Void> listener = mUserChangeListener;
+			if( isProfileJournalActive() ) {
+				listener = new RetryEngine.CallbackListener<Void>() {
+					@Override
+					public void onComplete( @NonNull Task<Void> task, int callbackId ) {
+						if( !task.isSuccessful() && RetryPolicy.isTransient( task.getException() ) ) {
+							journalProfileChange( uid, displayName, photoURL, callbackId );
+							return;
 						}
-					} );
+						mUserChangeListener.onComplete( task, callbackId );
+					}
+				};
+			}
+			final AuthBackend backend = mBackend;
+			mRetryEngine.execute( "updateUserProfile", RetryPolicy.IDEMPOTENT, OperationScheduler.BACKGROUND, new RetryEngine.TaskFactory<Void>() {
+				@Override
+				public Task<Void> create() {
+					return backend.updateProfile( displayName, photoURL );
+				}
+			}, listener, callbackId );
 		} else {
 			dispatchProfileChangeErrorResponse( "Unable to update profile, user is not signed in.", callbackId );
 		}
 	}
 
+	/**
+	 * Enables or disables journaling of profile changes that fail while the device is offline.
+	 * Journaled changes are applied in order once the device is online again. Disabling the journal
+	 * keeps the pending changes, they are applied after the journal is enabled again.
+	 */
+	public void setProfileJournalEnabled( boolean enabled, Context context ) {
+		if( enabled ) {
+			mProfileJournal.open( context.getFilesDir() );
+			mConnectivityMonitor.start( context );
+			mProfileJournalEnabled = true;
+			AuthExecutors.runInBackground( mJournalReplayRunnable );
+		} else {
+			mProfileJournalEnabled = false;
+			mConnectivityMonitor.stop();
+		}
+	}
+
+	/**
+	 * Applies the given changes one after another, stopping at the first failure, and dispatches
+	 * a single event with the result of each change and the updated user. <code>null</code> values are not changed.
+	 */
+	public void updateUserBatch( final String email, final String password, final String displayName, final String photoURL, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				updateUserBatch( email, password, displayName, photoURL, callbackId );
+			}
+		} ) ) return;
+		AuthUser user = getUser();
+		if( user == null ) {
+			dispatchUserBatchResponse( null, "Unable to update user, user is not signed in.", callbackId );
+			return;
+		}
+		UserUpdateBatch batch = new UserUpdateBatch( mBackend, mRetryEngine );
+		if( email != null ) {
+			batch.addEmail( email );
+		}
+		if( password != null ) {
+			batch.addPassword( password );
+		}
+		if( displayName != null || photoURL != null ) {
+			batch.addProfile( displayName, photoURL );
+		}
+		OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+		batch.run( new UserUpdateBatch.Listener() {
+			@Override
+			public void onBatchComplete( UserUpdateBatch batch ) {
+				OperationTracer.mark( callbackId, OperationTracer.TASK_COMPLETED );
+				if( batch.getCompletedCount() > 0 ) {
+					mSnapshotCache.invalidate();
+					persistUser( getUser() );
+				}
+				dispatchUserBatchResponse( batch, batch.getErrorMessage(), callbackId );
+			}
+		} );
+	}
+
+	/**
+	 * Starts reading the user persisted during the last session on the background thread, so that
+	 * <code>restoreUser()</code> does not wait for the disk. Does nothing if the read has already started.
+	 *
+	 * @param directory App's private directory where the snapshot is stored.
+	 */
+	public synchronized void preloadUser( File directory ) {
+		if( mUserPreload != null || directory == null ) return;
+		mSnapshotStore.setDirectory( directory );
+		mUserPreload = new FutureTask<String>( new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return mSnapshotStore.read();
+			}
+		} );
+		AuthExecutors.getBackgroundHandler().post( mUserPreload );
+	}
+
+	/**
+	 * Returns JSON of the user persisted during the last session, or <code>null</code> if no user was signed in.
+	 * The snapshot is read by <code>preloadUser()</code>, which is started here unless it already has been.
+	 * The caller blocks until the read is done, for at most <code>RESTORE_TIMEOUT</code>, after which
+	 * <code>null</code> is returned and the user is only reported by the auth state listener.
+	 * Must not be called from the background handler thread.
+	 *
+	 * @param directory App's private directory where the snapshot is stored.
+	 */
+	public String restoreUser( File directory ) {
+		FutureTask<String> preload;
+		synchronized( this ) {
+			preloadUser( directory );
+			preload = mUserPreload;
+			/* The next restore reads the snapshot again, it may have changed in the meantime */
+			mUserPreload = null;
+		}
+		if( preload == null ) return null;
+		try {
+			return preload.get( RESTORE_TIMEOUT, TimeUnit.MILLISECONDS );
+		} catch( TimeoutException e ) {
+			AIR.log( "Reading the user snapshot did not finish within {} ms", RESTORE_TIMEOUT );
+		} catch( InterruptedException e ) {
+			e.printStackTrace();
+		} catch( ExecutionException e ) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	public void signOut() {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				signOut();
+			}
+		} ) ) return;
+		mBackend.signOut();
+	}
+
+	/**
+	 * Dispatches ID token of the current user. Unless <code>forceRefresh</code> is <code>true</code>,
+	 * cached token is returned if it is not about to expire. Concurrent requests share a single refresh.
+	 */
+	public void getIdToken( final boolean forceRefresh, final int callbackId ) {
+		if( !mInitializer.isReady() && mInitializer.deferUntilReady( new Runnable() {
+			@Override
+			public void run() {
+				getIdToken( forceRefresh, callbackId );
+			}
+		} ) ) return;
+		AuthUser user = getUser();
+		if( user == null ) {
+			dispatchIdTokenErrorResponse( "Unable to get ID token, user is not signed in.", callbackId );
+			return;
+		}
+		mIdTokenRequested = true;
+		if( !forceRefresh ) {
+			String token = mIdTokenCache.get( user.getUid() );
+			if( token != null ) {
+				dispatchIdTokenResponse( token, callbackId );
+				return;
+			}
+		}
+		refreshIdToken( user, forceRefresh, callbackId );
+	}
+
+	/**
+	 * Dispatches error of an operation that responds with the user, e.g. sign in or link.
+	 */
+	public void dispatchAuthErrorResponse( String errorMessage, int callbackId ) {
+		if( !PendingOperations.complete( callbackId ) ) return;
+		dispatchEvent( FirebaseAuthEvent.SIGN_IN_ERROR, StringUtils.getEventErrorJSON( callbackId, errorMessage ) );
+		OperationTracer.end( callbackId );
+	}
+
+	/**
+	 * Dispatches error of an operation that only reports success, e.g. reauthentication or profile change.
+	 */
+	public void dispatchProfileChangeErrorResponse( String errorMessage, int callbackId ) {
+		if( !PendingOperations.complete( callbackId ) ) return;
+		dispatchEvent( FirebaseAuthEvent.PROFILE_CHANGE_ERROR, StringUtils.getEventErrorJSON( callbackId, errorMessage ) );
+		OperationTracer.end( callbackId );
+	}
+
+	/**
+	 * Dispatches event of this app to AS. Events of the named apps are wrapped in
+	 * the <code>APP_EVENT</code> event with the app name, original code and level.
+	 */
+	public void dispatchEvent( String code, String level ) {
+		if( mAppName == null ) {
+			AIR.dispatchEvent( code, level );
+			return;
+		}
+		StringBuilder builder = new StringBuilder( level.length() + mAppName.length() + code.length() + 32 );
+		builder.append( "{\"app\":" );
+		StringUtils.appendJSONString( builder, mAppName );
+		builder.append( ",\"code\":" );
+		StringUtils.appendJSONString( builder, code );
+		builder.append( ",\"level\":" );
+		StringUtils.appendJSONString( builder, level );
+		builder.append( '}' );
+		AIR.dispatchEvent( FirebaseAuthEvent.APP_EVENT, builder.toString() );
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	/**
+	 * When enabled, user data is dispatched as binary payloads that the AS side
+	 * retrieves using the <code>getEventPayload</code> function, instead of JSON strings.
+	 */
+	public void setBinaryPayloadsEnabled( boolean value ) {
+		mBinaryPayloads = value;
+	}
+
+	/**
+	 * Returns name of the app, or <code>null</code> for the default app.
+	 */
+	public String getAppName() {
+		return mAppName;
+	}
+
+	public AuthInitializer getInitializer() {
+		return mInitializer;
+	}
+
+	public AuthBackend getBackend() {
+		return mBackend;
+	}
+
+	/**
+	 * Replaces the backend the operations are performed against, e.g. with a fake one for load testing.
+	 * The auth state listener is moved to the new backend. Operations that have already been started,
+	 * including their retries, keep using the backend that was current when they were started.
+	 */
+	public void setBackend( AuthBackend backend ) {
+		AuthBackend previous = mBackend;
+		if( previous == backend ) return;
+		mBackend = backend;
+		mSnapshotCache.invalidate();
+		clearIdToken();
+		if( mInitializer.isReady() ) {
+			previous.removeAuthStateListener( this );
+			backend.addAuthStateListener( this );
+		}
+	}
+
+	/**
+	 * Enables or disables persisting the user snapshot, e.g. while a fake backend is in use.
+	 */
+	public void setPersistenceEnabled( boolean value ) {
+		mPersistenceEnabled = value;
+	}
+
+	public boolean isPersistenceEnabled() {
+		return mPersistenceEnabled;
+	}
+
+	public AuthStateCoalescer getAuthStateCoalescer() {
+		return mAuthStateCoalescer;
+	}
+
+	public RetryEngine getRetryEngine() {
+		return mRetryEngine;
+	}
+
+	/**
+	 * Replaces the engine that runs the operations, e.g. with one that has its own circuit breaker
+	 * and no rate limits for load testing. Operations that have already been started keep their engine.
+	 */
+	public void setRetryEngine( RetryEngine retryEngine ) {
+		mRetryEngine = retryEngine;
+	}
+
 	/**
 	 *
 	 *
@@ -213,90 +769,273 @@ public class FirebaseAuthHelper implements FirebaseAuth.AuthStateListener {
 	 *
 	 */
 
+	private void processSharedAuthResponse( @NonNull Task<AuthUser> task, String key ) {
+		List<Integer> callbacks = mInFlightOperations.complete( key );
+		if( callbacks != null ) {
+			for( Integer callbackId : callbacks ) {
+				processAuthResponse( task, callbackId );
+			}
+		}
+	}
+
+	private void refreshIdToken( AuthUser user, final boolean forceRefresh, int callbackId ) {
+		final String key = forceRefresh ? "idToken:force" : "idToken";
+		InFlightOperations.Operation operation = mInFlightOperations.attach( key, callbackId );
+		if( operation == null ) {
+			AIR.log( "ID token refresh is in progress, waiting for its result" );
+			return;
+		}
+		final String uid = user.getUid();
+		OperationTracer.mark( callbackId, OperationTracer.TASK_CREATED );
+		final AuthBackend backend = mBackend;
+		RetryEngine.Handle handle = mRetryEngine.execute( "refreshIdToken", RetryPolicy.IDEMPOTENT, OperationScheduler.ACCOUNT, new RetryEngine.TaskFactory<String>() {
+			@Override
+			public Task<String> create() {
+				return backend.getToken( forceRefresh );
+			}
+		}, new OnCompleteListener<String>() {
+			@Override
+			public void onComplete( @NonNull Task<String> task ) {
+				processIdTokenResponse( task, uid, key );
+			}
+		} );
+		mInFlightOperations.setHandle( operation, handle );
+	}
+
+	private void processIdTokenResponse( @NonNull Task<String> task, String uid, String key ) {
+		List<Integer> callbacks = mInFlightOperations.complete( key );
+		String token = task.isSuccessful() ? task.getResult() : null;
+		String errorMessage = null;
+		if( token != null ) {
+			long refreshDelay = mIdTokenCache.put( uid, token );
+			Handler handler = AuthExecutors.getBackgroundHandler();
+			handler.removeCallbacks( mIdTokenRefreshRunnable );
+			handler.postDelayed( mIdTokenRefreshRunnable, refreshDelay );
+		} else {
+			errorMessage = (task.getException() != null) ? task.getException().getLocalizedMessage() : "Unknown error.";
+			AIR.log( "Error getting ID token: {}", errorMessage );
+		}
+		if( callbacks == null ) return;
+		for( Integer callbackId : callbacks ) {
+			OperationTracer.mark( callbackId, OperationTracer.TASK_COMPLETED );
+			if( token != null ) {
+				dispatchIdTokenResponse( token, callbackId );
+			} else {
+				dispatchIdTokenErrorResponse( errorMessage, callbackId );
+			}
+		}
+	}
+
+	/**
+	 * Persists snapshot of the given user, or removes it if the user is <code>null</code>.
+	 */
+	private void persistUser( AuthUser user ) {
+		if( !mPersistenceEnabled ) return;
+		final String json = (user != null) ? mSnapshotCache.getJSON( user ) : null;
+		AuthExecutors.runInBackground( new Runnable() {
+			@Override
+			public void run() {
+				if( json != null ) {
+					mSnapshotStore.write( json );
+				} else {
+					mSnapshotStore.clear();
+				}
+			}
+		} );
+	}
+
+	private void clearIdToken() {
+		mIdTokenCache.clear();
+		AuthExecutors.getBackgroundHandler().removeCallbacks( mIdTokenRefreshRunnable );
+	}
+
+	private void dispatchAuthState( AuthUser user ) {
+		persistUser( user );
+		if( user != null ) {
+			AIR.log( "User has signed in" );
+			if( mBinaryPayloads ) {
+				int slot = EventPayloadStore.put( UserBinaryWriter.getPayload( mSnapshotCache.getBinary( user ), -1 ) );
+				dispatchEvent( FirebaseAuthEvent.AUTH_STATE_SIGN_IN_BINARY, String.valueOf( slot ) );
+			} else {
+				dispatchEvent( FirebaseAuthEvent.AUTH_STATE_SIGN_IN, mSnapshotCache.getJSON( user ) );
+			}
+		} else {
+			AIR.log( "No user is currently signed in" );
+			dispatchEvent( FirebaseAuthEvent.AUTH_STATE_SIGN_OFF, "" );
+		}
+	}
+
 	private void processProfileChangeResponse( @NonNull Task<Void> task, int callbackId ) {
+		OperationTracer.mark( callbackId, OperationTracer.TASK_COMPLETED );
 		if( task.isSuccessful() ) {
-			AIR.dispatchEvent( FirebaseAuthEvent.PROFILE_CHANGE_SUCCESS, String.valueOf( callbackId ) );
+			persistUser( getUser() );
+			if( !PendingOperations.complete( callbackId ) ) return;
+			dispatchEvent( FirebaseAuthEvent.PROFILE_CHANGE_SUCCESS, String.valueOf( callbackId ) );
+			OperationTracer.end( callbackId );
 		} else {
 			String errorMessage = (task.getException() != null) ? task.getException().getLocalizedMessage() : "Unknown error.";
-			AIR.log( "Error changing user profile: " + errorMessage );
+			AIR.log( callbackId, "Error changing user profile: {}", errorMessage );
 			dispatchProfileChangeErrorResponse( errorMessage, callbackId );
 		}
 	}
 
-	private void dispatchAuthErrorResponse( String errorMessage, int callbackId ) {
-		AIR.dispatchEvent( FirebaseAuthEvent.SIGN_IN_ERROR, StringUtils.getEventErrorJSON( callbackId, errorMessage ) );
+	private boolean isProfileJournalActive() {
+		/* Changes made against a fake backend must not be applied later */
+		return mProfileJournalEnabled && mPersistenceEnabled;
 	}
 
-	private void dispatchProfileChangeErrorResponse( String errorMessage, int callbackId ) {
-		AIR.dispatchEvent( FirebaseAuthEvent.PROFILE_CHANGE_ERROR, StringUtils.getEventErrorJSON( callbackId, errorMessage ) );
+	private void journalProfileChange( String uid, String displayName, String photoURL, final int callbackId ) {
+		List<ProfileJournal.Entry> superseded = new ArrayList<ProfileJournal.Entry>( 0 );
+		/* AS is told the change is queued only once it is safely on disk */
+		mProfileJournal.append( uid, displayName, photoURL, superseded, new ProfileJournal.AppendListener() {
+			@Override
+			public void onAppended( ProfileJournal.Entry entry, boolean saved ) {
+				processProfileJournalAppend( entry, saved, callbackId );
+			}
+		} );
+		for( ProfileJournal.Entry removed : superseded ) {
+			dispatchProfileJournalEvent( removed, JOURNAL_SUPERSEDED, null );
+		}
 	}
 
-	private String getJSONFromUser( FirebaseUser newUser ) {
-		FirebaseUser user = (newUser == null) ? getUser() : newUser;
-		if( user != null ) {
-			JSONObject json = new JSONObject();
-			try {
-				json.put( "uid", user.getUid() );
-				json.put( "isAnonymous", user.isAnonymous() );
-				if( user.getDisplayName() != null ) {
-					json.put( "displayName", user.getDisplayName() );
-				}
-				if( user.getEmail() != null ) {
-					json.put( "email", user.getEmail() );
-				}
-				if( user.getPhotoUrl() != null ) {
-					json.put( "email", user.getPhotoUrl().toString() );
-				}
-				JSONArray providerData = new JSONArray();
-				for( UserInfo userInfo : user.getProviderData() ) {
-					String userInfoJSON = getJSONFromUserInfo( userInfo );
-					if( userInfoJSON != null ) {
-						providerData.put( userInfoJSON );
-					}
-				}
-				if( providerData.length() > 0 ) {
-					json.put( "providerData", providerData );
-				}
-			} catch( JSONException e ) {
-				e.printStackTrace();
-			}
-			return json.toString();
+	private void processProfileJournalAppend( ProfileJournal.Entry entry, boolean saved, int callbackId ) {
+		if( !saved ) {
+			AIR.log( callbackId, "Failed to save profile change {} to the journal", entry.getId() );
+			mProfileJournal.finish( entry );
+			dispatchProfileChangeErrorResponse( "Unable to save the profile change until the device is online.", callbackId );
+			return;
+		}
+		AIR.log( callbackId, "Profile change has been journaled as entry {}", entry.getId() );
+		if( PendingOperations.complete( callbackId ) ) {
+			dispatchEvent( FirebaseAuthEvent.PROFILE_CHANGE_QUEUED, "{\"callbackId\":" + callbackId + ",\"entryId\":" + entry.getId() + "}" );
+			OperationTracer.end( callbackId );
+		}
+		if( mConnectivityMonitor.isConnected() ) {
+			replayProfileJournal();
 		}
-		return null;
 	}
 
-	private String getJSONFromUserInfo( UserInfo userInfo ) {
-		JSONObject json = new JSONObject();
-		try {
-			String providerId = userInfo.getProviderId();
-			if( providerId != null ) {
-				json.put( "providerId", providerId );
-			}
-			String uid = userInfo.getUid();
-			if( uid != null ) {
-				json.put( "uid", uid );
-			}
-			String displayName = userInfo.getDisplayName();
-			if( displayName != null ) {
-				json.put( "displayName", displayName );
+	/**
+	 * Applies the oldest journaled change of the current user, the next one is applied when it completes.
+	 */
+	private void replayProfileJournal() {
+		if( !isProfileJournalActive() || !mInitializer.isReady() || !mConnectivityMonitor.isConnected() ) return;
+		AuthUser user = getUser();
+		if( user == null ) return;
+		final ProfileJournal.Entry entry = mProfileJournal.begin( user.getUid() );
+		if( entry == null ) return;
+		AIR.log( "Applying journaled profile change {}", entry.getId() );
+		final AuthBackend backend = mBackend;
+		mJournalReplayEntry = entry;
+		mJournalReplay = mRetryEngine.execute( "updateUserProfile", RetryPolicy.IDEMPOTENT, OperationScheduler.BACKGROUND, new RetryEngine.TaskFactory<Void>() {
+			@Override
+			public Task<Void> create() {
+				return backend.updateProfile( entry.getDisplayName(), entry.getPhotoURL() );
 			}
-			String email = userInfo.getEmail();
-			if( email != null ) {
-				json.put( "email", email );
+		}, new OnCompleteListener<Void>() {
+			@Override
+			public void onComplete( @NonNull Task<Void> task ) {
+				processProfileJournalResponse( task, entry );
 			}
-			Uri photoURL = userInfo.getPhotoUrl();
-			if( photoURL != null ) {
-				json.put( "photoURL", photoURL.toString() );
+		} );
+		AuthExecutors.getBackgroundHandler().postDelayed( mJournalReplayTimeoutRunnable, JOURNAL_REPLAY_TIMEOUT );
+	}
+
+	/**
+	 * Abandons the journaled change being applied so that it does not hold its scheduler slot, it is tried again later.
+	 */
+	private void abandonProfileJournalReplay() {
+		RetryEngine.Handle replay = mJournalReplay;
+		ProfileJournal.Entry entry = mJournalReplayEntry;
+		if( replay == null || !replay.abandon() ) return;
+		AIR.log( "Journaled profile change {} has timed out", entry.getId() );
+		postponeProfileJournalEntry( entry );
+	}
+
+	/**
+	 * Keeps the entry in the journal, it is tried again when the connection is regained or after a while.
+	 */
+	private void postponeProfileJournalEntry( ProfileJournal.Entry entry ) {
+		AIR.log( "Journaled profile change {} will be applied later", entry.getId() );
+		mProfileJournal.release( entry );
+		Handler handler = AuthExecutors.getBackgroundHandler();
+		handler.removeCallbacks( mJournalReplayRunnable );
+		handler.postDelayed( mJournalReplayRunnable, JOURNAL_RETRY_DELAY );
+	}
+
+	private void processProfileJournalResponse( @NonNull Task<Void> task, ProfileJournal.Entry entry ) {
+		AuthExecutors.getBackgroundHandler().removeCallbacks( mJournalReplayTimeoutRunnable );
+		if( task.isSuccessful() ) {
+			mProfileJournal.finish( entry );
+			mSnapshotCache.invalidate();
+			persistUser( getUser() );
+			dispatchProfileJournalEvent( entry, JOURNAL_APPLIED, null );
+		} else {
+			Exception exception = task.getException();
+			if( RetryPolicy.isTransient( exception ) || exception instanceof FirebaseTooManyRequestsException ) {
+				postponeProfileJournalEntry( entry );
+				return;
 			}
-			return json.toString();
-		} catch( JSONException e ) {
-			e.printStackTrace();
+			mProfileJournal.finish( entry );
+			String errorMessage = (exception != null) ? exception.getLocalizedMessage() : "Unknown error.";
+			AIR.log( "Error applying journaled profile change {}: {}", entry.getId(), errorMessage );
+			dispatchProfileJournalEvent( entry, JOURNAL_FAILED, errorMessage );
 		}
-		return null;
+		AuthExecutors.runInBackground( mJournalReplayRunnable );
+	}
+
+	private void dispatchProfileJournalEvent( ProfileJournal.Entry entry, String status, String errorMessage ) {
+		StringBuilder builder = new StringBuilder( 96 );
+		builder.append( "{\"entryId\":" ).append( entry.getId() ).append( ",\"status\":\"" ).append( status ).append( '"' );
+		if( errorMessage != null ) {
+			builder.append( ",\"errorMessage\":" );
+			StringUtils.appendJSONString( builder, errorMessage );
+		}
+		builder.append( '}' );
+		dispatchEvent( FirebaseAuthEvent.PROFILE_JOURNAL_ENTRY, builder.toString() );
+	}
+
+	private void dispatchUserBatchResponse( UserUpdateBatch batch, String errorMessage, int callbackId ) {
+		if( !PendingOperations.complete( callbackId ) ) return;
+		OperationTracer.mark( callbackId, OperationTracer.SERIALIZATION_START );
+		StringBuilder builder = new StringBuilder( 512 );
+		builder.append( "{\"callbackId\":" ).append( callbackId ).append( ",\"results\":" );
+		if( batch != null ) {
+			batch.appendResultsJSON( builder );
+		} else {
+			builder.append( "{}" );
+		}
+		if( errorMessage != null ) {
+			builder.append( ",\"errorMessage\":" );
+			StringUtils.appendJSONString( builder, errorMessage );
+		}
+		builder.append( ",\"user\":" ).append( mSnapshotCache.getJSON( getUser() ) ).append( '}' );
+		OperationTracer.mark( callbackId, OperationTracer.SERIALIZATION_END );
+		dispatchEvent( FirebaseAuthEvent.USER_BATCH_UPDATE, builder.toString() );
+		OperationTracer.end( callbackId );
+	}
+
+	private void dispatchIdTokenResponse( String token, int callbackId ) {
+		/* Background refresh has no callback */
+		if( callbackId < 0 ) return;
+		if( !PendingOperations.complete( callbackId ) ) return;
+		StringBuilder builder = new StringBuilder( token.length() + 48 );
+		builder.append( "{\"callbackId\":" ).append( callbackId ).append( ",\"token\":" );
+		StringUtils.appendJSONString( builder, token );
+		builder.append( '}' );
+		dispatchEvent( FirebaseAuthEvent.ID_TOKEN_SUCCESS, builder.toString() );
+		OperationTracer.end( callbackId );
+	}
+
+	private void dispatchIdTokenErrorResponse( String errorMessage, int callbackId ) {
+		if( callbackId < 0 ) return;
+		if( !PendingOperations.complete( callbackId ) ) return;
+		dispatchEvent( FirebaseAuthEvent.ID_TOKEN_ERROR, StringUtils.getEventErrorJSON( callbackId, errorMessage ) );
+		OperationTracer.end( callbackId );
 	}
 
-	private FirebaseUser getUser() {
-		return FirebaseAuth.getInstance().getCurrentUser();
+	private AuthUser getUser() {
+		return mBackend.getCurrentUser();
 	}
 
 }
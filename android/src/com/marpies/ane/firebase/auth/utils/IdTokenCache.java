@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import android.util.Base64;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.Charset;
+
+/**
+ * Keeps the last ID token of the current user together with its expiry time,
+ * which is read from the <code>exp</code> claim of the token.
+ */
+public class IdTokenCache {
+
+	/**
+	 * Cached token is not handed out if it expires sooner than this (in milliseconds).
+	 */
+	private static final long MIN_VALIDITY = 60 * 1000;
+
+	/**
+	 * Token is refreshed in the background this long (in milliseconds) before it expires.
+	 */
+	private static final long REFRESH_MARGIN = 5 * 60 * 1000;
+
+	/**
+	 * Lifetime assumed for tokens whose expiry cannot be read.
+	 */
+	private static final long DEFAULT_LIFETIME = 60 * 60 * 1000;
+
+	private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+	private String mUid;
+	private String mToken;
+	private long mExpiresAt;
+
+	/**
+	 * Returns cached token of the user with the given uid, or <code>null</code> if there is none
+	 * or it is about to expire.
+	 */
+	public synchronized String get( String uid ) {
+		if( mToken == null || uid == null || !uid.equals( mUid ) ) {
+			return null;
+		}
+		if( System.currentTimeMillis() > mExpiresAt - MIN_VALIDITY ) {
+			return null;
+		}
+		return mToken;
+	}
+
+	/**
+	 * Stores token of the user with the given uid.
+	 *
+	 * @return Delay (in milliseconds) after which the token should be refreshed.
+	 */
+	public synchronized long put( String uid, String token ) {
+		long now = System.currentTimeMillis();
+		long expiresAt = getExpiryTime( token );
+		mUid = uid;
+		mToken = token;
+		mExpiresAt = (expiresAt > now) ? expiresAt : now + DEFAULT_LIFETIME;
+		return Math.max( 0, mExpiresAt - REFRESH_MARGIN - now );
+	}
+
+	public synchronized void clear() {
+		mUid = null;
+		mToken = null;
+		mExpiresAt = 0;
+	}
+
+	public synchronized String getUid() {
+		return mUid;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	/**
+	 * Returns the <code>exp</code> claim of the given JWT in milliseconds, or <code>0</code> if it cannot be read.
+	 */
+	private static long getExpiryTime( String token ) {
+		if( token == null ) {
+			return 0;
+		}
+		int start = token.indexOf( '.' );
+		int end = (start >= 0) ? token.indexOf( '.', start + 1 ) : -1;
+		if( end < 0 ) {
+			return 0;
+		}
+		try {
+			byte[] payload = Base64.decode( token.substring( start + 1, end ), Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP );
+			JSONObject claims = new JSONObject( new String( payload, UTF_8 ) );
+			return claims.optLong( "exp", 0 ) * 1000;
+		} catch( IllegalArgumentException e ) {
+			e.printStackTrace();
+		} catch( JSONException e ) {
+			e.printStackTrace();
+		}
+		return 0;
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of operations that are in progress so that identical requests
+ * made before the first one completes share its result instead of starting a new task.
+ * A callback that times out or is cancelled stops waiting for the result, and once
+ * no callback is waiting, the operation is abandoned using the handle set with <code>setHandle()</code>.
+ * Callbacks with a negative ID (i.e. without AS callback) never stop waiting.
+ */
+public class InFlightOperations {
+
+	/**
+	 * Operation in progress and the callbacks that are waiting for its result.
+	 */
+	public static class Operation {
+		private final List<Integer> mCallbacks = new ArrayList<Integer>( 2 );
+		private RetryEngine.Handle mHandle;
+		private boolean mAbandoned;
+
+		private Operation() {
+		}
+	}
+
+	private final Map<String, Operation> mOperations = new HashMap<String, Operation>();
+
+	/**
+	 * Registers callback for the operation with the given key.
+	 *
+	 * @return <code>null</code> if the callback was attached to an operation that is already in progress,
+	 *         otherwise the new operation that the caller is expected to start.
+	 */
+	public Operation attach( final String key, final int callbackId ) {
+		Operation created = null;
+		synchronized( this ) {
+			Operation operation = mOperations.get( key );
+			if( operation == null ) {
+				created = operation = new Operation();
+				mOperations.put( key, operation );
+			}
+			operation.mCallbacks.add( callbackId );
+		}
+		if( callbackId >= 0 ) {
+			boolean pending = PendingOperations.setHandle( callbackId, new RetryEngine.Handle() {
+				@Override
+				public boolean abandon() {
+					detach( key, callbackId );
+					return true;
+				}
+			} );
+			if( !pending ) {
+				detach( key, callbackId );
+			}
+		}
+		return created;
+	}
+
+	/**
+	 * Sets handle that abandons the given operation once no callback waits for its result.
+	 * The operation is abandoned right away if all its callbacks have stopped waiting in the meantime.
+	 */
+	public void setHandle( Operation operation, RetryEngine.Handle handle ) {
+		synchronized( this ) {
+			if( !operation.mAbandoned ) {
+				operation.mHandle = handle;
+				return;
+			}
+		}
+		handle.abandon();
+	}
+
+	/**
+	 * Removes the operation with the given key and returns callbacks that are waiting for its result.
+	 */
+	public synchronized List<Integer> complete( String key ) {
+		Operation operation = mOperations.remove( key );
+		return (operation != null) ? operation.mCallbacks : null;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	/**
+	 * Stops the callback from waiting for the result, abandoning the operation if it was the last one.
+	 */
+	private void detach( String key, int callbackId ) {
+		RetryEngine.Handle handle;
+		synchronized( this ) {
+			Operation operation = mOperations.get( key );
+			if( operation == null || !operation.mCallbacks.remove( Integer.valueOf( callbackId ) ) ) return;
+			if( !operation.mCallbacks.isEmpty() ) return;
+			/* Calls made from now on start a new operation */
+			mOperations.remove( key );
+			operation.mAbandoned = true;
+			handle = operation.mHandle;
+		}
+		if( handle != null ) {
+			handle.abandon();
+		}
+	}
+
+}
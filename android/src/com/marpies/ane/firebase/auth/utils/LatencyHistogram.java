@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in microseconds with log-linear buckets, i.e. every
+ * power of two range is split into a fixed number of linear sub-buckets. The relative
+ * error of the reported percentiles is bounded by the sub-bucket width (12.5%).
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	/* Covers values up to 2^40 us, which is more than enough for any operation */
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKET_COUNT = (MAX_EXPONENT + 1) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray mBuckets = new AtomicLongArray( BUCKET_COUNT );
+	private final AtomicLongArray mTotals = new AtomicLongArray( 2 ); // count, max
+
+	public void record( long micros ) {
+		if( micros < 0 ) {
+			micros = 0;
+		}
+		mBuckets.incrementAndGet( getBucketIndex( micros ) );
+		mTotals.incrementAndGet( 0 );
+		long max;
+		do {
+			max = mTotals.get( 1 );
+		} while( micros > max && !mTotals.compareAndSet( 1, max, micros ) );
+	}
+
+	public long getCount() {
+		return mTotals.get( 0 );
+	}
+
+	public long getMax() {
+		return mTotals.get( 1 );
+	}
+
+	/**
+	 * Returns upper bound of the bucket containing the given percentile (0 - 100), in microseconds.
+	 */
+	public long getPercentile( double percentile ) {
+		long count = getCount();
+		if( count == 0 ) {
+			return 0;
+		}
+		long target = (long) Math.ceil( count * percentile / 100.0 );
+		if( target < 1 ) {
+			target = 1;
+		}
+		long cumulative = 0;
+		for( int i = 0; i < BUCKET_COUNT; i++ ) {
+			cumulative += mBuckets.get( i );
+			if( cumulative >= target ) {
+				return Math.min( getBucketUpperBound( i ), getMax() );
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Appends <code>{ "count", "p50", "p90", "p99", "max" }</code> JSON object to the given builder.
+	 */
+	public void appendJSON( StringBuilder builder ) {
+		builder.append( "{\"count\":" ).append( getCount() )
+				.append( ",\"p50\":" ).append( getPercentile( 50 ) )
+				.append( ",\"p90\":" ).append( getPercentile( 90 ) )
+				.append( ",\"p99\":" ).append( getPercentile( 99 ) )
+				.append( ",\"max\":" ).append( getMax() )
+				.append( '}' );
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static int getBucketIndex( long value ) {
+		if( value < SUB_BUCKET_COUNT ) {
+			return (int) value;
+		}
+		/* Keep the highest bit plus SUB_BUCKET_BITS bits below it */
+		int shift = 63 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+		int exponent = shift + 1;
+		if( exponent > MAX_EXPONENT ) {
+			return BUCKET_COUNT - 1;
+		}
+		int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+		return exponent * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	private static long getBucketUpperBound( int index ) {
+		int exponent = index / SUB_BUCKET_COUNT;
+		int subBucket = index % SUB_BUCKET_COUNT;
+		if( exponent == 0 ) {
+			return subBucket;
+		}
+		return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << (exponent - 1)) - 1;
+	}
+
+}
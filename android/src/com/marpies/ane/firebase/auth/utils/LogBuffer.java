@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring buffer of log entries that can be written from any thread without locking.
+ * Entries keep the message template and its arguments, the message is only
+ * formatted when the buffer is dumped. Once the buffer is full, the oldest entries are overwritten.
+ */
+public class LogBuffer {
+
+	private static final String PLACEHOLDER = "{}";
+
+	private static class Entry {
+		final long mSequence;
+		final long mTime;
+		final String mThread;
+		final int mCallbackId;
+		final String mTemplate;
+		final Object mArg1;
+		final Object mArg2;
+		final Object mArg3;
+
+		Entry( long sequence, int callbackId, String template, Object arg1, Object arg2, Object arg3 ) {
+			mSequence = sequence;
+			mTime = System.currentTimeMillis();
+			mThread = Thread.currentThread().getName();
+			mCallbackId = callbackId;
+			mTemplate = template;
+			mArg1 = arg1;
+			mArg2 = arg2;
+			mArg3 = arg3;
+		}
+	}
+
+	private final AtomicReferenceArray<Entry> mEntries;
+	private final AtomicLong mNextSequence = new AtomicLong();
+	private final int mMask;
+
+	/**
+	 * @param capacity Maximum number of entries, rounded up to a power of two.
+	 */
+	public LogBuffer( int capacity ) {
+		int size = Integer.highestOneBit( Math.max( 2, capacity ) - 1 ) << 1;
+		mEntries = new AtomicReferenceArray<Entry>( size );
+		mMask = size - 1;
+	}
+
+	/**
+	 * Records an entry, <code>{}</code> placeholders in the template are replaced with the arguments when the buffer is dumped.
+	 *
+	 * @param callbackId ID of the operation the entry relates to, or <code>-1</code>.
+	 */
+	public void add( int callbackId, String template, Object arg1, Object arg2, Object arg3 ) {
+		long sequence = mNextSequence.getAndIncrement();
+		mEntries.set( (int) (sequence & mMask), new Entry( sequence, callbackId, template, arg1, arg2, arg3 ) );
+	}
+
+	/**
+	 * Returns JSON array of the recorded entries, from the oldest to the newest. Each entry has
+	 * <code>seq</code>, <code>time</code> (in milliseconds since epoch), <code>thread</code>,
+	 * <code>message</code> and, if it relates to an operation, <code>callbackId</code>.
+	 */
+	public String getJSON() {
+		long end = mNextSequence.get();
+		long start = Math.max( 0, end - mEntries.length() );
+		StringBuilder builder = new StringBuilder( 4096 );
+		builder.append( '[' );
+		boolean first = true;
+		for( long sequence = start; sequence < end; sequence++ ) {
+			Entry entry = mEntries.get( (int) (sequence & mMask) );
+			/* The slot may not be written yet, or may have been overwritten by a newer entry */
+			if( entry == null || entry.mSequence != sequence ) continue;
+			if( !first ) {
+				builder.append( ',' );
+			}
+			first = false;
+			builder.append( "{\"seq\":" ).append( entry.mSequence )
+					.append( ",\"time\":" ).append( entry.mTime )
+					.append( ",\"thread\":" );
+			StringUtils.appendJSONString( builder, String.valueOf( entry.mThread ) );
+			if( entry.mCallbackId >= 0 ) {
+				builder.append( ",\"callbackId\":" ).append( entry.mCallbackId );
+			}
+			builder.append( ",\"message\":" );
+			StringUtils.appendJSONString( builder, format( entry.mTemplate, entry.mArg1, entry.mArg2, entry.mArg3 ) );
+			builder.append( '}' );
+		}
+		builder.append( ']' );
+		return builder.toString();
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear() {
+		for( int i = 0; i < mEntries.length(); i++ ) {
+			mEntries.set( i, null );
+		}
+	}
+
+	/**
+	 * Replaces the first three <code>{}</code> placeholders in the template with the given arguments.
+	 */
+	public static String format( String template, Object arg1, Object arg2, Object arg3 ) {
+		int index = template.indexOf( PLACEHOLDER );
+		if( index < 0 ) {
+			return template;
+		}
+		StringBuilder builder = new StringBuilder( template.length() + 32 );
+		int from = 0;
+		for( int i = 0; i < 3 && index >= 0; i++ ) {
+			builder.append( template, from, index ).append( (i == 0) ? arg1 : (i == 1) ? arg2 : arg3 );
+			from = index + PLACEHOLDER.length();
+			index = template.indexOf( PLACEHOLDER, from );
+		}
+		builder.append( template, from, template.length() );
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Limits the number of backend Tasks in progress at the same time, across all apps.
+ * Operations over the limit are queued by priority class and started, highest priority first,
+ * as the running ones complete. Operations within the same class start in the order they were submitted.
+ * Queued operations that have been cancelled in the meantime are dropped without taking a slot.
+ */
+public class OperationScheduler {
+
+	/* Priority classes, from the highest */
+	public static final int INTERACTIVE = 0;
+	public static final int ACCOUNT = 1;
+	public static final int BACKGROUND = 2;
+	private static final int PRIORITY_COUNT = 3;
+	private static final String[] PRIORITY_NAMES = { "interactive", "account", "background" };
+
+	private static final int DEFAULT_MAX_CONCURRENT = 4;
+
+	private static final OperationScheduler mInstance = new OperationScheduler();
+
+	public static OperationScheduler getInstance() {
+		return mInstance;
+	}
+
+	/**
+	 * Operation waiting for a slot.
+	 */
+	public interface Operation {
+		/**
+		 * Starts the operation, which must release the slot once its Task completes.
+		 */
+		void run( Slot slot );
+
+		/**
+		 * Returns <code>true</code> if the operation is no longer needed and should not be started.
+		 */
+		boolean isCancelled();
+
+		/**
+		 * Called instead of <code>run()</code> when the operation has been cancelled while queued.
+		 */
+		void onSkipped();
+	}
+
+	/**
+	 * Slot held by a running operation. Only the first release has an effect, so the slot
+	 * may be released both when the operation is abandoned and when its Task completes.
+	 */
+	public final class Slot {
+		private boolean mReleased;
+
+		private Slot() {
+		}
+
+		public void release() {
+			synchronized( this ) {
+				if( mReleased ) return;
+				mReleased = true;
+			}
+			releaseSlot();
+		}
+	}
+
+	private static class Entry {
+		final Operation mOperation;
+		final long mQueuedNanos;
+
+		Entry( Operation operation ) {
+			mOperation = operation;
+			mQueuedNanos = System.nanoTime();
+		}
+	}
+
+	private final List<ArrayDeque<Entry>> mQueues = new ArrayList<ArrayDeque<Entry>>( PRIORITY_COUNT );
+	private final int[] mPeakQueued = new int[PRIORITY_COUNT];
+	private final long[] mQueuedCount = new long[PRIORITY_COUNT];
+	private final LatencyHistogram[] mWaitTimes = new LatencyHistogram[PRIORITY_COUNT];
+	private long mSkippedCount;
+
+	private int mRunning;
+	private int mMaxConcurrent = DEFAULT_MAX_CONCURRENT;
+
+	private OperationScheduler() {
+		for( int i = 0; i < PRIORITY_COUNT; i++ ) {
+			mQueues.add( new ArrayDeque<Entry>() );
+			mWaitTimes[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Runs the operation right away if the limit has not been reached, otherwise queues it.
+	 * The operation must release its slot once its Task completes.
+	 */
+	public void submit( int priority, Operation operation ) {
+		synchronized( this ) {
+			if( mRunning >= mMaxConcurrent ) {
+				ArrayDeque<Entry> queue = mQueues.get( priority );
+				queue.addLast( new Entry( operation ) );
+				mQueuedCount[priority]++;
+				if( queue.size() > mPeakQueued[priority] ) {
+					mPeakQueued[priority] = queue.size();
+				}
+				return;
+			}
+			mRunning++;
+		}
+		operation.run( new Slot() );
+	}
+
+	/**
+	 * Returns JSON object with the number of running operations, the limit and, for every priority class,
+	 * the current and peak queue depth, the number of operations that had to wait and their wait times (in microseconds).
+	 */
+	public synchronized String getStatsJSON() {
+		StringBuilder builder = new StringBuilder( 512 );
+		builder.append( "{\"running\":" ).append( mRunning )
+				.append( ",\"maxConcurrent\":" ).append( mMaxConcurrent )
+				.append( ",\"skipped\":" ).append( mSkippedCount );
+		for( int i = 0; i < PRIORITY_COUNT; i++ ) {
+			builder.append( ",\"" ).append( PRIORITY_NAMES[i] ).append( "\":{\"queued\":" ).append( mQueues.get( i ).size() )
+					.append( ",\"peakQueued\":" ).append( mPeakQueued[i] )
+					.append( ",\"totalQueued\":" ).append( mQueuedCount[i] )
+					.append( ",\"wait\":" );
+			mWaitTimes[i].appendJSON( builder );
+			builder.append( '}' );
+		}
+		builder.append( '}' );
+		return builder.toString();
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	/**
+	 * Sets the maximum number of operations in progress at the same time, at least <code>1</code>.
+	 */
+	public void setMaxConcurrent( int maxConcurrent ) {
+		synchronized( this ) {
+			mMaxConcurrent = Math.max( 1, maxConcurrent );
+		}
+		runQueued();
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	/**
+	 * Frees the slot of a completed or abandoned operation and starts the next queued one, if any.
+	 */
+	private void releaseSlot() {
+		synchronized( this ) {
+			mRunning--;
+		}
+		runQueued();
+	}
+
+	private void runQueued() {
+		while( true ) {
+			Entry next = null;
+			List<Operation> skipped = null;
+			synchronized( this ) {
+				if( mRunning < mMaxConcurrent ) {
+					for( int i = 0; i < PRIORITY_COUNT && next == null; i++ ) {
+						ArrayDeque<Entry> queue = mQueues.get( i );
+						while( (next = queue.pollFirst()) != null ) {
+							if( !next.mOperation.isCancelled() ) {
+								mWaitTimes[i].record( (System.nanoTime() - next.mQueuedNanos) / 1000 );
+								break;
+							}
+							if( skipped == null ) {
+								skipped = new ArrayList<Operation>();
+							}
+							skipped.add( next.mOperation );
+							mSkippedCount++;
+						}
+					}
+					if( next != null ) {
+						mRunning++;
+					}
+				}
+			}
+			if( skipped != null ) {
+				for( Operation operation : skipped ) {
+					operation.onSkipped();
+				}
+			}
+			if( next == null ) return;
+			next.mOperation.run( new Slot() );
+		}
+	}
+
+}
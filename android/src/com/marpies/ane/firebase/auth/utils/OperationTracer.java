@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records timestamps of the stages each operation goes through, from the FRE call
+ * to the dispatch of the result to AS, and aggregates the stage durations
+ * into per-operation latency histograms.
+ */
+public class OperationTracer {
+
+	/* Stages */
+	public static final int FRE_ENTRY = 0;
+	public static final int TASK_CREATED = 1;
+	public static final int TASK_COMPLETED = 2;
+	public static final int SERIALIZATION_START = 3;
+	public static final int SERIALIZATION_END = 4;
+	private static final int STAGE_COUNT = 5;
+
+	/* Histograms of each operation */
+	private static final int TOTAL = 0;
+	private static final int TASK = 1;
+	private static final int SERIALIZATION = 2;
+	private static final int DISPATCH = 3;
+	private static final String[] HISTOGRAM_NAMES = { "total", "task", "serialization", "dispatch" };
+
+	private static class Trace {
+		final String mOperation;
+		final long[] mStamps = new long[STAGE_COUNT];
+
+		Trace( String operation, long entry ) {
+			mOperation = operation;
+			mStamps[FRE_ENTRY] = entry;
+		}
+	}
+
+	private static final ConcurrentHashMap<Integer, Trace> mTraces = new ConcurrentHashMap<Integer, Trace>();
+	private static final ConcurrentHashMap<String, LatencyHistogram[]> mHistograms = new ConcurrentHashMap<String, LatencyHistogram[]>();
+
+	/**
+	 * Starts tracing operation with the given callback ID.
+	 */
+	public static void begin( int callbackId, String operation ) {
+		if( callbackId < 0 ) return;
+		mTraces.put( callbackId, new Trace( operation, System.nanoTime() ) );
+	}
+
+	/**
+	 * Records the time the operation with the given callback ID reached the given stage.
+	 */
+	public static void mark( int callbackId, int stage ) {
+		Trace trace = (callbackId >= 0) ? mTraces.get( callbackId ) : null;
+		if( trace != null ) {
+			trace.mStamps[stage] = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Finishes tracing operation with the given callback ID, should be called when its result is dispatched.
+	 */
+	public static void end( int callbackId ) {
+		Trace trace = (callbackId >= 0) ? mTraces.remove( callbackId ) : null;
+		if( trace == null ) return;
+
+		long now = System.nanoTime();
+		long[] stamps = trace.mStamps;
+		LatencyHistogram[] histograms = getHistograms( trace.mOperation );
+		histograms[TOTAL].record( toMicros( now - stamps[FRE_ENTRY] ) );
+		if( stamps[TASK_CREATED] != 0 && stamps[TASK_COMPLETED] != 0 ) {
+			histograms[TASK].record( toMicros( stamps[TASK_COMPLETED] - stamps[TASK_CREATED] ) );
+		}
+		if( stamps[SERIALIZATION_START] != 0 && stamps[SERIALIZATION_END] != 0 ) {
+			histograms[SERIALIZATION].record( toMicros( stamps[SERIALIZATION_END] - stamps[SERIALIZATION_START] ) );
+		}
+		long beforeDispatch = (stamps[SERIALIZATION_END] != 0) ? stamps[SERIALIZATION_END] : stamps[TASK_COMPLETED];
+		if( beforeDispatch != 0 ) {
+			histograms[DISPATCH].record( toMicros( now - beforeDispatch ) );
+		}
+	}
+
+	/**
+	 * Stops tracing operation with the given callback ID without recording it, e.g. when it has been cancelled.
+	 */
+	public static void discard( int callbackId ) {
+		if( callbackId < 0 ) return;
+		mTraces.remove( callbackId );
+	}
+
+	/**
+	 * Returns JSON object with histograms (in microseconds) of every traced operation.
+	 */
+	public static String getMetricsJSON() {
+		StringBuilder builder = new StringBuilder( 1024 );
+		builder.append( '{' );
+		boolean first = true;
+		for( Map.Entry<String, LatencyHistogram[]> entry : mHistograms.entrySet() ) {
+			if( !first ) {
+				builder.append( ',' );
+			}
+			first = false;
+			StringUtils.appendJSONString( builder, entry.getKey() );
+			builder.append( ":{" );
+			LatencyHistogram[] histograms = entry.getValue();
+			for( int i = 0; i < histograms.length; i++ ) {
+				if( i > 0 ) {
+					builder.append( ',' );
+				}
+				builder.append( '"' ).append( HISTOGRAM_NAMES[i] ).append( "\":" );
+				histograms[i].appendJSON( builder );
+			}
+			builder.append( '}' );
+		}
+		builder.append( '}' );
+		return builder.toString();
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static LatencyHistogram[] getHistograms( String operation ) {
+		LatencyHistogram[] histograms = mHistograms.get( operation );
+		if( histograms == null ) {
+			histograms = new LatencyHistogram[HISTOGRAM_NAMES.length];
+			for( int i = 0; i < histograms.length; i++ ) {
+				histograms[i] = new LatencyHistogram();
+			}
+			LatencyHistogram[] existing = mHistograms.putIfAbsent( operation, histograms );
+			if( existing != null ) {
+				histograms = existing;
+			}
+		}
+		return histograms;
+	}
+
+	private static long toMicros( long nanos ) {
+		return nanos / 1000;
+	}
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import android.os.Handler;
+import android.util.SparseArray;
+import com.marpies.ane.firebase.auth.data.FirebaseAuthEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of operations started by AS, keyed by their callback ID. An operation that
+ * does not complete within its timeout is failed with the <code>operationTimeout</code> event,
+ * and results of timed out or cancelled operations are dropped instead of being dispatched,
+ * so that AS never holds on to callbacks that will not be called. Resources held by a running
+ * operation can be freed when it is abandoned by registering its handle with <code>setHandle()</code>.
+ */
+public class PendingOperations {
+
+	/* Default timeout (in milliseconds) of operations without a specific one */
+	private static final long DEFAULT_TIMEOUT = 60 * 1000;
+
+	private static class Operation implements Runnable {
+		final int mCallbackId;
+		final String mName;
+		private RetryEngine.Handle mHandle;
+		private boolean mAbandoned;
+
+		Operation( int callbackId, String name ) {
+			mCallbackId = callbackId;
+			mName = name;
+		}
+
+		@Override
+		public void run() {
+			timeout( this );
+		}
+
+		synchronized boolean setHandle( RetryEngine.Handle handle ) {
+			if( mAbandoned ) return false;
+			mHandle = handle;
+			return true;
+		}
+
+		void abandon() {
+			RetryEngine.Handle handle;
+			synchronized( this ) {
+				mAbandoned = true;
+				handle = mHandle;
+				mHandle = null;
+			}
+			if( handle != null ) {
+				handle.abandon();
+			}
+		}
+	}
+
+	/* Keyed by the plain callback ID so that tracking an operation does not box it, guarded by itself */
+	private static final SparseArray<Operation> mOperations = new SparseArray<Operation>();
+	private static final Map<String, Long> mTimeouts = new ConcurrentHashMap<String, Long>();
+	private static volatile long mDefaultTimeout = DEFAULT_TIMEOUT;
+
+	private static final AtomicLong mTimedOutCount = new AtomicLong();
+	private static final AtomicLong mCancelledCount = new AtomicLong();
+	private static final AtomicLong mDroppedCount = new AtomicLong();
+
+	/**
+	 * Starts tracking operation with the given callback ID and schedules its timeout.
+	 */
+	public static void begin( int callbackId, String name ) {
+		if( callbackId < 0 ) return;
+		Operation operation = new Operation( callbackId, name );
+		Operation previous;
+		synchronized( mOperations ) {
+			previous = mOperations.get( callbackId );
+			mOperations.put( callbackId, operation );
+		}
+		Handler handler = AuthExecutors.getBackgroundHandler();
+		if( previous != null ) {
+			handler.removeCallbacks( previous );
+		}
+		long timeout = getTimeout( name );
+		if( timeout > 0 ) {
+			handler.postDelayed( operation, timeout );
+		}
+	}
+
+	/**
+	 * Stops tracking operation with the given callback ID. Returns <code>true</code> if its result
+	 * should be dispatched, or <code>false</code> if the operation has timed out or has been cancelled.
+	 */
+	public static boolean complete( int callbackId ) {
+		/* Operations without a callback are not tracked */
+		if( callbackId < 0 ) return true;
+		Operation operation = remove( callbackId );
+		if( operation == null ) {
+			mDroppedCount.incrementAndGet();
+			AIR.log( callbackId, "Dropping late result of operation {}", callbackId );
+			return false;
+		}
+		AuthExecutors.getBackgroundHandler().removeCallbacks( operation );
+		return true;
+	}
+
+	/**
+	 * Cancels operation with the given callback ID, its result will not be dispatched.
+	 * Returns <code>true</code> if the operation was still pending.
+	 */
+	public static boolean cancel( int callbackId ) {
+		Operation operation = remove( callbackId );
+		if( operation == null ) return false;
+		AuthExecutors.getBackgroundHandler().removeCallbacks( operation );
+		OperationTracer.discard( callbackId );
+		mCancelledCount.incrementAndGet();
+		operation.abandon();
+		return true;
+	}
+
+	/**
+	 * Sets handle that is abandoned if the operation with the given callback ID times out or is cancelled,
+	 * replacing the previous one. Returns <code>false</code> without keeping the handle
+	 * if the operation is no longer pending.
+	 */
+	public static boolean setHandle( int callbackId, RetryEngine.Handle handle ) {
+		/* Operations without a callback are never abandoned */
+		if( callbackId < 0 ) return true;
+		Operation operation;
+		synchronized( mOperations ) {
+			operation = mOperations.get( callbackId );
+		}
+		return (operation != null) && operation.setHandle( handle );
+	}
+
+	/**
+	 * Returns JSON object with the number of pending operations and those that timed out,
+	 * were cancelled or had their result dropped.
+	 */
+	public static String getStatsJSON() {
+		return "{\"outstanding\":" + getOutstandingCount() +
+				",\"timedOut\":" + mTimedOutCount.get() +
+				",\"cancelled\":" + mCancelledCount.get() +
+				",\"droppedResults\":" + mDroppedCount.get() + "}";
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	/**
+	 * Sets timeout (in milliseconds) of operations with the given name, or of all operations
+	 * without a specific timeout if the name is <code>null</code>. Use <code>0</code> to disable the timeout.
+	 * Applies to operations started after the call.
+	 */
+	public static void setTimeout( String name, long timeout ) {
+		timeout = Math.max( 0, timeout );
+		if( name == null ) {
+			mDefaultTimeout = timeout;
+		} else {
+			mTimeouts.put( name, timeout );
+		}
+	}
+
+	public static int getOutstandingCount() {
+		synchronized( mOperations ) {
+			return mOperations.size();
+		}
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static Operation remove( int callbackId ) {
+		synchronized( mOperations ) {
+			Operation operation = mOperations.get( callbackId );
+			if( operation != null ) {
+				mOperations.remove( callbackId );
+			}
+			return operation;
+		}
+	}
+
+	private static long getTimeout( String name ) {
+		Long timeout = (name != null) ? mTimeouts.get( name ) : null;
+		return (timeout != null) ? timeout : mDefaultTimeout;
+	}
+
+	private static void timeout( Operation operation ) {
+		/* The operation may have completed in the meantime */
+		synchronized( mOperations ) {
+			if( mOperations.get( operation.mCallbackId ) != operation ) return;
+			mOperations.remove( operation.mCallbackId );
+		}
+		mTimedOutCount.incrementAndGet();
+		OperationTracer.discard( operation.mCallbackId );
+		operation.abandon();
+		AIR.log( operation.mCallbackId, "Operation {} has timed out", operation.mName );
+		AIR.dispatchEvent( FirebaseAuthEvent.OPERATION_TIMEOUT, StringUtils.getEventErrorJSON( operation.mCallbackId, "The operation has timed out." ) );
+	}
+
+}
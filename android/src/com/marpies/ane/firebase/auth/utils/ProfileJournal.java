@@ -0,0 +1,472 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of profile changes (display name and photo URL) that could not be applied
+ * because the device was offline. Setting the same field again supersedes the pending value,
+ * so that only the latest value of each field is sent once the device is online.
+ * The journal is stored in the app's private storage and survives restarts:
+ *
+ * <pre>
+ * record: int payload length, payload, int CRC32 of the payload
+ * add:    byte 1, int id, utf uid, byte flags, [utf displayName], [utf photoURL]
+ * remove: byte 2, int id
+ * utf:    int length, UTF-8 bytes
+ * </pre>
+ *
+ * File writes are done in order on the background thread, the file is rewritten
+ * with the pending entries only once it mostly contains removed ones. Reading stops
+ * at the first record that is incomplete or fails its checksum.
+ */
+public class ProfileJournal {
+
+	public static class Entry {
+		private final int mId;
+		private final String mUid;
+		private String mDisplayName;
+		private String mPhotoURL;
+
+		Entry( int id, String uid, String displayName, String photoURL ) {
+			mId = id;
+			mUid = uid;
+			mDisplayName = displayName;
+			mPhotoURL = photoURL;
+		}
+
+		public int getId() {
+			return mId;
+		}
+
+		public String getUid() {
+			return mUid;
+		}
+
+		public String getDisplayName() {
+			return mDisplayName;
+		}
+
+		public String getPhotoURL() {
+			return mPhotoURL;
+		}
+
+		boolean isEmpty() {
+			return mDisplayName == null && mPhotoURL == null;
+		}
+	}
+
+	/**
+	 * Notified on the background thread once an appended entry has been written and synced to the file, or has failed to.
+	 */
+	public interface AppendListener {
+		void onAppended( Entry entry, boolean saved );
+	}
+
+	private static final String FILE_PREFIX = "com.marpies.ane.firebase.auth.journal";
+	private static final String FILE_EXTENSION = ".dat";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private static final int RECORD_ADD = 1;
+	private static final int RECORD_REMOVE = 2;
+
+	private static final int FLAG_DISPLAY_NAME = 1;
+	private static final int FLAG_PHOTO_URL = 1 << 1;
+
+	/* Upper bound of a record's payload, anything larger is a damaged length */
+	private static final int MAX_PAYLOAD_LENGTH = 1 << 24;
+
+	private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+	/* Number of records in the file before it is considered for compaction */
+	private static final int COMPACTION_THRESHOLD = 32;
+
+	private final String mFileName;
+	private final List<Entry> mEntries = new ArrayList<Entry>();
+	private File mFile;
+	private File mTempFile;
+
+	private int mNextId = 1;
+	private int mRecordCount;
+	/* Entry that is being applied, it is not superseded until it completes */
+	private Entry mActiveEntry;
+
+	/**
+	 * @param appName Name of the app whose changes are journaled, or <code>null</code> for the default app.
+	 */
+	public ProfileJournal( String appName ) {
+		mFileName = FILE_PREFIX + ((appName != null) ? "." + Integer.toHexString( appName.hashCode() ) : "") + FILE_EXTENSION;
+	}
+
+	/**
+	 * Loads the journal from the given directory, does nothing if it has been loaded already.
+	 */
+	public synchronized void open( File directory ) {
+		if( mFile != null || directory == null ) return;
+		mFile = new File( directory, mFileName );
+		mTempFile = new File( directory, mFileName + TEMP_SUFFIX );
+		if( mFile.exists() && !load() ) {
+			/* Torn or unreadable tail would hide records appended after it */
+			AIR.log( "Profile journal is damaged, keeping {} readable entries", mEntries.size() );
+			compact();
+		}
+	}
+
+	/**
+	 * Adds profile change of the given user, <code>null</code> values are left unchanged.
+	 * Pending entries left with no change after being superseded are removed and added to the given list.
+	 * The listener is notified once the entry has been saved.
+	 */
+	public synchronized Entry append( String uid, String displayName, String photoURL, List<Entry> superseded, AppendListener listener ) {
+		Entry entry = new Entry( mNextId++, uid, displayName, photoURL );
+		supersede( entry, superseded );
+		mEntries.add( entry );
+		write( getAddRecord( entry ), entry, listener );
+		for( Entry removed : superseded ) {
+			write( getRemoveRecord( removed.mId ), null, null );
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the oldest pending entry of the given user and marks it as active,
+	 * or returns <code>null</code> if there is none or another entry is active.
+	 */
+	public synchronized Entry begin( String uid ) {
+		if( mActiveEntry != null ) return null;
+		for( Entry entry : mEntries ) {
+			if( entry.mUid.equals( uid ) ) {
+				mActiveEntry = entry;
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the active entry once it has been applied or has failed permanently.
+	 */
+	public synchronized void finish( Entry entry ) {
+		if( mActiveEntry == entry ) {
+			mActiveEntry = null;
+		}
+		if( mEntries.remove( entry ) ) {
+			write( getRemoveRecord( entry.mId ), null, null );
+		}
+		if( mRecordCount > COMPACTION_THRESHOLD && mRecordCount > 2 * mEntries.size() ) {
+			compact();
+		}
+	}
+
+	/**
+	 * Keeps the active entry in the journal so that it is applied again later.
+	 */
+	public synchronized void release( Entry entry ) {
+		if( mActiveEntry == entry ) {
+			mActiveEntry = null;
+		}
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	public synchronized boolean hasEntries( String uid ) {
+		for( Entry entry : mEntries ) {
+			if( entry.mUid.equals( uid ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public synchronized int getSize() {
+		return mEntries.size();
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private void supersede( Entry entry, List<Entry> superseded ) {
+		Iterator<Entry> iterator = mEntries.iterator();
+		while( iterator.hasNext() ) {
+			Entry pending = iterator.next();
+			if( pending == mActiveEntry || !pending.mUid.equals( entry.mUid ) ) continue;
+			if( entry.mDisplayName != null ) {
+				pending.mDisplayName = null;
+			}
+			if( entry.mPhotoURL != null ) {
+				pending.mPhotoURL = null;
+			}
+			if( pending.isEmpty() ) {
+				iterator.remove();
+				if( superseded != null ) {
+					superseded.add( pending );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the journal, returns <code>false</code> if it is not readable to the end.
+	 */
+	private boolean load() {
+		DataInputStream input = null;
+		try {
+			input = new DataInputStream( new BufferedInputStream( new FileInputStream( mFile ) ) );
+			CRC32 crc = new CRC32();
+			while( true ) {
+				int length = input.read();
+				if( length == -1 ) {
+					return true;
+				}
+				length = (length << 24) | (input.readUnsignedByte() << 16) | (input.readUnsignedByte() << 8) | input.readUnsignedByte();
+				if( length <= 0 || length > MAX_PAYLOAD_LENGTH ) {
+					return false;
+				}
+				byte[] payload = new byte[length];
+				input.readFully( payload );
+				crc.reset();
+				crc.update( payload, 0, length );
+				if( input.readInt() != (int) crc.getValue() ) {
+					return false;
+				}
+				if( !readRecord( new DataInputStream( new ByteArrayInputStream( payload ) ) ) ) {
+					return false;
+				}
+				mRecordCount++;
+			}
+		} catch( EOFException e ) {
+			return false;
+		} catch( IOException e ) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			close( input );
+		}
+	}
+
+	/**
+	 * Applies a single record, returns <code>false</code> if it is not valid.
+	 */
+	private boolean readRecord( DataInputStream input ) throws IOException {
+		int type = input.read();
+		int id = input.readInt();
+		mNextId = Math.max( mNextId, id + 1 );
+		if( type == RECORD_ADD ) {
+			String uid = readString( input );
+			int flags = input.readByte();
+			String displayName = ((flags & FLAG_DISPLAY_NAME) != 0) ? readString( input ) : null;
+			String photoURL = ((flags & FLAG_PHOTO_URL) != 0) ? readString( input ) : null;
+			Entry entry = new Entry( id, uid, displayName, photoURL );
+			supersede( entry, null );
+			mEntries.add( entry );
+			return true;
+		}
+		if( type == RECORD_REMOVE ) {
+			removeEntry( id );
+			return true;
+		}
+		return false;
+	}
+
+	private void removeEntry( int id ) {
+		Iterator<Entry> iterator = mEntries.iterator();
+		while( iterator.hasNext() ) {
+			if( iterator.next().mId == id ) {
+				iterator.remove();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the journal with the pending entries.
+	 */
+	private void compact() {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream( 256 );
+		for( Entry entry : mEntries ) {
+			byte[] record = getAddRecord( entry );
+			buffer.write( record, 0, record.length );
+		}
+		mRecordCount = mEntries.size();
+		final byte[] bytes = buffer.toByteArray();
+		final File file = mFile;
+		final File tempFile = mTempFile;
+		AuthExecutors.runInBackground( new Runnable() {
+			@Override
+			public void run() {
+				FileOutputStream output = null;
+				try {
+					output = new FileOutputStream( tempFile );
+					output.write( bytes );
+					output.getFD().sync();
+					output.close();
+					output = null;
+					if( !tempFile.renameTo( file ) ) {
+						AIR.log( "Failed to replace profile journal file" );
+						tempFile.delete();
+					}
+				} catch( IOException e ) {
+					e.printStackTrace();
+					tempFile.delete();
+				} finally {
+					close( output );
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Appends the given record to the journal on the background thread, then notifies the listener, if any.
+	 */
+	private void write( final byte[] record, final Entry entry, final AppendListener listener ) {
+		final File file = mFile;
+		if( file != null ) {
+			mRecordCount++;
+		}
+		AuthExecutors.runInBackground( new Runnable() {
+			@Override
+			public void run() {
+				boolean saved = false;
+				if( file != null ) {
+					FileOutputStream output = null;
+					try {
+						output = new FileOutputStream( file, true );
+						output.write( record );
+						output.getFD().sync();
+						saved = true;
+					} catch( IOException e ) {
+						e.printStackTrace();
+					} finally {
+						close( output );
+					}
+				}
+				if( listener != null ) {
+					listener.onAppended( entry, saved );
+				}
+			}
+		} );
+	}
+
+	private static byte[] getAddRecord( Entry entry ) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream( 128 );
+		DataOutputStream output = new DataOutputStream( buffer );
+		int flags = 0;
+		if( entry.mDisplayName != null ) flags |= FLAG_DISPLAY_NAME;
+		if( entry.mPhotoURL != null ) flags |= FLAG_PHOTO_URL;
+		try {
+			output.writeByte( RECORD_ADD );
+			output.writeInt( entry.mId );
+			writeString( output, entry.mUid );
+			output.writeByte( flags );
+			if( entry.mDisplayName != null ) {
+				writeString( output, entry.mDisplayName );
+			}
+			if( entry.mPhotoURL != null ) {
+				writeString( output, entry.mPhotoURL );
+			}
+			output.flush();
+		} catch( IOException e ) {
+			/* Writing to memory does not throw */
+			e.printStackTrace();
+		}
+		return frame( buffer.toByteArray() );
+	}
+
+	private static byte[] getRemoveRecord( int id ) {
+		return frame( new byte[] {
+				(byte) RECORD_REMOVE,
+				(byte) (id >>> 24), (byte) (id >>> 16), (byte) (id >>> 8), (byte) id
+		} );
+	}
+
+	/**
+	 * Prefixes the payload with its length and appends its checksum.
+	 */
+	private static byte[] frame( byte[] payload ) {
+		CRC32 crc = new CRC32();
+		crc.update( payload, 0, payload.length );
+		int length = payload.length;
+		int checksum = (int) crc.getValue();
+		byte[] record = new byte[length + 8];
+		record[0] = (byte) (length >>> 24);
+		record[1] = (byte) (length >>> 16);
+		record[2] = (byte) (length >>> 8);
+		record[3] = (byte) length;
+		System.arraycopy( payload, 0, record, 4, length );
+		record[length + 4] = (byte) (checksum >>> 24);
+		record[length + 5] = (byte) (checksum >>> 16);
+		record[length + 6] = (byte) (checksum >>> 8);
+		record[length + 7] = (byte) checksum;
+		return record;
+	}
+
+	/**
+	 * Writes the string as its UTF-8 length and bytes, unlike <code>writeUTF()</code> it is not limited to 64 KB.
+	 */
+	private static void writeString( DataOutputStream output, String value ) throws IOException {
+		byte[] bytes = value.getBytes( UTF_8 );
+		output.writeInt( bytes.length );
+		output.write( bytes );
+	}
+
+	private static String readString( DataInputStream input ) throws IOException {
+		int length = input.readInt();
+		if( length < 0 || length > input.available() ) {
+			throw new EOFException( "Invalid string length " + length );
+		}
+		byte[] bytes = new byte[length];
+		input.readFully( bytes );
+		return new String( bytes, UTF_8 );
+	}
+
+	private static void close( Closeable closeable ) {
+		if( closeable == null ) return;
+		try {
+			closeable.close();
+		} catch( IOException e ) {
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-operation rate limits, shared by all apps since the backend quotas apply per device.
+ * Operations without a limit are not throttled. By default, account creation and sign in are limited
+ * so that a runaway loop fails locally instead of locking the device out with quota errors.
+ */
+public class RateLimiter {
+
+	/* Longest time (in milliseconds) a call is delayed, calls that would wait longer are rejected */
+	private static final long MAX_DELAY = 10 * 1000;
+
+	private static final RateLimiter mInstance = new RateLimiter();
+
+	public static RateLimiter getInstance() {
+		return mInstance;
+	}
+
+	private final ConcurrentHashMap<String, TokenBucket> mBuckets = new ConcurrentHashMap<String, TokenBucket>();
+
+	private volatile boolean mEnabled = true;
+
+	private RateLimiter() {
+		setLimit( "createUser", 5, 10, false );
+		setLimit( "signInAnonymously", 5, 10, false );
+		setLimit( "signInWithEmailAndPassword", 10, 30, true );
+		setLimit( "signInWithCredential", 10, 30, true );
+	}
+
+	/**
+	 * Takes a token for the given operation. Returns <code>0</code> if the operation may start now,
+	 * the delay (in milliseconds) after which it may start, or <code>-1</code> if it has been rejected.
+	 */
+	public long acquire( String operation ) {
+		if( !mEnabled ) {
+			return 0;
+		}
+		TokenBucket bucket = mBuckets.get( operation );
+		return (bucket != null) ? bucket.acquire() : 0;
+	}
+
+	/**
+	 * Returns JSON object with the state and counters of every limited operation.
+	 */
+	public String getStatsJSON() {
+		StringBuilder builder = new StringBuilder( 512 );
+		builder.append( '{' );
+		boolean first = true;
+		for( Map.Entry<String, TokenBucket> entry : mBuckets.entrySet() ) {
+			if( !first ) {
+				builder.append( ',' );
+			}
+			first = false;
+			StringUtils.appendJSONString( builder, entry.getKey() );
+			builder.append( ':' );
+			entry.getValue().appendJSON( builder );
+		}
+		builder.append( '}' );
+		return builder.toString();
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	/**
+	 * Enables or disables all limits, the configured limits are kept.
+	 */
+	public void setEnabled( boolean enabled ) {
+		mEnabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return mEnabled;
+	}
+
+	/**
+	 * Limits the given operation, replacing its current limit and counters.
+	 *
+	 * @param operation       Name of the operation, e.g. <code>signInWithCredential</code>.
+	 * @param capacity        Maximum number of calls in a burst, <code>0</code> removes the limit.
+	 * @param refillPerMinute Number of calls allowed per minute once the burst is used up.
+	 * @param delay           <code>true</code> to delay calls over the limit, <code>false</code> to fail them right away.
+	 */
+	public void setLimit( String operation, int capacity, double refillPerMinute, boolean delay ) {
+		if( capacity <= 0 ) {
+			mBuckets.remove( operation );
+		} else {
+			mBuckets.put( operation, new TokenBucket( capacity, refillPerMinute, delay, MAX_DELAY ) );
+		}
+	}
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import android.support.annotation.NonNull;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseNetworkException;
+import com.google.firebase.FirebaseTooManyRequestsException;
+
+import java.util.Random;
+
+/**
+ * Runs <code>Task</code>-producing operations according to their <code>RetryPolicy</code>.
+ * Transient failures are retried on the background thread after a backoff delay,
+ * and all operations share a <code>CircuitBreaker</code> that fails them fast while
+ * the backend is unreachable. The listener only receives the outcome of the last attempt.
+ * An operation is abandoned when <code>PendingOperations</code> times out or cancels its callback,
+ * or through the <code>Handle</code> returned for operations whose result is shared. Abandoned operations
+ * give their scheduler slot back right away, are not retried and notify no listener.
+ * New operations are checked against the engine's <code>RateLimiter</code> first, and each attempt waits
+ * for a slot of the <code>OperationScheduler</code> before its Task is started.
+ */
+public class RetryEngine {
+
+	private static final int FAILURE_THRESHOLD = 5;
+	private static final long COOL_DOWN = 30 * 1000;
+	private static final long TRIAL_TIMEOUT = 30 * 1000;
+
+	public interface TaskFactory<T> {
+		/**
+		 * Starts a new attempt of the operation.
+		 */
+		Task<T> create();
+	}
+
+	/**
+	 * Running operation that can be abandoned.
+	 */
+	public interface Handle {
+		/**
+		 * Stops the operation, its scheduler slot is released right away and it is not retried.
+		 * The listener is not notified, a late result of the running Task is ignored.
+		 *
+		 * @return <code>true</code> if the operation was stopped, <code>false</code> if its result has already been delivered.
+		 */
+		boolean abandon();
+	}
+
+	/**
+	 * Listener that receives callback ID of the operation along with its outcome,
+	 * so that a single instance can be shared by all operations of the same kind.
+	 */
+	public interface CallbackListener<T> {
+		void onComplete( @NonNull Task<T> task, int callbackId );
+	}
+
+	private final CircuitBreaker mCircuitBreaker = new CircuitBreaker( FAILURE_THRESHOLD, COOL_DOWN, TRIAL_TIMEOUT );
+	private final Random mRandom = new Random();
+	private final RateLimiter mRateLimiter;
+
+	private long mRetryCount;
+
+	public RetryEngine() {
+		this( RateLimiter.getInstance() );
+	}
+
+	/**
+	 * @param rateLimiter Limiter new operations are checked against, or <code>null</code> not to limit them.
+	 */
+	public RetryEngine( RateLimiter rateLimiter ) {
+		mRateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Runs the operation created by the given factory, notifying the listener on the completion executor.
+	 *
+	 * @param operation Name of the operation, used for logging.
+	 * @param priority Priority class of the operation, see <code>OperationScheduler</code>.
+	 * @return Handle that abandons the operation once nobody needs its result.
+	 */
+	public <T> Handle execute( String operation, RetryPolicy policy, int priority, TaskFactory<T> factory, OnCompleteListener<T> listener ) {
+		Attempt<T> attempt = new Attempt<T>( operation, policy, priority, factory, listener, null, -1 );
+		attempt.start();
+		return attempt;
+	}
+
+	/**
+	 * Runs the operation created by the given factory, notifying the listener on the completion executor.
+	 *
+	 * @param operation Name of the operation, used for logging.
+	 * @param priority Priority class of the operation, see <code>OperationScheduler</code>.
+	 * @param callbackId Callback ID passed to the listener. The operation is abandoned
+	 *                   when <code>PendingOperations</code> times out or cancels the callback.
+	 */
+	public <T> void execute( String operation, RetryPolicy policy, int priority, TaskFactory<T> factory, CallbackListener<T> listener, int callbackId ) {
+		Attempt<T> attempt = new Attempt<T>( operation, policy, priority, factory, null, listener, callbackId );
+		if( !PendingOperations.setHandle( callbackId, attempt ) ) {
+			/* Timed out or cancelled before it could start */
+			attempt.abandon();
+			return;
+		}
+		attempt.start();
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return mCircuitBreaker;
+	}
+
+	public synchronized long getRetryCount() {
+		return mRetryCount;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	/**
+	 * State of a single operation. The same instance is submitted to the scheduler, listens
+	 * to every attempt's Task and is posted as the delayed retry, attempts never run concurrently.
+	 * Once the result is delivered or the operation is abandoned, the operation is finished and
+	 * late Task completions are ignored.
+	 */
+	private class Attempt<T> implements OnCompleteListener<T>, Runnable, OperationScheduler.Operation, Handle {
+		private final String mOperation;
+		private final RetryPolicy mPolicy;
+		private final int mPriority;
+		private final TaskFactory<T> mFactory;
+		private final OnCompleteListener<T> mListener;
+		private final CallbackListener<T> mCallbackListener;
+		private final int mCallbackId;
+
+		private volatile int mAttempt = 1;
+		private volatile Task<T> mFailure;
+		private volatile boolean mRetryPending;
+		private volatile boolean mFinished;
+		private volatile OperationScheduler.Slot mSlot;
+		private boolean mRateLimited;
+
+		Attempt( String operation, RetryPolicy policy, int priority, TaskFactory<T> factory, OnCompleteListener<T> listener, CallbackListener<T> callbackListener, int callbackId ) {
+			mOperation = operation;
+			mPolicy = policy;
+			mPriority = priority;
+			mFactory = factory;
+			mListener = listener;
+			mCallbackListener = callbackListener;
+			mCallbackId = callbackId;
+		}
+
+		void start() {
+			if( mFinished ) return;
+			/* Only new calls count against the rate limit, retries are bounded by the policy */
+			if( !mRateLimited && mRateLimiter != null ) {
+				mRateLimited = true;
+				long delay = mRateLimiter.acquire( mOperation );
+				if( delay < 0 ) {
+					AIR.log( mCallbackId, "Rate limit of {} exceeded", mOperation );
+					mFailure = Tasks.forException( new FirebaseTooManyRequestsException( "Too many requests, please try again later." ) );
+					AuthExecutors.getCompletionExecutor().execute( this );
+					return;
+				}
+				if( delay > 0 ) {
+					AIR.log( "Delaying {} by {} ms to stay within its rate limit", mOperation, delay );
+					mRetryPending = true;
+					AuthExecutors.getBackgroundHandler().postDelayed( this, delay );
+					return;
+				}
+			}
+			OperationScheduler.getInstance().submit( mPriority, this );
+		}
+
+		@Override
+		public boolean abandon() {
+			if( !finish() ) return false;
+			AIR.log( mCallbackId, "Abandoning {}, nobody is waiting for its result", mOperation );
+			AuthExecutors.getBackgroundHandler().removeCallbacks( this );
+			OperationScheduler.Slot slot = mSlot;
+			if( slot != null ) {
+				slot.release();
+			}
+			return true;
+		}
+
+		@Override
+		public void run() {
+			if( mFinished ) return;
+			Task<T> failure = mFailure;
+			if( failure != null ) {
+				deliver( failure );
+			} else if( mRetryPending ) {
+				/* Delayed retry, waits for a slot again */
+				mRetryPending = false;
+				start();
+			}
+		}
+
+		@Override
+		public void run( OperationScheduler.Slot slot ) {
+			mSlot = slot;
+			/* The slot is released by abandon() if it has seen it, otherwise here */
+			if( mFinished ) {
+				slot.release();
+				return;
+			}
+			launch( slot );
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return mFinished;
+		}
+
+		@Override
+		public void onSkipped() {
+			AIR.log( mCallbackId, "Skipping {}, the operation has been abandoned", mOperation );
+		}
+
+		@Override
+		public void onComplete( @NonNull Task<T> task ) {
+			long start = System.nanoTime();
+			complete( task );
+			AuthExecutors.addNanos( start );
+		}
+
+		private void launch( OperationScheduler.Slot slot ) {
+			if( !mCircuitBreaker.allowRequest() ) {
+				slot.release();
+				AIR.log( mCallbackId, "Failing {} fast, backend is unreachable", mOperation );
+				mFailure = Tasks.forException( new FirebaseNetworkException( "Network is unreachable, please try again later." ) );
+				AuthExecutors.getCompletionExecutor().execute( this );
+				return;
+			}
+			/* Measured by onComplete() itself */
+			mFactory.create().addOnCompleteListener( AuthExecutors.getUnmeasuredCompletionExecutor(), this );
+		}
+
+		private void complete( Task<T> task ) {
+			mSlot.release();
+			/* Abandoned operations neither retry nor count towards the circuit breaker */
+			if( mFinished ) return;
+			if( task.isSuccessful() ) {
+				mCircuitBreaker.onSuccess();
+				deliver( task );
+				return;
+			}
+			Exception exception = task.getException();
+			if( !RetryPolicy.isTransient( exception ) ) {
+				mCircuitBreaker.onOtherFailure();
+				deliver( task );
+				return;
+			}
+			mCircuitBreaker.onNetworkFailure();
+			int attempt = mAttempt;
+			if( !mPolicy.shouldRetry( attempt, exception ) ) {
+				deliver( task );
+				return;
+			}
+			long delay = mPolicy.getDelay( attempt, mRandom );
+			if( AIR.isLogEnabled() ) {
+				/* Skips boxing the numbers when nothing is logged */
+				AIR.log( mCallbackId, "Retrying {} in {} ms, attempt {}", mOperation, delay, attempt + 1 );
+			}
+			synchronized( RetryEngine.this ) {
+				mRetryCount++;
+			}
+			mAttempt = attempt + 1;
+			mRetryPending = true;
+			AuthExecutors.getBackgroundHandler().postDelayed( this, delay );
+		}
+
+		/**
+		 * Marks the operation as finished, returns <code>false</code> if it already was.
+		 */
+		private synchronized boolean finish() {
+			if( mFinished ) return false;
+			mFinished = true;
+			return true;
+		}
+
+		private void deliver( Task<T> task ) {
+			if( !finish() ) return;
+			if( mCallbackListener != null ) {
+				mCallbackListener.onComplete( task, mCallbackId );
+			} else {
+				mListener.onComplete( task );
+			}
+		}
+	}
+
+}
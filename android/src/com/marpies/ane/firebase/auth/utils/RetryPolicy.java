@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import com.google.firebase.FirebaseNetworkException;
+
+import java.util.Random;
+
+/**
+ * Describes how many times and after what delay a failed operation is attempted again.
+ * Delays grow exponentially up to a cap, and a random jitter spreads retries of
+ * different callers apart. Only transient network errors are retried.
+ */
+public class RetryPolicy {
+
+	/**
+	 * Policy for operations that must not be repeated, e.g. account creation.
+	 */
+	public static final RetryPolicy NONE = new RetryPolicy( 1, 0, 0 );
+
+	/**
+	 * Policy for operations that can be safely repeated, e.g. reauthentication or token fetch.
+	 */
+	public static final RetryPolicy IDEMPOTENT = new RetryPolicy( 4, 500, 8000 );
+
+	private final int mMaxAttempts;
+	private final long mInitialDelay;
+	private final long mMaxDelay;
+
+	/**
+	 * @param maxAttempts  Maximum number of attempts, including the first one.
+	 * @param initialDelay Delay (in milliseconds) before the first retry.
+	 * @param maxDelay     Maximum delay (in milliseconds) between two attempts.
+	 */
+	public RetryPolicy( int maxAttempts, long initialDelay, long maxDelay ) {
+		mMaxAttempts = Math.max( 1, maxAttempts );
+		mInitialDelay = initialDelay;
+		mMaxDelay = maxDelay;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given failure of the given attempt (starting at <code>1</code>) should be retried.
+	 */
+	public boolean shouldRetry( int attempt, Exception exception ) {
+		return attempt < mMaxAttempts && isTransient( exception );
+	}
+
+	/**
+	 * Returns delay (in milliseconds) before the retry that follows the given attempt (starting at <code>1</code>).
+	 * The delay is picked randomly between half and the full exponential backoff value.
+	 */
+	public long getDelay( int attempt, Random random ) {
+		long backoff = mInitialDelay << Math.min( attempt - 1, 16 );
+		if( backoff <= 0 || backoff > mMaxDelay ) {
+			backoff = mMaxDelay;
+		}
+		long half = backoff / 2;
+		return half + (long) (random.nextDouble() * (backoff - half));
+	}
+
+	public int getMaxAttempts() {
+		return mMaxAttempts;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given exception is a network error that may go away on its own.
+	 */
+	public static boolean isTransient( Exception exception ) {
+		return exception instanceof FirebaseNetworkException;
+	}
+
+}
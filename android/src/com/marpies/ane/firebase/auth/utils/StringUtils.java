@@ -16,8 +16,14 @@
 
 package com.marpies.ane.firebase.auth.utils;
 
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 public class StringUtils {
 
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
 	public static String getEventErrorJSON( final int listenerID, String errorMessage ) {
 		return String.format( "{ \"listenerID\": %d, \"errorMessage\": \"%s\" }",
 				listenerID,
@@ -26,6 +32,65 @@ public class StringUtils {
 				removeLineBreaks( errorMessage ) );
 	}
 
+	/**
+	 * Appends given value to the builder as a quoted JSON string, escaping
+	 * characters that would otherwise break the JSON parser on the AS side.
+	 */
+	public static void appendJSONString( StringBuilder builder, String value ) {
+		builder.append( '"' );
+		final int length = value.length();
+		for( int i = 0; i < length; i++ ) {
+			char c = value.charAt( i );
+			switch( c ) {
+				case '"':
+					builder.append( "\\\"" );
+					break;
+				case '\\':
+					builder.append( "\\\\" );
+					break;
+				case '\n':
+					builder.append( "\\n" );
+					break;
+				case '\r':
+					builder.append( "\\r" );
+					break;
+				case '\t':
+					builder.append( "\\t" );
+					break;
+				default:
+					if( c < 0x20 ) {
+						builder.append( "\\u00" ).append( HEX_DIGITS[c >> 4] ).append( HEX_DIGITS[c & 0xF] );
+					} else {
+						builder.append( c );
+					}
+			}
+		}
+		builder.append( '"' );
+	}
+
+	/**
+	 * Returns hex encoded SHA-256 digest of the given value. Used to key sensitive
+	 * values (such as credentials) without keeping them in memory as they are.
+	 * Returns <code>null</code> if the digest is not available, a weaker hash must not be used instead.
+	 */
+	public static String getSHA256( String value ) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance( "SHA-256" );
+			byte[] hash = digest.digest( value.getBytes( "UTF-8" ) );
+			char[] result = new char[hash.length * 2];
+			for( int i = 0; i < hash.length; i++ ) {
+				result[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+				result[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+			}
+			return new String( result );
+		} catch( NoSuchAlgorithmException e ) {
+			e.printStackTrace();
+		} catch( UnsupportedEncodingException e ) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
 	private static String removeLineBreaks( String message ) {
 		return message.replace( "\n", "" ).replace( "\r", "" );
 	}
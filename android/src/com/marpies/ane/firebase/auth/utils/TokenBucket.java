@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+/**
+ * Token bucket that allows bursts of up to <code>capacity</code> requests and refills at a steady rate.
+ * Requests over the limit are either rejected, or get a token reserved from the future
+ * and are told how long to wait for it.
+ */
+public class TokenBucket {
+
+	private final int mCapacity;
+	private final double mTokensPerNano;
+	private final boolean mDelay;
+	private final long mMaxDelay;
+
+	private double mTokens;
+	private long mLastRefill;
+
+	private long mRejectedCount;
+	private long mDelayedCount;
+
+	/**
+	 * @param capacity        Maximum number of requests in a burst.
+	 * @param refillPerMinute Number of tokens added per minute.
+	 * @param delay           <code>true</code> to delay requests over the limit instead of rejecting them.
+	 * @param maxDelay        Longest delay (in milliseconds), requests that would wait longer are rejected.
+	 */
+	public TokenBucket( int capacity, double refillPerMinute, boolean delay, long maxDelay ) {
+		mCapacity = Math.max( 1, capacity );
+		mTokensPerNano = Math.max( 0, refillPerMinute ) / (60 * 1000000000.0);
+		mDelay = delay;
+		mMaxDelay = maxDelay;
+		mTokens = mCapacity;
+		mLastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Takes a token. Returns <code>0</code> if the request may proceed now, the delay (in milliseconds)
+	 * after which it may proceed, or <code>-1</code> if it has been rejected.
+	 */
+	public synchronized long acquire() {
+		refill();
+		if( mTokens >= 1 ) {
+			mTokens -= 1;
+			return 0;
+		}
+		long delay = (mTokensPerNano > 0) ? (long) Math.ceil( (1 - mTokens) / mTokensPerNano / 1000000 ) : Long.MAX_VALUE;
+		if( !mDelay || delay > mMaxDelay ) {
+			mRejectedCount++;
+			return -1;
+		}
+		/* Reserve the token, later requests queue up behind this one */
+		mTokens -= 1;
+		mDelayedCount++;
+		return delay;
+	}
+
+	/**
+	 * Appends <code>{ "capacity", "tokens", "delay", "rejected", "delayed" }</code> JSON object to the given builder.
+	 */
+	public synchronized void appendJSON( StringBuilder builder ) {
+		refill();
+		builder.append( "{\"capacity\":" ).append( mCapacity )
+				.append( ",\"tokens\":" ).append( (long) Math.floor( mTokens ) )
+				.append( ",\"delay\":" ).append( mDelay )
+				.append( ",\"rejected\":" ).append( mRejectedCount )
+				.append( ",\"delayed\":" ).append( mDelayedCount )
+				.append( '}' );
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private void refill() {
+		long now = System.nanoTime();
+		mTokens = Math.min( mCapacity, mTokens + (now - mLastRefill) * mTokensPerNano );
+		mLastRefill = now;
+	}
+
+}
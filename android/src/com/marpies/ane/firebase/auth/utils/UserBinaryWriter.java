@@ -0,0 +1,168 @@
+/**
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import com.marpies.ane.firebase.auth.backend.AuthUser;
+import com.marpies.ane.firebase.auth.backend.AuthUserInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Serializes user data into a compact, big-endian binary layout that is read
+ * on the AS side using <code>ByteArray</code>:
+ *
+ * <pre>
+ * payload:  int callbackId, byte hasUser, [user]
+ * user:     byte flags, utf uid, [utf displayName], [utf email], [utf photoURL],
+ *           int providerCount, provider * providerCount
+ * provider: byte flags, [utf providerId], [utf uid], [utf displayName], [utf email], [utf photoURL]
+ * utf:      int length, UTF-8 bytes
+ * </pre>
+ */
+public class UserBinaryWriter {
+
+	/* User flags */
+	public static final int USER_ANONYMOUS = 1;
+	public static final int USER_DISPLAY_NAME = 1 << 1;
+	public static final int USER_EMAIL = 1 << 2;
+	public static final int USER_PHOTO_URL = 1 << 3;
+
+	/* Provider flags */
+	public static final int PROVIDER_ID = 1;
+	public static final int PROVIDER_UID = 1 << 1;
+	public static final int PROVIDER_DISPLAY_NAME = 1 << 2;
+	public static final int PROVIDER_EMAIL = 1 << 3;
+	public static final int PROVIDER_PHOTO_URL = 1 << 4;
+
+	private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+	private static final int INITIAL_CAPACITY = 256;
+
+	private static final ThreadLocal<ByteArrayOutputStream> mBuffer = new ThreadLocal<ByteArrayOutputStream>() {
+		@Override
+		protected ByteArrayOutputStream initialValue() {
+			return new ByteArrayOutputStream( INITIAL_CAPACITY );
+		}
+	};
+
+	/**
+	 * Returns binary representation of the given user, i.e. the user section of the payload.
+	 */
+	public static byte[] getUserBytes( AuthUser user ) {
+		ByteArrayOutputStream buffer = mBuffer.get();
+		buffer.reset();
+		DataOutputStream output = new DataOutputStream( buffer );
+		try {
+			output.writeBoolean( user != null );
+			if( user != null ) {
+				writeUser( output, user );
+			}
+			output.flush();
+		} catch( IOException e ) {
+			/* Writing to memory does not throw */
+			e.printStackTrace();
+		}
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Returns binary payload with the given user bytes and callback ID. Use <code>-1</code>
+	 * as callback ID for events that are not a response to an AS call.
+	 */
+	public static byte[] getPayload( byte[] userBytes, int callbackId ) {
+		byte[] payload = new byte[4 + userBytes.length];
+		payload[0] = (byte) (callbackId >>> 24);
+		payload[1] = (byte) (callbackId >>> 16);
+		payload[2] = (byte) (callbackId >>> 8);
+		payload[3] = (byte) callbackId;
+		System.arraycopy( userBytes, 0, payload, 4, userBytes.length );
+		return payload;
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static void writeUser( DataOutputStream output, AuthUser user ) throws IOException {
+		String displayName = user.getDisplayName();
+		String email = user.getEmail();
+		String photoURL = user.getPhotoURL();
+
+		int flags = 0;
+		if( user.isAnonymous() ) flags |= USER_ANONYMOUS;
+		if( displayName != null ) flags |= USER_DISPLAY_NAME;
+		if( email != null ) flags |= USER_EMAIL;
+		if( photoURL != null ) flags |= USER_PHOTO_URL;
+
+		output.writeByte( flags );
+		writeString( output, user.getUid() );
+		writeOptional( output, displayName );
+		writeOptional( output, email );
+		writeOptional( output, photoURL );
+
+		List<AuthUserInfo> providerData = user.getProviderData();
+		final int size = (providerData != null) ? providerData.size() : 0;
+		output.writeInt( size );
+		for( int i = 0; i < size; i++ ) {
+			writeUserInfo( output, providerData.get( i ) );
+		}
+	}
+
+	private static void writeUserInfo( DataOutputStream output, AuthUserInfo userInfo ) throws IOException {
+		String providerId = userInfo.getProviderId();
+		String uid = userInfo.getUid();
+		String displayName = userInfo.getDisplayName();
+		String email = userInfo.getEmail();
+		String photoURL = userInfo.getPhotoURL();
+
+		int flags = 0;
+		if( providerId != null ) flags |= PROVIDER_ID;
+		if( uid != null ) flags |= PROVIDER_UID;
+		if( displayName != null ) flags |= PROVIDER_DISPLAY_NAME;
+		if( email != null ) flags |= PROVIDER_EMAIL;
+		if( photoURL != null ) flags |= PROVIDER_PHOTO_URL;
+
+		output.writeByte( flags );
+		writeOptional( output, providerId );
+		writeOptional( output, uid );
+		writeOptional( output, displayName );
+		writeOptional( output, email );
+		writeOptional( output, photoURL );
+	}
+
+	private static void writeOptional( DataOutputStream output, String value ) throws IOException {
+		if( value != null ) {
+			writeString( output, value );
+		}
+	}
+
+	private static void writeString( DataOutputStream output, String value ) throws IOException {
+		/* Standard UTF-8 (not Java's modified UTF-8) so that ByteArray.readUTFBytes() decodes it correctly,
+		 * int length so that long values (e.g. data URL photos) cannot overflow it and desync the payload */
+		byte[] bytes = value.getBytes( UTF_8 );
+		output.writeInt( bytes.length );
+		output.write( bytes );
+	}
+
+}
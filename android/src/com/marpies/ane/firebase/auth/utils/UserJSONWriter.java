@@ -0,0 +1,118 @@
+/**
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import com.marpies.ane.firebase.auth.backend.AuthUser;
+import com.marpies.ane.firebase.auth.backend.AuthUserInfo;
+
+import java.util.List;
+
+/**
+ * Serializes user data into JSON in a single pass, reusing one builder per thread.
+ */
+public class UserJSONWriter {
+
+	private static final int INITIAL_CAPACITY = 512;
+
+	private static final ThreadLocal<StringBuilder> mBuilder = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder( INITIAL_CAPACITY );
+		}
+	};
+
+	/**
+	 * Returns JSON representation of the given user, or <code>null</code> JSON literal if user is <code>null</code>.
+	 */
+	public static String getUserJSON( AuthUser user ) {
+		StringBuilder builder = obtainBuilder();
+		writeUser( builder, user );
+		return builder.toString();
+	}
+
+	/**
+	 * Returns JSON payload for the <code>SIGN_IN_SUCCESS</code> event.
+	 */
+	public static String getAuthResponseJSON( String userJSON, int callbackId ) {
+		StringBuilder builder = obtainBuilder();
+		builder.append( "{\"callbackId\":" ).append( callbackId ).append( ",\"user\":" ).append( userJSON ).append( '}' );
+		return builder.toString();
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static void writeUser( StringBuilder builder, AuthUser user ) {
+		if( user == null ) {
+			builder.append( "null" );
+			return;
+		}
+		builder.append( "{\"uid\":" );
+		StringUtils.appendJSONString( builder, user.getUid() );
+		builder.append( ",\"isAnonymous\":" ).append( user.isAnonymous() );
+		appendOptional( builder, "displayName", user.getDisplayName() );
+		appendOptional( builder, "email", user.getEmail() );
+		appendOptional( builder, "photoURL", user.getPhotoURL() );
+		List<AuthUserInfo> providerData = user.getProviderData();
+		if( providerData != null && !providerData.isEmpty() ) {
+			builder.append( ",\"providerData\":[" );
+			final int size = providerData.size();
+			for( int i = 0; i < size; i++ ) {
+				if( i > 0 ) {
+					builder.append( ',' );
+				}
+				writeUserInfo( builder, providerData.get( i ) );
+			}
+			builder.append( ']' );
+		}
+		builder.append( '}' );
+	}
+
+	private static void writeUserInfo( StringBuilder builder, AuthUserInfo userInfo ) {
+		int start = builder.length();
+		builder.append( '{' );
+		appendOptional( builder, "providerId", userInfo.getProviderId() );
+		appendOptional( builder, "uid", userInfo.getUid() );
+		appendOptional( builder, "displayName", userInfo.getDisplayName() );
+		appendOptional( builder, "email", userInfo.getEmail() );
+		appendOptional( builder, "photoURL", userInfo.getPhotoURL() );
+		/* Each property is written with a leading comma, remove the one following the opening brace */
+		if( builder.length() > start + 1 ) {
+			builder.deleteCharAt( start + 1 );
+		}
+		builder.append( '}' );
+	}
+
+	private static void appendOptional( StringBuilder builder, String key, String value ) {
+		if( value != null ) {
+			builder.append( ",\"" ).append( key ).append( "\":" );
+			StringUtils.appendJSONString( builder, value );
+		}
+	}
+
+	private static StringBuilder obtainBuilder() {
+		StringBuilder builder = mBuilder.get();
+		builder.setLength( 0 );
+		return builder;
+	}
+
+}
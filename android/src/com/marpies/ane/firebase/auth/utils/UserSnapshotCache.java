@@ -0,0 +1,81 @@
+/**
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import com.marpies.ane.firebase.auth.backend.AuthUser;
+
+/**
+ * Caches serialized representations of the current user, keyed by the user snapshot they were
+ * made from and a version number that is bumped whenever the user is known to have changed.
+ * A cached representation is reused only if the given snapshot has the same fields, see <code>AuthUser.equals()</code>,
+ * so changes the SDK makes on its own (e.g. a reload) are serialized even if nobody bumped the version.
+ */
+public class UserSnapshotCache {
+
+	private static final String NULL_USER_JSON = "null";
+
+	private int mVersion;
+
+	private AuthUser mJSONUser;
+	private int mJSONVersion = -1;
+	private String mJSON;
+	private AuthUser mBinaryUser;
+	private int mBinaryVersion = -1;
+	private byte[] mBinary;
+
+	/**
+	 * Returns JSON representation of the given user, serializing it only if the cached one is stale.
+	 */
+	public synchronized String getJSON( AuthUser user ) {
+		if( user == null ) {
+			return NULL_USER_JSON;
+		}
+		if( mJSONVersion != mVersion || !user.equals( mJSONUser ) ) {
+			mJSON = UserJSONWriter.getUserJSON( user );
+			mJSONUser = user;
+			mJSONVersion = mVersion;
+		}
+		return mJSON;
+	}
+
+	/**
+	 * Returns binary representation of the given user, serializing it only if the cached one is stale.
+	 */
+	public synchronized byte[] getBinary( AuthUser user ) {
+		if( user == null ) {
+			return UserBinaryWriter.getUserBytes( null );
+		}
+		if( mBinaryVersion != mVersion || !user.equals( mBinaryUser ) ) {
+			mBinary = UserBinaryWriter.getUserBytes( user );
+			mBinaryUser = user;
+			mBinaryVersion = mVersion;
+		}
+		return mBinary;
+	}
+
+	/**
+	 * Marks the cached snapshots as stale, should be called after the user has been modified.
+	 */
+	public synchronized void invalidate() {
+		mVersion++;
+	}
+
+	public synchronized int getVersion() {
+		return mVersion;
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Persists JSON of the last signed in user in the app's private storage, so that it
+ * can be provided to AS on the next launch before the SDK reports the auth state.
+ * Writes go to a temporary file that replaces the snapshot once fully written.
+ */
+public class UserSnapshotStore {
+
+	private static final String FILE_PREFIX = "com.marpies.ane.firebase.auth.user";
+	private static final String FILE_EXTENSION = ".json";
+	private static final String TEMP_SUFFIX = ".tmp";
+	private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+	private final String mFileName;
+	private File mFile;
+	private File mTempFile;
+
+	/* Last persisted JSON, used to skip writes that would not change the snapshot */
+	private String mLastJSON;
+
+	/**
+	 * @param appName Name of the app whose user is persisted, or <code>null</code> for the default app.
+	 */
+	public UserSnapshotStore( String appName ) {
+		mFileName = FILE_PREFIX + ((appName != null) ? "." + Integer.toHexString( appName.hashCode() ) : "") + FILE_EXTENSION;
+	}
+
+	/**
+	 * Sets the directory where the snapshot is stored, should be called before any other method.
+	 */
+	public synchronized void setDirectory( File directory ) {
+		if( directory == null ) return;
+		mFile = new File( directory, mFileName );
+		mTempFile = new File( directory, mFileName + TEMP_SUFFIX );
+	}
+
+	/**
+	 * Returns the persisted user JSON, or <code>null</code> if there is none.
+	 */
+	public synchronized String read() {
+		if( mFile == null || !mFile.exists() ) {
+			return null;
+		}
+		FileInputStream input = null;
+		try {
+			input = new FileInputStream( mFile );
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream( (int) mFile.length() );
+			byte[] chunk = new byte[1024];
+			int count;
+			while( (count = input.read( chunk )) != -1 ) {
+				buffer.write( chunk, 0, count );
+			}
+			mLastJSON = new String( buffer.toByteArray(), UTF_8 );
+			return mLastJSON;
+		} catch( IOException e ) {
+			e.printStackTrace();
+		} finally {
+			close( input );
+		}
+		return null;
+	}
+
+	/**
+	 * Replaces the persisted user JSON with the given one.
+	 */
+	public synchronized void write( String json ) {
+		if( mFile == null || json == null || json.equals( mLastJSON ) ) {
+			return;
+		}
+		FileOutputStream output = null;
+		try {
+			output = new FileOutputStream( mTempFile );
+			output.write( json.getBytes( UTF_8 ) );
+			output.getFD().sync();
+			output.close();
+			output = null;
+			if( !mTempFile.renameTo( mFile ) ) {
+				AIR.log( "Failed to replace user snapshot file" );
+				mTempFile.delete();
+				return;
+			}
+			mLastJSON = json;
+		} catch( IOException e ) {
+			e.printStackTrace();
+			mTempFile.delete();
+		} finally {
+			close( output );
+		}
+	}
+
+	/**
+	 * Removes the persisted user JSON.
+	 */
+	public synchronized void clear() {
+		mLastJSON = null;
+		if( mFile != null ) {
+			mFile.delete();
+		}
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private static void close( Closeable closeable ) {
+		if( closeable == null ) return;
+		try {
+			closeable.close();
+		} catch( IOException e ) {
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016 Marcel Piestansky (http://marpies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.marpies.ane.firebase.auth.utils;
+
+import android.support.annotation.NonNull;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.marpies.ane.firebase.auth.backend.AuthBackend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies several changes to the user one after another, stopping at the first failure.
+ * The result of each change is kept so that it can be reported to AS in a single event.
+ */
+public class UserUpdateBatch {
+
+	public interface Listener {
+		void onBatchComplete( UserUpdateBatch batch );
+	}
+
+	public static final String FIELD_EMAIL = "email";
+	public static final String FIELD_PASSWORD = "password";
+	public static final String FIELD_PROFILE = "profile";
+
+	private static final String STATUS_SUCCESS = "success";
+	private static final String STATUS_FAILED = "failed";
+	private static final String STATUS_SKIPPED = "skipped";
+
+	private static class Step {
+		final String mField;
+		final RetryPolicy mPolicy;
+		final RetryEngine.TaskFactory<Void> mFactory;
+		String mStatus = STATUS_SKIPPED;
+		String mErrorMessage;
+
+		Step( String field, RetryPolicy policy, RetryEngine.TaskFactory<Void> factory ) {
+			mField = field;
+			mPolicy = policy;
+			mFactory = factory;
+		}
+	}
+
+	private final AuthBackend mBackend;
+	private final RetryEngine mRetryEngine;
+	private final List<Step> mSteps = new ArrayList<Step>( 3 );
+
+	private Listener mListener;
+	private String mErrorMessage;
+	private int mCompletedCount;
+
+	public UserUpdateBatch( AuthBackend backend, RetryEngine retryEngine ) {
+		mBackend = backend;
+		mRetryEngine = retryEngine;
+	}
+
+	public void addEmail( final String email ) {
+		mSteps.add( new Step( FIELD_EMAIL, RetryPolicy.NONE, new RetryEngine.TaskFactory<Void>() {
+			@Override
+			public Task<Void> create() {
+				return mBackend.updateEmail( email );
+			}
+		} ) );
+	}
+
+	public void addPassword( final String password ) {
+		mSteps.add( new Step( FIELD_PASSWORD, RetryPolicy.IDEMPOTENT, new RetryEngine.TaskFactory<Void>() {
+			@Override
+			public Task<Void> create() {
+				return mBackend.updatePassword( password );
+			}
+		} ) );
+	}
+
+	/**
+	 * Adds profile change, <code>null</code> values are left unchanged.
+	 */
+	public void addProfile( final String displayName, final String photoURL ) {
+		mSteps.add( new Step( FIELD_PROFILE, RetryPolicy.IDEMPOTENT, new RetryEngine.TaskFactory<Void>() {
+			@Override
+			public Task<Void> create() {
+				return mBackend.updateProfile( displayName, photoURL );
+			}
+		} ) );
+	}
+
+	/**
+	 * Starts applying the changes, the listener is notified on the completion executor.
+	 */
+	public void run( Listener listener ) {
+		mListener = listener;
+		runStep( 0 );
+	}
+
+	/**
+	 * Appends JSON object with the result of each change, i.e. its <code>status</code>
+	 * (<code>success</code>, <code>failed</code> or <code>skipped</code> after an earlier failure)
+	 * and the <code>errorMessage</code> if the change failed.
+	 */
+	public void appendResultsJSON( StringBuilder builder ) {
+		builder.append( '{' );
+		final int size = mSteps.size();
+		for( int i = 0; i < size; i++ ) {
+			Step step = mSteps.get( i );
+			if( i > 0 ) {
+				builder.append( ',' );
+			}
+			builder.append( '"' ).append( step.mField ).append( "\":{\"status\":\"" ).append( step.mStatus ).append( '"' );
+			if( step.mErrorMessage != null ) {
+				builder.append( ",\"errorMessage\":" );
+				StringUtils.appendJSONString( builder, step.mErrorMessage );
+			}
+			builder.append( '}' );
+		}
+		builder.append( '}' );
+	}
+
+	/**
+	 *
+	 *
+	 * Getters / Setters
+	 *
+	 *
+	 */
+
+	public boolean isSuccessful() {
+		return mErrorMessage == null;
+	}
+
+	public String getErrorMessage() {
+		return mErrorMessage;
+	}
+
+	/**
+	 * Returns number of changes that have been applied successfully.
+	 */
+	public int getCompletedCount() {
+		return mCompletedCount;
+	}
+
+	public boolean isEmpty() {
+		return mSteps.isEmpty();
+	}
+
+	/**
+	 *
+	 *
+	 * Private API
+	 *
+	 *
+	 */
+
+	private void runStep( final int index ) {
+		if( index >= mSteps.size() ) {
+			mListener.onBatchComplete( this );
+			return;
+		}
+		final Step step = mSteps.get( index );
+		mRetryEngine.execute( "updateUserBatch:" + step.mField, step.mPolicy, OperationScheduler.BACKGROUND, step.mFactory, new OnCompleteListener<Void>() {
+			@Override
+			public void onComplete( @NonNull Task<Void> task ) {
+				if( task.isSuccessful() ) {
+					step.mStatus = STATUS_SUCCESS;
+					mCompletedCount++;
+					runStep( index + 1 );
+					return;
+				}
+				mErrorMessage = (task.getException() != null) ? task.getException().getLocalizedMessage() : "Unknown error.";
+				step.mStatus = STATUS_FAILED;
+				step.mErrorMessage = mErrorMessage;
+				mListener.onBatchComplete( UserUpdateBatch.this );
+			}
+		} );
+	}
+
+}